@@ -0,0 +1,223 @@
+package com.company;
+
+//imports
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codec Benchmark
+ *
+ * Measures each stage of the codec on its own and the whole round trip, for every corpus (see Corpora)
+ * Every benchmark also counts the megabytes of original data it handled, so the "megabytes" result is MB/s
+ * The small benchmarks round trip one short message, with a table in the message or with a codebook trained on the corpus
+ * Incompressible corpora are coded like the others unless store is true, so random measures the worst case of the coder
+ * Run with -prof gc for the allocation rate, RunBenchmarks adds it by default
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    // the corpus to run on
+    @Param({"random", "text", "skewed", "single", "binary"})
+    public String corpus;
+
+    // the number of bytes in the corpus
+    @Param({"4194304"})
+    public int size;
+
+    // true to store the corpora a code can not make smaller, as the codec does, false to code every corpus so the
+    // random corpus measures the coder and not a copy (-p store=true for the stored path)
+    @Param({"false"})
+    public boolean store;
+
+    // the number of bytes in the small message of the small benchmarks
+    static final int SMALL_SIZE = 256;
+
+    // the original bytes
+    private ByteBuffer original;
+    // the frequency of each byte, and the code made from them
+    private long[] frequencies;
+    private long[] codes;
+    private int[] lengths;
+    private int longest;
+    // the corpus in the original .huff format, the canonical format, the interleaved, context, BWT and LZ77 formats
+    private ByteBuffer legacy;
+    private ByteBuffer canonical;
+    private ByteBuffer interleaved;
+    private ByteBuffer context;
+    private ByteBuffer bwt;
+    private ByteBuffer lz77;
+
+    // the codecs for both formats
+    private final HuffmanCodec legacyCodec = new HuffmanCodec(false, 0, 0, 0);
+    private final HuffmanCodec canonicalCodec = new HuffmanCodec();
+    // a codec with a codebook trained on the corpus, and a small message from the corpus
+    private HuffmanCodec sharedCodec;
+    private ByteBuffer small;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("huffman.store", Boolean.toString(store));
+        original = ByteBuffer.wrap(Corpora.generate(corpus, size));
+        frequencies = HuffmanEncoder.getFrequencies(new MappedInput(original));
+        codes = new long[256];
+        lengths = new int[256];
+        HuffmanEncoder.createEncodingTable(HuffmanEncoder.createTree(Histogram.toNodes(frequencies)), 0, 0, codes, lengths);
+        longest = HuffmanEncoder.getLongest(lengths);
+        legacy = legacyCodec.compress(original);
+        canonical = canonicalCodec.compress(original);
+        interleaved = HuffmanCodec.interleaved(0).compress(original);
+        context = HuffmanCodec.context(0).compress(original);
+        bwt = HuffmanCodec.bwt(0, 0).compress(original);
+        lz77 = HuffmanCodec.lz77(0, 0).compress(original);
+        sharedCodec = HuffmanCodec.shared(Codebook.train(1, frequencies, 0));
+        small = ByteBuffer.wrap(Corpora.generate(corpus, SMALL_SIZE));
+    }
+
+    /**
+     * Throughput
+     * counts the megabytes handled, reported per second
+     */
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        // the megabytes of original data handled
+        public double megabytes;
+    }// end Throughput
+
+    @Benchmark
+    public long[] getFrequencies(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        return HuffmanEncoder.getFrequencies(new MappedInput(original));
+    }
+
+    @Benchmark
+    public Node createTree() {
+        return HuffmanEncoder.createTree(Histogram.toNodes(frequencies));
+    }
+
+    @Benchmark
+    public long encode(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        BitWriter writer = new BitWriter(NullOutput.INSTANCE);
+        HuffmanEncoder.encode(original, codes, lengths, longest, writer);
+        writer.flush(false);
+        return writer.getTotalBits();
+    }
+
+    @Benchmark
+    public DecodeTable getTable() throws IOException {
+        return HuffmanDecoder.getTable(legacy.duplicate());
+    }
+
+    @Benchmark
+    public void decodeLegacy(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(legacy), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeCanonical(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(canonical), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeInterleaved(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(interleaved), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeContext(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(context), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeBwt(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(bwt), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeLz77(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        HuffmanDecoder.decompress(new MappedInput(lz77), NullOutput.INSTANCE);
+    }
+
+    @Benchmark
+    public ByteBuffer roundTrip(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        return canonicalCodec.decompress(canonicalCodec.compress(original));
+    }
+
+    @Benchmark
+    public ByteBuffer smallCanonical(Throughput throughput) throws IOException {
+        throughput.megabytes += SMALL_SIZE / 1e6;
+        return canonicalCodec.decompress(canonicalCodec.compress(small));
+    }
+
+    @Benchmark
+    public ByteBuffer smallShared(Throughput throughput) throws IOException {
+        throughput.megabytes += SMALL_SIZE / 1e6;
+        return sharedCodec.decompress(sharedCodec.compress(small));
+    }
+
+    /**
+     * NullOutput
+     * an output that throws away everything written to it, so only the codec is measured
+     */
+
+    static class NullOutput extends OutputStream implements WritableByteChannel {
+        static final NullOutput INSTANCE = new NullOutput();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int count = src.remaining();
+            src.position(src.limit());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }// end NullOutput
+}// end CodecBenchmark
@@ -0,0 +1,183 @@
+package com.company;
+
+//imports
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Corpora
+ *
+ * Generates the inputs the benchmarks are run on, every corpus comes from a fixed seed so each run measures exactly
+ * the same bytes
+ * random - uniform random bytes, nothing to compress
+ * text   - English words with punctuation and line breaks
+ * skewed - a geometric distribution, a few bytes are very common and the rest are rare
+ * single - one byte repeated, the smallest possible code
+ * binary - bytes shaped like an executable: instructions, little endian addresses, zero padding and string tables
+ */
+
+public class Corpora {
+
+    // the names of the corpora, in the order they are reported
+    static final String[] NAMES = {"random", "text", "skewed", "single", "binary"};
+
+    // the seed of every corpus
+    private static final long SEED = 0x5EEDL;
+
+    // common English words, the first words are used the most
+    private static final String[] WORDS = ("the of and to a in is that for it as was with be by on not he this are or "
+            + "his from at which but have an they you were her she there one all been their has would will we more if "
+            + "when no can who so what about out up into than them its only other time new some could these two may "
+            + "first then do any like my now over such our man me even most made after also did many before must "
+            + "through back years where much your way well down should because each just those people how too little "
+            + "state good very make world still own see men work long get here between both life being under never "
+            + "day same another know while last might us great old year off come since against go came right used "
+            + "take three compression huffman tree code byte frequency table encoder decoder message file stream").split(" ");
+
+    // the most common x86 opcode bytes, used for the instruction part of the binary corpus
+    private static final int[] OPCODES = {0x48, 0x89, 0x8B, 0xE8, 0xFF, 0x83, 0x0F, 0x85, 0x84, 0x74, 0x75, 0xC3,
+            0x55, 0x5D, 0x41, 0x4C, 0x31, 0xC0, 0x24, 0x45, 0x8D, 0xEB, 0x39, 0x01, 0x44, 0x50, 0x53, 0x5B};
+
+    /**
+     * generate
+     * Version 1.0
+     *
+     * @param name the name of the corpus
+     * @param size the number of bytes
+     * @return the bytes of the corpus
+     */
+
+    public static byte[] generate(String name, int size) {
+        Random random = new Random(SEED);
+        byte[] data = new byte[size];
+        if (name.equals("random")) {
+            random.nextBytes(data);
+        } else if (name.equals("text")) {
+            text(random, data);
+        } else if (name.equals("skewed")) {
+            skewed(random, data);
+        } else if (name.equals("single")) {
+            java.util.Arrays.fill(data, (byte) 'a');
+        } else if (name.equals("binary")) {
+            binary(random, data);
+        } else {
+            throw new IllegalArgumentException("Unknown corpus " + name);
+        }
+        return data;
+    }// end generate
+
+    /**
+     * text
+     * fills the array with sentences made of common words, the word is picked with a Zipf like weight
+     * Version 1.0
+     *
+     * @param random the random numbers
+     * @param data   the array to fill
+     */
+
+    private static void text(Random random, byte[] data) {
+        int position = 0;
+        boolean sentenceStart = true;
+        int lineLength = 0;
+        while (position < data.length) {
+            // the square of a uniform number makes the first words much more likely
+            double u = random.nextDouble();
+            byte[] word = WORDS[(int) (u * u * WORDS.length)].getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < word.length && position < data.length; i++) {
+                byte b = word[i];
+                if (i == 0 && sentenceStart) {
+                    b = (byte) Character.toUpperCase(b);
+                }
+                data[position++] = b;
+            }
+            lineLength += word.length + 1;
+            sentenceStart = false;
+            // end the sentence now and then
+            int end = random.nextInt(16);
+            if (end == 0 && position < data.length) {
+                data[position++] = '.';
+                sentenceStart = true;
+            } else if (end == 1 && position < data.length) {
+                data[position++] = ',';
+            }
+            if (position < data.length) {
+                data[position++] = (byte) (lineLength > 72 ? '\n' : ' ');
+                if (lineLength > 72) {
+                    lineLength = 0;
+                }
+            }
+        }
+    }// end text
+
+    /**
+     * skewed
+     * fills the array with bytes from a geometric distribution, each byte is 0.7 times as likely as the one before
+     * Version 1.0
+     *
+     * @param random the random numbers
+     * @param data   the array to fill
+     */
+
+    private static void skewed(Random random, byte[] data) {
+        double scale = -1 / Math.log(0.7);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * scale));
+        }
+    }// end skewed
+
+    /**
+     * binary
+     * fills the array with sections that look like the parts of an executable file
+     * Version 1.0
+     *
+     * @param random the random numbers
+     * @param data   the array to fill
+     */
+
+    private static void binary(Random random, byte[] data) {
+        int position = 0;
+        int address = 0x401000;
+        while (position < data.length) {
+            int kind = random.nextInt(10);
+            int length = Math.min(data.length - position, 256 + random.nextInt(4096));
+            int end = position + length;
+            if (kind < 6) {
+                // instructions: an opcode, sometimes a register byte and a 32 bit little endian offset
+                while (position < end) {
+                    data[position++] = (byte) OPCODES[(int) (Math.pow(random.nextDouble(), 2) * OPCODES.length)];
+                    if (random.nextInt(3) == 0) {
+                        int offset = random.nextInt(1 << 12) - (1 << 11);
+                        for (int i = 0; i < 4 && position < end; i++) {
+                            data[position++] = (byte) (offset >> (8 * i));
+                        }
+                    }
+                }
+            } else if (kind < 8) {
+                // a table of addresses that grow
+                while (position < end) {
+                    address += 4 + random.nextInt(64);
+                    for (int i = 0; i < 4 && position < end; i++) {
+                        data[position++] = (byte) (address >> (8 * i));
+                    }
+                }
+            } else if (kind < 9) {
+                // zero padding between sections
+                while (position < end) {
+                    data[position++] = 0;
+                }
+            } else {
+                // a string table of names that end with a zero
+                while (position < end) {
+                    byte[] word = WORDS[random.nextInt(WORDS.length)].getBytes(StandardCharsets.US_ASCII);
+                    for (int i = 0; i < word.length && position < end; i++) {
+                        data[position++] = word[i];
+                    }
+                    if (position < end) {
+                        data[position++] = 0;
+                    }
+                }
+            }
+        }
+    }// end binary
+}// end Corpora
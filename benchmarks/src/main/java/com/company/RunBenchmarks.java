@@ -0,0 +1,64 @@
+package com.company;
+
+//imports
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Run Benchmarks
+ *
+ * Prints the compression ratio of each format on each corpus (and on a small message from it), and then runs the JMH benchmarks with the gc profiler
+ * Usage: java -jar benchmarks/target/benchmarks.jar [JMH options, for example CodecBenchmark.decode -p corpus=text]
+ */
+
+public class RunBenchmarks {
+
+    // the size of the corpora the ratios are measured on
+    private static final int RATIO_SIZE = 4 << 20;
+
+    public static void main(String[] args) throws Exception {
+        printRatios();
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }// end main
+
+    /**
+     * printRatios
+     * compresses every corpus in every format and prints the size of the .huff data over the original size
+     * Version 1.0
+     *
+     * @throws Exception
+     */
+
+    static void printRatios() throws Exception {
+        HuffmanCodec[] codecs = {new HuffmanCodec(false, 0, 0, 0), new HuffmanCodec(), new HuffmanCodec(true, 0, 12, 0),
+                new HuffmanCodec(true, HuffmanFormat.DEFAULT_BLOCK_SIZE, 0, 0), HuffmanCodec.interleaved(0),
+                HuffmanCodec.context(0), HuffmanCodec.bwt(0, 0),
+                HuffmanCodec.lz77(1, 0), HuffmanCodec.lz77(0, 0)};
+        String[] formats = {"legacy", "canonical", "limit 12", "blocks 1 MB", "interleaved", "context", "bwt", "lz77 1",
+                "lz77 6", "small", "small shared"};
+        System.out.printf("%-8s", "corpus");
+        for (String format : formats) {
+            System.out.printf("%14s", format);
+        }
+        System.out.println();
+        for (String corpus : Corpora.NAMES) {
+            ByteBuffer original = ByteBuffer.wrap(Corpora.generate(corpus, RATIO_SIZE));
+            System.out.printf("%-8s", corpus);
+            for (HuffmanCodec codec : codecs) {
+                System.out.printf("%14.4f", (double) codec.compress(original).remaining() / RATIO_SIZE);
+            }
+            // a small message with its own table, and with a codebook trained on the corpus
+            ByteBuffer small = ByteBuffer.wrap(Corpora.generate(corpus, CodecBenchmark.SMALL_SIZE));
+            HuffmanCodec shared = HuffmanCodec.shared(Codebook.train(1, Histogram.count(original), 0));
+            System.out.printf("%14.4f", (double) codecs[1].compress(small).remaining() / CodecBenchmark.SMALL_SIZE);
+            System.out.printf("%14.4f", (double) shared.compress(small).remaining() / CodecBenchmark.SMALL_SIZE);
+            System.out.println();
+        }
+    }// end printRatios
+}// end RunBenchmarks
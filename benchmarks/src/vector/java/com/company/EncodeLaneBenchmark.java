@@ -0,0 +1,160 @@
+package com.company;
+
+//imports
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode Lane Benchmark
+ *
+ * Compares three ways of packing the codes of a corpus: one writeBits for each byte (scalar), the lanes of four codes
+ * HuffmanEncoder.encode joins (lanes), and a jdk.incubator.vector prototype that gathers the codes and lengths of a
+ * vector of lanes at once and joins them with vector shifts before the same writeLane calls (vector)
+ * Only built with -Pvector on JDK 17 or newer, the results are in benchmarks/results/encode-lanes.txt
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EncodeLaneBenchmark {
+
+    // the widest vector of longs the processor has
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // the corpus to run on
+    @Param({"text", "skewed", "binary"})
+    public String corpus;
+
+    // scalar, lanes or vector
+    @Param({"scalar", "lanes", "vector"})
+    public String method;
+
+    // the number of bytes in the corpus
+    @Param({"4194304"})
+    public int size;
+
+    // the original bytes, in a buffer and in an array
+    private ByteBuffer original;
+    private byte[] bytes;
+    // the code of each byte, its length, and the length as a long for the vector gathers
+    private long[] codes;
+    private int[] lengths;
+    private long[] longLengths;
+    private int longest;
+    // the bytes of each of the four positions of a vector of lanes, and the joined lanes and their lengths
+    private int[][] indexes;
+    private long[] lanes;
+    private long[] laneLengths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = Corpora.generate(corpus, size);
+        original = ByteBuffer.wrap(bytes);
+        long[] frequencies = HuffmanEncoder.getFrequencies(new MappedInput(original));
+        // codes are limited so every corpus takes lanes of four in all three methods
+        lengths = HuffmanEncoder.buildLengths(frequencies, BitWriter.MAX_LANE_BITS / 4);
+        codes = CanonicalCode.assignCodes(lengths);
+        longest = HuffmanEncoder.getLongest(lengths);
+        longLengths = new long[256];
+        for (int i = 0; i < 256; i++) {
+            longLengths[i] = lengths[i];
+        }
+        indexes = new int[4][SPECIES.length()];
+        lanes = new long[SPECIES.length()];
+        laneLengths = new long[SPECIES.length()];
+    }
+
+    /**
+     * Throughput
+     * counts the megabytes handled, reported per second
+     */
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        // the megabytes of original data handled
+        public double megabytes;
+    }// end Throughput
+
+    @Benchmark
+    public long encode(Throughput throughput) throws IOException {
+        throughput.megabytes += size / 1e6;
+        BitWriter writer = new BitWriter(CodecBenchmark.NullOutput.INSTANCE);
+        if (method.equals("scalar")) {
+            for (int i = 0; i < size; i++) {
+                int b = bytes[i] & 255;
+                writer.writeBits(codes[b], lengths[b]);
+            }
+        } else if (method.equals("lanes")) {
+            HuffmanEncoder.encode(original, codes, lengths, longest, writer);
+        } else {
+            encodeVector(writer);
+        }
+        writer.flush(false);
+        return writer.getTotalBits();
+    }
+
+    /**
+     * encodeVector
+     * the prototype, each step makes SPECIES.length() lanes of four codes
+     * Version 1.0
+     *
+     * @param writer the bit writer that packs the lanes
+     * @throws IOException
+     */
+
+    private void encodeVector(BitWriter writer) throws IOException {
+        int count = SPECIES.length();
+        int step = 4 * count;
+        int i = 0;
+        for (; i + step <= size; i += step) {
+            // split the bytes by their place in the lane, so each place is one gather
+            for (int lane = 0; lane < count; lane++) {
+                int base = i + 4 * lane;
+                indexes[0][lane] = bytes[base] & 255;
+                indexes[1][lane] = bytes[base + 1] & 255;
+                indexes[2][lane] = bytes[base + 2] & 255;
+                indexes[3][lane] = bytes[base + 3] & 255;
+            }
+            LongVector joined = LongVector.fromArray(SPECIES, codes, 0, indexes[0], 0);
+            LongVector total = LongVector.fromArray(SPECIES, longLengths, 0, indexes[0], 0);
+            for (int place = 1; place < 4; place++) {
+                LongVector length = LongVector.fromArray(SPECIES, longLengths, 0, indexes[place], 0);
+                joined = joined.lanewise(VectorOperators.LSHL, length)
+                        .or(LongVector.fromArray(SPECIES, codes, 0, indexes[place], 0));
+                total = total.add(length);
+            }
+            joined.intoArray(lanes, 0);
+            total.intoArray(laneLengths, 0);
+            for (int lane = 0; lane < count; lane++) {
+                writer.writeLane(lanes[lane], (int) laneLengths[lane]);
+            }
+        }
+        for (; i < size; i++) {
+            int b = bytes[i] & 255;
+            writer.writeBits(codes[b], lengths[b]);
+        }
+    }// end encodeVector
+}// end EncodeLaneBenchmark
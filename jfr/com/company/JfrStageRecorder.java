@@ -0,0 +1,52 @@
+package com.company;
+
+//imports
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+/**
+ * Jfr Stage Recorder
+ *
+ * Reports the stages of HuffmanMetrics as StageEvents, it is compiled apart from the Java 8 core since it needs jdk.jfr,
+ * and HuffmanMetrics only creates it by name (see StageRecorder)
+ */
+
+public class JfrStageRecorder implements StageRecorder {
+
+    @Override
+    public boolean isRunning() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Override
+    public void watch(final Runnable changed) {
+        // the listener is only added once the flight recorder is running, since setting it up takes longer than
+        // compressing a small file
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                changed.run();
+            }
+        });
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return EventType.getEventType(StageEvent.class).isEnabled();
+    }
+
+    @Override
+    public Object start() {
+        return StageEvent.start();
+    }
+
+    @Override
+    public void commit(Object started, String stage, long bytesIn, long bytesOut, double megabytesPerSecond,
+                       long tableBits, double averageCodeLength, long allocatedBytes) {
+        StageEvent.commit(started, stage, bytesIn, bytesOut, megabytesPerSecond, tableBits, averageCodeLength,
+                allocatedBytes);
+    }
+}// end JfrStageRecorder
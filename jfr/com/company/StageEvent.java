@@ -0,0 +1,95 @@
+package com.company;
+
+//imports
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Stage Event
+ *
+ * The JDK Flight Recorder event for one stage of compressing or decompressing a file (see HuffmanMetrics)
+ * Loading an event class sets up the flight recorder, so this class is only loaded once a recording has the event
+ * enabled (see JfrStageRecorder)
+ */
+
+@Name("com.company.Stage")
+@Label("Huffman Stage")
+@Category("Huffman")
+@Description("One stage of compressing or decompressing a file")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Throughput (MB/s)")
+    double megabytesPerSecond;
+
+    @Label("Table Size (bits)")
+    long tableBits;
+
+    @Label("Average Code Length")
+    double averageCodeLength;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    /**
+     * start
+     * Version 1.0
+     *
+     * @return a new event with its start time set
+     */
+
+    static Object start() {
+        StageEvent event = new StageEvent();
+        event.begin();
+        return event;
+    }// end start
+
+    /**
+     * commit
+     * ends an event from start and writes it to the recording
+     * Version 1.0
+     *
+     * @param started            the event from start
+     * @param stage              the name of the stage
+     * @param bytesIn            the number of bytes read by the stage
+     * @param bytesOut           the number of bytes written by the stage
+     * @param megabytesPerSecond the bytes read per second, in MB
+     * @param tableBits          the number of bits in the code table, 0 if the stage did not build one
+     * @param averageCodeLength  the average length of the codes, 0 if the stage did not build a table
+     * @param allocatedBytes     the bytes allocated on the thread during the stage, -1 if not known
+     */
+
+    static void commit(Object started, String stage, long bytesIn, long bytesOut, double megabytesPerSecond,
+                       long tableBits, double averageCodeLength, long allocatedBytes) {
+        StageEvent event = (StageEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.bytesIn = bytesIn;
+            event.bytesOut = bytesOut;
+            event.megabytesPerSecond = megabytesPerSecond;
+            event.tableBits = tableBits;
+            event.averageCodeLength = averageCodeLength;
+            event.allocatedBytes = allocatedBytes;
+            event.commit();
+        }
+    }// end commit
+}// end StageEvent
@@ -0,0 +1,194 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+
+/**
+ * Adaptive Huffman
+ *
+ * A Huffman tree that changes after every byte (the FGK algorithm), the encoder and the decoder make the same changes
+ * in the same order, so no table is ever sent and the first byte can be encoded before the rest of the input exists
+ * The tree starts with only the NYT (not yet transmitted) node. A byte that is not in the tree yet is sent as the code
+ * of the NYT node and then the byte itself in 9 bits, and the NYT node is split into a new NYT node and a leaf for the
+ * byte. After each byte its leaf and every node above it gain one, and a node that would become bigger than a node
+ * with a higher number first swaps places with the highest numbered node of its frequency, which keeps the tree a
+ * Huffman tree
+ * The 9 bit symbol 256 after the NYT code marks the end of the message, and 257 marks a flush: the rest of the byte is
+ * zeros so every byte before it can be decoded straight away
+ * The tree never has more than 513 nodes, so the memory used is the same for any length of input
+ */
+
+public class AdaptiveHuffman {
+
+    // the symbol that marks the end of the message
+    static final int END = 256;
+    // the symbol that marks a flush, the zeros up to the next whole byte are skipped
+    static final int FLUSH = 257;
+    // the number of bits of a symbol that is sent after the NYT code
+    static final int SYMBOL_BITS = 9;
+    // the most nodes the tree can have: a leaf for every byte, the NYT node and the nodes above them
+    private static final int MAX_NODES = 2 * 257 - 1;
+
+    // every node, indexed by its number
+    private final Node[] nodes = new Node[MAX_NODES];
+    // the leaf of each byte, null if the byte has not been seen
+    private final Node[] leaves = new Node[256];
+    // the bits of a code from the leaf up to the root
+    private final int[] path = new int[MAX_NODES];
+    // the top of the tree
+    Node root;
+    // the node that stands for every byte that has not been seen
+    Node nyt;
+
+    public AdaptiveHuffman() {
+        root = new Node();
+        root.number = MAX_NODES - 1;
+        nodes[root.number] = root;
+        nyt = root;
+    }
+
+    /**
+     * encode
+     * writes the code of a symbol and then updates the tree
+     * Version 1.0
+     *
+     * @param symbol the byte (0 to 255), END or FLUSH
+     * @param writer the writer the code is written to
+     * @throws IOException
+     */
+
+    public void encode(int symbol, BitWriter writer) throws IOException {
+        Node leaf = symbol < 256 ? leaves[symbol] : null;
+        if (leaf != null) {
+            writeCode(leaf, writer);
+        } else {
+            // a new byte (or the end or a flush) is the NYT code and the symbol itself
+            writeCode(nyt, writer);
+            writer.writeBits(symbol, SYMBOL_BITS);
+        }
+        if (symbol < 256) {
+            update(symbol);
+        }
+    }// end encode
+
+    /**
+     * writeCode
+     * writes the code of a node, found by going up from the node to the root
+     * Version 1.0
+     *
+     * @param node   the node
+     * @param writer the writer the code is written to
+     * @throws IOException
+     */
+
+    private void writeCode(Node node, BitWriter writer) throws IOException {
+        int length = 0;
+        while (node != root) {
+            path[length++] = node == node.parent.right ? 1 : 0;
+            node = node.parent;
+        }
+        // write the bits from the root down, up to 32 at a time
+        long bits = 0;
+        int count = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            bits = (bits << 1) | path[i];
+            if (++count == 32) {
+                writer.writeBits(bits, count);
+                bits = 0;
+                count = 0;
+            }
+        }
+        writer.writeBits(bits, count);
+    }// end writeCode
+
+    /**
+     * update
+     * adds one to the frequency of a byte, the leaf and every node above it gain one and the tree is kept in order
+     * Version 1.0
+     *
+     * @param symbol the byte
+     */
+
+    void update(int symbol) {
+        Node node = leaves[symbol];
+        if (node == null) {
+            // the NYT node gets two children, a new NYT node and the leaf of the new byte
+            Node old = nyt;
+            node = new Node();
+            node.symbol = symbol;
+            node.parent = old;
+            node.number = old.number - 1;
+            nyt = new Node();
+            nyt.parent = old;
+            nyt.number = old.number - 2;
+            old.left = nyt;
+            old.right = node;
+            nodes[node.number] = node;
+            nodes[nyt.number] = nyt;
+            leaves[symbol] = node;
+        }
+        while (node != null) {
+            // move the node to the end of its block before it grows, unless the end of the block is its parent
+            Node leader = leader(node);
+            if (leader != node && leader != node.parent) {
+                swap(node, leader);
+            }
+            node.frequency++;
+            node = node.parent;
+        }
+    }// end update
+
+    /**
+     * leader
+     * Version 1.0
+     *
+     * @param node a node
+     * @return the node with the highest number that has the same frequency as the node
+     */
+
+    private Node leader(Node node) {
+        int number = node.number;
+        while (number + 1 < MAX_NODES && nodes[number + 1].frequency == node.frequency) {
+            number++;
+        }
+        return nodes[number];
+    }// end leader
+
+    /**
+     * swap
+     * swaps the places of two nodes in the tree, the nodes take their subtrees with them
+     * Version 1.0
+     *
+     * @param a a node that is not the root
+     * @param b a node that is not the root or above a
+     */
+
+    private void swap(Node a, Node b) {
+        Node parentA = a.parent;
+        Node parentB = b.parent;
+        if (parentA == parentB) {
+            Node left = parentA.left;
+            parentA.left = parentA.right;
+            parentA.right = left;
+        } else {
+            if (parentA.left == a) {
+                parentA.left = b;
+            } else {
+                parentA.right = b;
+            }
+            if (parentB.left == b) {
+                parentB.left = a;
+            } else {
+                parentB.right = a;
+            }
+            a.parent = parentB;
+            b.parent = parentA;
+        }
+        int number = a.number;
+        a.number = b.number;
+        b.number = number;
+        nodes[a.number] = a;
+        nodes[b.number] = b;
+    }// end swap
+}// end AdaptiveHuffman
@@ -0,0 +1,164 @@
+package com.company;
+
+//imports
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adaptive Huffman Input Stream
+ *
+ * Decompresses the adaptive format (see AdaptiveHuffman) one bit at a time while the compressed bytes arrive, the
+ * tree changes after every byte so there is no lookup table, the code is found by walking down the tree
+ */
+
+public class AdaptiveHuffmanInputStream extends InputStream {
+
+    // what decodeSymbol returns at the end of the message and at a flush
+    private static final int END_OF_MESSAGE = -1;
+    private static final int FLUSHED = -2;
+
+    // the stream the compressed bytes are read from
+    private final InputStream input;
+    // the compressed bytes that have been read but not decoded
+    private final byte[] buffer = new byte[1 << 12];
+    private int position;
+    private int limit;
+    // the byte being decoded and the number of its bits left
+    private int bits;
+    private int bitCount;
+    // the tree shared in step with the encoder
+    private final AdaptiveHuffman tree = new AdaptiveHuffman();
+    // true once the end of the message has been decoded
+    private boolean ended;
+
+    public AdaptiveHuffmanInputStream(InputStream input) throws IOException {
+        this.input = input;
+        // check the header
+        if (readBits(8) != HuffmanFormat.MAGIC_1 || readBits(8) != HuffmanFormat.MAGIC_2
+                || readBits(8) != HuffmanFormat.ADAPTIVE) {
+            throw new IOException("Not an adaptive .huff stream");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int symbol = FLUSHED;
+        while (symbol == FLUSHED && !ended) {
+            symbol = decodeSymbol();
+        }
+        return ended ? -1 : symbol;
+    }// end read
+
+    /**
+     * read
+     * decodes at least one byte, and then more while compressed bytes that have already arrived are left, so it
+     * does not wait for the stream when some bytes are ready
+     * Version 1.0
+     */
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len && !ended && (count == 0 || position < limit)) {
+            int symbol = decodeSymbol();
+            if (symbol == END_OF_MESSAGE) {
+                break;
+            }
+            if (symbol != FLUSHED) {
+                b[off + count++] = (byte) symbol;
+            }
+        }
+        return count == 0 ? -1 : count;
+    }// end read
+
+    /**
+     * decodeSymbol
+     * walks down the tree to a leaf or the NYT node, and updates the tree
+     * Version 1.0
+     *
+     * @return the byte, END_OF_MESSAGE or FLUSHED
+     * @throws IOException if the stream ends before the end of the message
+     */
+
+    private int decodeSymbol() throws IOException {
+        Node node = tree.root;
+        while (node.left != null) {
+            node = readBits(1) == 0 ? node.left : node.right;
+        }
+        int symbol;
+        if (node == tree.nyt) {
+            symbol = readBits(AdaptiveHuffman.SYMBOL_BITS);
+            if (symbol == AdaptiveHuffman.END) {
+                ended = true;
+                return END_OF_MESSAGE;
+            }
+            if (symbol == AdaptiveHuffman.FLUSH) {
+                // the rest of the byte is padding
+                bitCount = 0;
+                return FLUSHED;
+            }
+            if (symbol > 255) {
+                throw new IOException("Invalid symbol in the adaptive stream");
+            }
+        } else {
+            symbol = node.symbol;
+        }
+        tree.update(symbol);
+        return symbol;
+    }// end decodeSymbol
+
+    /**
+     * readBits
+     * Version 1.0
+     *
+     * @param count the number of bits to read
+     * @return the next count bits, the first bit is the highest
+     * @throws IOException if the stream ends
+     */
+
+    private int readBits(int count) throws IOException {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            if (bitCount == 0) {
+                if (position == limit) {
+                    fill();
+                }
+                bits = buffer[position++] & 255;
+                bitCount = 8;
+            }
+            bitCount--;
+            value = (value << 1) | ((bits >>> bitCount) & 1);
+        }
+        return value;
+    }// end readBits
+
+    /**
+     * fill
+     * reads whatever compressed bytes are ready, waiting for at least one
+     * Version 1.0
+     *
+     * @throws IOException if the stream ends
+     */
+
+    private void fill() throws IOException {
+        int count;
+        do {
+            count = input.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count < 0) {
+            throw new EOFException("The adaptive stream ends before the end of the message");
+        }
+        position = 0;
+        limit = count;
+    }// end fill
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }// end close
+}// end AdaptiveHuffmanInputStream
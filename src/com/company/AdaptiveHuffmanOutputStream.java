@@ -0,0 +1,101 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Adaptive Huffman Output Stream
+ *
+ * Compresses the bytes written to it in the adaptive format (see AdaptiveHuffman) as they arrive, so it works on
+ * pipes, sockets and streams that never end
+ * flush sends every byte encoded so far, close (or finish) writes the end of the message
+ */
+
+public class AdaptiveHuffmanOutputStream extends OutputStream {
+
+    // the size of the byte buffer, small so the bytes reach the stream soon
+    private static final int BUFFER_SIZE = 1 << 12;
+
+    // the stream the compressed bytes are written to
+    private final OutputStream output;
+    // packs the codes into bytes
+    private final BitWriter writer;
+    // the tree shared in step with the decoder
+    private final AdaptiveHuffman tree = new AdaptiveHuffman();
+    // true once the end of the message has been written
+    private boolean finished;
+    // true if bytes have been encoded since the last flush
+    private boolean dirty;
+
+    public AdaptiveHuffmanOutputStream(OutputStream output) throws IOException {
+        this.output = output;
+        this.writer = new BitWriter(output, BUFFER_SIZE);
+        // the format is the only header, there is no table
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.ADAPTIVE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (finished) {
+            throw new IOException("The stream is finished");
+        }
+        tree.encode(b & 255, writer);
+        dirty = true;
+    }// end write
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("The stream is finished");
+        }
+        for (int i = 0; i < len; i++) {
+            tree.encode(b[off + i] & 255, writer);
+        }
+        dirty |= len > 0;
+    }// end write
+
+    /**
+     * flush
+     * sends every byte encoded so far, a flush symbol and zeros finish the last partial byte so the decoder can decode
+     * all of them straight away
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    @Override
+    public void flush() throws IOException {
+        if (dirty && !finished) {
+            tree.encode(AdaptiveHuffman.FLUSH, writer);
+            writer.alignToByte();
+            dirty = false;
+        }
+        writer.flushBytes();
+    }// end flush
+
+    /**
+     * finish
+     * writes the end of the message without closing the stream underneath
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    public void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            tree.encode(AdaptiveHuffman.END, writer);
+            writer.flush(false);
+        }
+    }// end finish
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        output.close();
+    }// end close
+}// end AdaptiveHuffmanOutputStream
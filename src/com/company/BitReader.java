@@ -0,0 +1,269 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Bit Reader
+ *
+ * Reads bits from a byte buffer, most significant bit first, through a 64 bit buffer so codes can be peeked
+ * several bits at a time instead of one bit at a time
+ * The bytes can also come from the mapped windows of a file, the reader moves on to the next window when it needs to
+ */
+
+public class BitReader {
+
+    // the window of bytes being read
+    private ByteBuffer input;
+    // where the windows after the current one come from, null if there is only one window
+    private final MappedInput source;
+    // the position in the current window where the reader started
+    private int start;
+    // the number of bytes read from the windows before the current one
+    private long previousBytes;
+    // the number of leading zeros to skip in the last byte of input (the .huff format keeps the last bits at the bottom)
+    private final int lastByteShift;
+    // holds the next bits of the input, the next bit to be read is the highest bit
+    private long bitBuffer;
+    // the number of valid bits inside bitBuffer
+    private int bitCount;
+
+    public BitReader(ByteBuffer input) {
+        this(input, null, 0);
+    }
+
+    public BitReader(ByteBuffer input, int lastByteShift) {
+        this(input, null, lastByteShift);
+    }
+
+    public BitReader(ByteBuffer input, MappedInput source, int lastByteShift) {
+        this.input = input;
+        this.source = source;
+        this.start = input.position();
+        this.lastByteShift = lastByteShift;
+    }
+
+    /**
+     * refill
+     * fills the bit buffer so it holds at least 57 bits, unless the input has run out
+     * Version 2.0
+     */
+
+    public void refill() {
+        if (bitCount > 56) {
+            return;
+        }
+        // fast path, read 8 bytes at once and keep as many whole bytes as fit in the buffer
+        // the last byte of a window is never read here, it might be the last byte of the input and need to be shifted
+        if (input.remaining() > 8) {
+            int position = input.position();
+            bitBuffer |= input.getLong(position) >>> bitCount;
+            int bytes = (64 - bitCount) >>> 3;
+            input.position(position + bytes);
+            bitCount += bytes << 3;
+            return;
+        }
+        // slow path near the end of a window, read one byte at a time
+        while (bitCount <= 56) {
+            if (!input.hasRemaining() && !nextWindow()) {
+                return;
+            }
+            int b = input.get() & 255;
+            if (!input.hasRemaining() && (source == null || !source.hasRemaining())) {
+                // skip the leading zeros of the last byte
+                b = (b << lastByteShift) & 255;
+            }
+            bitBuffer |= (long) b << (56 - bitCount);
+            bitCount += 8;
+        }
+    }// end refill
+
+    /**
+     * nextWindow
+     * moves on to the next window of the source
+     * Version 1.0
+     *
+     * @return false if there are no more windows
+     */
+
+    private boolean nextWindow() {
+        if (source == null || !source.hasRemaining()) {
+            return false;
+        }
+        try {
+            previousBytes += input.position() - start;
+            input = source.nextWindow();
+            start = input.position();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }// end nextWindow
+
+    /**
+     * peek
+     * returns the next bits without moving past them, bits past the end of the input are zeros
+     * Version 1.0
+     *
+     * @param length the number of bits to look at (1 to 57), the reader must have been refilled
+     * @return the next length bits as a number
+     */
+
+    public int peek(int length) {
+        return (int) (bitBuffer >>> (64 - length));
+    }// end peek
+
+    /**
+     * peekLong
+     * Version 1.0
+     *
+     * @param length the number of bits to look at (1 to 57), the reader must have been refilled
+     * @return the next length bits as a number
+     */
+
+    public long peekLong(int length) {
+        return bitBuffer >>> (64 - length);
+    }// end peekLong
+
+    /**
+     * consume
+     * moves past bits that have been used
+     * Version 1.0
+     *
+     * @param length the number of bits to move past, no more than were peeked
+     */
+
+    public void consume(int length) {
+        bitBuffer <<= length;
+        bitCount -= length;
+    }// end consume
+
+    /**
+     * readBits
+     * reads the next bits and moves past them
+     * Version 1.0
+     *
+     * @param length the number of bits to read (0 to 57)
+     * @return the bits as a number
+     */
+
+    public long readBits(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        refill();
+        long bits = peekLong(length);
+        consume(length);
+        return bits;
+    }// end readBits
+
+    /**
+     * skipBits
+     * moves past any number of bits
+     * Version 1.0
+     *
+     * @param length the number of bits to move past
+     */
+
+    public void skipBits(long length) {
+        while (length > 0) {
+            int bits = (int) Math.min(length, 32);
+            readBits(bits);
+            length -= bits;
+        }
+    }// end skipBits
+
+    /**
+     * readBytes
+     * reads whole bytes, they are copied straight from the windows when the reader is at the start of a byte, bytes
+     * past the end of the input are zeros
+     * Version 1.0
+     *
+     * @param out    the array the bytes are written to
+     * @param offset the first index written
+     * @param length the number of bytes to read
+     */
+
+    public void readBytes(byte[] out, int offset, int length) {
+        // in the middle of a byte every byte is made from two
+        if ((bitCount & 7) != 0) {
+            for (int i = 0; i < length; i++) {
+                out[offset + i] = (byte) readBits(8);
+            }
+            return;
+        }
+        // the bytes already in the bit buffer
+        while (length > 0 && bitCount >= 8) {
+            out[offset++] = (byte) (bitBuffer >>> 56);
+            consume(8);
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        // the bit buffer is empty, and the bits below bitCount that refill left in it no longer match the input
+        bitBuffer = 0;
+        while (length > 0) {
+            if (!input.hasRemaining() && !nextWindow()) {
+                Arrays.fill(out, offset, offset + length, (byte) 0);
+                return;
+            }
+            // the last byte of the input goes through refill, so its leading zeros are skipped
+            boolean lastWindow = source == null || !source.hasRemaining();
+            int count = Math.min(length, input.remaining() - (lastWindow ? 1 : 0));
+            if (count <= 0) {
+                out[offset++] = (byte) readBits(8);
+                length--;
+                continue;
+            }
+            input.get(out, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }// end readBytes
+
+    /**
+     * alignToByte
+     * moves past the zeros that pad the current byte
+     * Version 1.0
+     */
+
+    public void alignToByte() {
+        skipBits((8 - getBitPosition() % 8) % 8);
+    }// end alignToByte
+
+    /**
+     * readVarLong
+     * reads a number written by BitWriter.writeVarLong
+     * Version 1.0
+     *
+     * @return the number
+     */
+
+    public long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        long b;
+        do {
+            b = readBits(8);
+            value |= (b & 127) << shift;
+            shift += 7;
+        } while ((b & 128) != 0 && shift < 64);
+        return value;
+    }// end readVarLong
+
+    /**
+     * getBitPosition
+     * Version 1.0
+     *
+     * @return the number of bits that have been consumed since the reader started
+     */
+
+    public long getBitPosition() {
+        return (previousBytes + input.position() - start) * 8 - bitCount;
+    }// end getBitPosition
+}// end BitReader
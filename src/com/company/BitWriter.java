@@ -0,0 +1,244 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Bit Writer
+ *
+ * Packs codes of any bit length into bytes using a 64 bit accumulator, whole bytes are moved into a reusable
+ * byte buffer (borrowed from the BufferArena) which is written to the output stream whenever it fills up
+ */
+
+public class BitWriter {
+
+    // the default size of the byte buffer that is reused for the whole output
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    // the most bits writeLane can take, the accumulator keeps up to 7 bits after it is drained
+    static final int MAX_LANE_BITS = 57;
+
+    // the stream that the packed bytes are written to
+    private final OutputStream output;
+    // reusable buffer that holds the packed bytes until they are written out
+    private final byte[] buffer;
+    // the next free position in the buffer
+    private int position;
+    // holds the bits that are not yet a whole byte, the newest bits are the lowest bits
+    private long accumulator;
+    // the number of valid bits inside the accumulator
+    private int bitCount;
+    // the total number of bits written so far
+    private long totalBits;
+
+    public BitWriter(OutputStream output) {
+        this(output, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BitWriter(OutputStream output, int bufferSize) {
+        this.output = output;
+        // the buffer must always have room for the 8 bytes the accumulator can hold
+        this.buffer = BufferArena.borrow(Math.max(bufferSize, 16));
+    }
+
+    /**
+     * release
+     * gives the buffer back to the arena (see BufferArena), it is called after the last flush and the writer can not
+     * be used after it
+     * Version 1.0
+     */
+
+    public void release() {
+        BufferArena.release(buffer);
+    }// end release
+
+    /**
+     * writeBits
+     * adds the lowest length bits of value to the output, the most significant bit is written first
+     * Version 1.0
+     *
+     * @param value  the code word, only the lowest length bits are used
+     * @param length the number of bits to write (0 to 64)
+     * @throws IOException
+     */
+
+    public void writeBits(long value, int length) throws IOException {
+        // codes longer than 32 bits are written in two halves so the accumulator can never overflow
+        if (length > 32) {
+            writeBits(value >>> 32, length - 32);
+            writeBits(value, 32);
+            return;
+        }
+        // if the new bits do not fit in the accumulator, move the whole bytes into the buffer first
+        if (bitCount + length > 64) {
+            drain();
+        }
+        // shift the old bits up and put the new bits in the bottom
+        accumulator = (accumulator << length) | (value & ((1L << length) - 1));
+        bitCount += length;
+        totalBits += length;
+    }// end writeBits
+
+    /**
+     * writeLane
+     * adds the codes of a lane of symbols that were already joined into one value, so a few codes only cost one
+     * write
+     * Version 1.0
+     *
+     * @param value  the joined codes, it must not have any bits above length
+     * @param length the number of bits to write (0 to MAX_LANE_BITS)
+     * @throws IOException
+     */
+
+    public void writeLane(long value, int length) throws IOException {
+        if (bitCount + length > 64) {
+            drain();
+        }
+        accumulator = (accumulator << length) | value;
+        bitCount += length;
+        totalBits += length;
+    }// end writeLane
+
+    /**
+     * writeByte
+     * writes all 8 bits of a byte
+     * Version 1.0
+     *
+     * @param b the byte to write, only the lowest 8 bits are used
+     * @throws IOException
+     */
+
+    public void writeByte(int b) throws IOException {
+        writeBits(b, 8);
+    }// end writeByte
+
+    /**
+     * writeVarLong
+     * writes a number that is not negative in groups of 7 bits, the top bit of each byte says if another byte follows
+     * Version 1.0
+     *
+     * @param value the number to write
+     * @throws IOException
+     */
+
+    public void writeVarLong(long value) throws IOException {
+        while ((value & ~127L) != 0) {
+            writeByte((int) (value & 127) | 128);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }// end writeVarLong
+
+    /**
+     * writeBytes
+     * writes part of a byte array, big arrays go straight to the output stream when the writer is at a whole byte
+     * Version 1.0
+     *
+     * @param bytes  the bytes to write
+     * @param offset the first byte to write
+     * @param length the number of bytes to write
+     * @throws IOException
+     */
+
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        drain();
+        if (bitCount == 0 && length > buffer.length / 2) {
+            output.write(buffer, 0, position);
+            position = 0;
+            output.write(bytes, offset, length);
+            totalBits += (long) length * 8;
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            writeByte(bytes[offset + i]);
+        }
+    }// end writeBytes
+
+    /**
+     * alignToByte
+     * pads the current byte with zeros so the next bits start at a whole byte
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    public void alignToByte() throws IOException {
+        writeBits(0, (int) ((8 - totalBits % 8) % 8));
+    }// end alignToByte
+
+    /**
+     * getTotalBits
+     * Version 1.0
+     *
+     * @return the total number of bits written so far
+     */
+
+    public long getTotalBits() {
+        return totalBits;
+    }// end getTotalBits
+
+    /**
+     * drain
+     * moves all the whole bytes from the accumulator into the buffer, writes the buffer out if it is full
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    private void drain() throws IOException {
+        // make sure there is room for every byte the accumulator can hold
+        if (position > buffer.length - 8) {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+        // take the bytes from the top of the accumulator
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            buffer[position++] = (byte) (accumulator >>> bitCount);
+        }
+    }// end drain
+
+    /**
+     * flushBytes
+     * writes every whole byte to the output stream and flushes it, the bits of a partial byte stay in the writer
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    public void flushBytes() throws IOException {
+        drain();
+        output.write(buffer, 0, position);
+        position = 0;
+        output.flush();
+    }// end flushBytes
+
+    /**
+     * flush
+     * writes every remaining bit to the output stream, the last partial byte is padded with zeros
+     * Version 1.0
+     *
+     * @param rightAlignLastByte if true the remaining bits of the last byte are put in the lowest bits of the byte
+     *                           (the .huff format skips the leading zeros of the last byte), otherwise the zeros are
+     *                           added after the bits
+     * @throws IOException
+     */
+
+    public void flush(boolean rightAlignLastByte) throws IOException {
+        drain();
+        // pad the last partial byte with zeros
+        if (bitCount > 0) {
+            if (rightAlignLastByte) {
+                buffer[position++] = (byte) (accumulator & ((1 << bitCount) - 1));
+            } else {
+                buffer[position++] = (byte) (accumulator << (8 - bitCount));
+            }
+            totalBits += 8 - bitCount;
+            bitCount = 0;
+        }
+        output.write(buffer, 0, position);
+        position = 0;
+        output.flush();
+    }// end flush
+}// end BitWriter
@@ -0,0 +1,72 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+
+/**
+ * Block Decoder
+ *
+ * Decodes the body of one block of the block format, the lookup table is passed on so the next block can reuse it
+ */
+
+public class BlockDecoder {
+
+    /**
+     * decodeBlock
+     * decodes one block, the reader must be at the start of the block body (the block type)
+     * Version 5.0
+     *
+     * @param reader     the reader holding the block
+     * @param bodyLength the number of bytes in the block body, the reader is moved to the end of the body
+     * @param previous   the lookup table of the block before, or null for the first block
+     * @param out        the array the block is decoded into
+     * @param offset     the first position in out to use
+     * @param length     the number of bytes in the decoded block
+     * @return the lookup table of the block, which the next block can reuse (the table before for a stored block)
+     * @throws IOException if the block is not valid or its codes do not fit in its body
+     */
+
+    public static DecodeTable decodeBlock(BitReader reader, long bodyLength, DecodeTable previous, byte[] out,
+                                          int offset, int length) throws IOException {
+        long start = reader.getBitPosition();
+        int type = (int) reader.readBits(8);
+        DecodeTable table;
+        if (type == HuffmanFormat.BLOCK_HUFFMAN) {
+            int[] lengths = CanonicalCode.readLengths(reader, 256);
+            table = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        } else if (type == HuffmanFormat.BLOCK_REUSE) {
+            // the table is already built
+            if (previous == null) {
+                throw new IOException("The first block has no table to reuse");
+            }
+            table = previous;
+        } else if (type == HuffmanFormat.BLOCK_STORED) {
+            // the bytes are as they are, and the table of the block before is kept for the next block
+            if (length > bodyLength - 1) {
+                throw new IOException("A stored block is longer than its size");
+            }
+            reader.readBytes(out, offset, length);
+            table = previous;
+        } else {
+            throw new IOException("Unknown block type " + type);
+        }
+        // the codes must start inside the body
+        long end = start + bodyLength * 8;
+        int done = type == HuffmanFormat.BLOCK_STORED ? length : 0;
+        while (done < length) {
+            int count = table.decode(reader, end, out, offset + done, length - done);
+            if (count == 0) {
+                throw new IOException("A block ends before all of its bytes are decoded");
+            }
+            done += count;
+        }
+        // move to the end of the body
+        long left = end - reader.getBitPosition();
+        if (left < 0) {
+            throw new IOException("A block is longer than its size");
+        }
+        reader.skipBits(left);
+        return table;
+    }// end decodeBlock
+}// end BlockDecoder
@@ -0,0 +1,281 @@
+package com.company;
+
+//imports
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Block Encoder
+ *
+ * Splits a file into blocks of a fixed size, each block gets its own histogram and is encoded on its own thread of a
+ * ForkJoin pool, the encoded blocks are written in order with the size of each block
+ * A block only gets a new code table when it saves more than the table costs, otherwise it reuses the table of the
+ * block before it, so long inputs that do not change much skip most of the tree building and the stored tables
+ * A block that no code can make smaller (compressed or random data) is stored as it is
+ * Only a few blocks per thread are held in memory at once
+ */
+
+public class BlockEncoder {
+
+    /**
+     * compress
+     * compresses an input into the block format
+     * The histograms of a batch of blocks are counted in parallel, then the table of each block is chosen in order
+     * (a block can reuse the table of the block before it), and then the blocks are encoded in parallel
+     * Version 4.0
+     *
+     * @param input        the input to be compressed
+     * @param outputStream the stream the .huff file is written to
+     * @param blockSize   the number of bytes in each block
+     * @param maxLength   the longest code allowed, 0 for no limit
+     * @param cost        the cost the bits the limit adds to the blocks with a new table is added to, or null
+     * @throws IOException
+     */
+
+    public static void compress(MappedInput input, OutputStream outputStream, int blockSize, final int maxLength,
+                                LimitCost cost) throws IOException {
+        long fileLength = input.size();
+        BitWriter writer = new BitWriter(outputStream);
+        // write the header
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.BLOCKS);
+        writer.writeVarLong(fileLength);
+        writer.writeVarLong(blockSize);
+
+        // the code lengths of the table the decoder has, null before the first block
+        int[] current = null;
+        // encode a batch of blocks in parallel, then write them in order
+        int batchSize = Math.max(1, ForkJoinPool.getCommonPoolParallelism()) * 2;
+        long position = 0;
+        while (position < fileLength) {
+            // count the bytes of each block
+            ArrayList<ByteBuffer> blocks = new ArrayList<ByteBuffer>();
+            ArrayList<ForkJoinTask<long[]>> counts = new ArrayList<ForkJoinTask<long[]>>();
+            for (int i = 0; i < batchSize && position < fileLength; i++) {
+                int length = (int) Math.min(blockSize, fileLength - position);
+                final ByteBuffer block = input.map(position, length);
+                blocks.add(block);
+                counts.add(ForkJoinPool.commonPool().submit(new Callable<long[]>() {
+                    public long[] call() {
+                        return Histogram.count(block);
+                    }
+                }));
+                position += length;
+            }
+            // choose the table of each block in order, and encode it
+            ArrayList<ForkJoinTask<byte[]>> tasks = new ArrayList<ForkJoinTask<byte[]>>();
+            for (int i = 0; i < blocks.size(); i++) {
+                final ByteBuffer block = blocks.get(i);
+                final int[] lengths = chooseLengths(join(counts.get(i)), current, maxLength, cost);
+                final boolean reuse = lengths != null && lengths == current;
+                // a stored block does not change the table the next block can reuse
+                if (lengths != null) {
+                    current = lengths;
+                }
+                // a stored block is copied when it is written, so it has no task
+                tasks.add(lengths == null ? null : ForkJoinPool.commonPool().submit(new Callable<byte[]>() {
+                    public byte[] call() throws IOException {
+                        return encodeBlock(block, lengths, reuse);
+                    }
+                }));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i) == null) {
+                    writeStored(blocks.get(i), writer);
+                    continue;
+                }
+                byte[] body = join(tasks.get(i));
+                writer.writeVarLong(body.length);
+                writer.writeBytes(body, 0, body.length);
+            }
+        }
+        writer.flush(false);
+        writer.release();
+    }// end compress
+
+    /**
+     * chooseLengths
+     * decides if a block reuses the table of the block before it, which is the case when a new table would not save
+     * more bits than it costs to store, or if the block is stored as it is, which is the case when no code makes it
+     * smaller
+     * The entropy of the block is the fewest bits any code can take, so when the table before is already within the
+     * size of a table of the entropy, or the entropy is not smaller than the block, no tree is built at all
+     * Version 3.0
+     *
+     * @param frequencies the frequency of each byte in the block
+     * @param current     the code lengths of the table before, or null for the first block
+     * @param maxLength   the longest code allowed, 0 for no limit
+     * @param cost        the cost the bits the limit adds are added to if a new table is chosen, or null
+     * @return current to reuse it, the code lengths of a new table, or null to store the block
+     * @throws IOException
+     */
+
+    static int[] chooseLengths(long[] frequencies, int[] current, int maxLength, LimitCost cost) throws IOException {
+        long storedBits = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            storedBits += frequencies[i] * 8;
+        }
+        double entropy = entropyBits(frequencies);
+        if (entropy >= storedBits) {
+            return null;
+        }
+        long reuseBits = current != null ? reuseBits(frequencies, current) : -1;
+        if (reuseBits >= 0 && reuseBits - entropy <= tableBits(current)) {
+            return reuseBits < storedBits ? current : null;
+        }
+        // the cost of the new table only counts if the block is coded with it
+        LimitCost tableCost = new LimitCost(maxLength);
+        int[] lengths = HuffmanEncoder.buildLengths(frequencies, maxLength, tableCost);
+        long newBits = PackageMerge.encodedBits(frequencies, lengths) + tableBits(lengths);
+        if (reuseBits >= 0 && reuseBits <= newBits) {
+            return reuseBits < storedBits ? current : null;
+        }
+        if (newBits >= storedBits) {
+            return null;
+        }
+        if (cost != null) {
+            cost.add(tableCost);
+        }
+        return lengths;
+    }// end chooseLengths
+
+    /**
+     * reuseBits
+     * Version 1.0
+     *
+     * @param frequencies the frequency of each byte in the block
+     * @param lengths     the code lengths of a table
+     * @return the number of bits the block takes with the table, or -1 if a byte in the block has no code in it
+     */
+
+    private static long reuseBits(long[] frequencies, int[] lengths) {
+        for (int i = 0; i < frequencies.length; i++) {
+            if (frequencies[i] > 0 && lengths[i] == 0) {
+                return -1;
+            }
+        }
+        return PackageMerge.encodedBits(frequencies, lengths);
+    }// end reuseBits
+
+    /**
+     * entropyBits
+     * Version 1.0
+     *
+     * @param frequencies the frequency of each byte in the block
+     * @return the entropy of the block in bits, no prefix code can take fewer bits
+     */
+
+    static double entropyBits(long[] frequencies) {
+        long total = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            total += frequencies[i];
+        }
+        double bits = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            if (frequencies[i] > 0) {
+                bits += frequencies[i] * (Math.log((double) total / frequencies[i]) / Math.log(2));
+            }
+        }
+        return bits;
+    }// end entropyBits
+
+    /**
+     * tableBits
+     * Version 1.0
+     *
+     * @param lengths the code lengths of a table
+     * @return the number of bits the table takes in a block
+     * @throws IOException
+     */
+
+    static long tableBits(int[] lengths) throws IOException {
+        BitWriter writer = new BitWriter(new ByteArrayOutputStream(), 1 << 10);
+        CanonicalCode.writeLengths(lengths, writer);
+        writer.release();
+        return writer.getTotalBits();
+    }// end tableBits
+
+    /**
+     * writeStored
+     * writes a block as it is, through an array borrowed from the BufferArena
+     * Version 1.0
+     *
+     * @param block  the bytes of the block
+     * @param writer the writer of the whole file
+     * @throws IOException
+     */
+
+    static void writeStored(ByteBuffer block, BitWriter writer) throws IOException {
+        int length = block.remaining();
+        byte[] bytes = BufferArena.borrow(length);
+        block.duplicate().get(bytes, 0, length);
+        writer.writeVarLong(1 + length);
+        writer.writeByte(HuffmanFormat.BLOCK_STORED);
+        writer.writeBytes(bytes, 0, length);
+        BufferArena.release(bytes);
+    }// end writeStored
+
+    /**
+     * encodeBlock
+     * encodes one block with its own code table, or with the table of the block before
+     * Version 4.0
+     *
+     * @param block   the bytes of the block
+     * @param lengths the code lengths of the table
+     * @param reuse   true if the table is the one of the block before, so it is not written again
+     * @return the body of the block, starting with the block type
+     * @throws IOException
+     */
+
+    static byte[] encodeBlock(ByteBuffer block, int[] lengths, boolean reuse) throws IOException {
+        long[] codes = CanonicalCode.assignCodes(lengths);
+
+        // the encoded block is usually smaller than the block
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.remaining() / 2 + 64);
+        BitWriter writer = new BitWriter(bytes, 1 << 14);
+        if (reuse) {
+            writer.writeByte(HuffmanFormat.BLOCK_REUSE);
+        } else {
+            writer.writeByte(HuffmanFormat.BLOCK_HUFFMAN);
+            CanonicalCode.writeLengths(lengths, writer);
+        }
+        HuffmanEncoder.encode(block, codes, lengths, HuffmanEncoder.getLongest(lengths), writer);
+        writer.flush(false);
+        writer.release();
+        return bytes.toByteArray();
+    }// end encodeBlock
+
+    /**
+     * join
+     * waits for a task and passes on the IOException it threw
+     * Version 1.0
+     *
+     * @param task the task
+     * @param <T>  the type of the result
+     * @return the result of the task
+     * @throws IOException if the task threw one
+     */
+
+    static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a block", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }// end join
+}// end BlockEncoder
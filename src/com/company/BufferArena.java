@@ -0,0 +1,155 @@
+package com.company;
+
+//imports
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffer Arena
+ *
+ * Keeps the byte arrays the encoders and decoders use for their bit packing, output and block buffers, so a JVM that
+ * compresses thousands of files does not allocate and collect the same big arrays for every file
+ * The arrays are kept in size classes of powers of two from 1 KB to 64 MB, a borrowed array is the size of its class
+ * so it can be longer than asked for. Each class has a few slots, one for each stripe, and a thread starts looking
+ * from the slot of its own stripe, so threads that borrow at the same time do not fight over one slot
+ * The arena never keeps more than MAX_RETAINED bytes, an array that does not fit is left to the garbage collector
+ * A borrowed array is not cleared, and must not be used after it is released
+ */
+
+public class BufferArena {
+
+    // the smallest and the largest size class, smaller arrays are cheaper to allocate than to keep
+    static final int MIN_SHIFT = 10;
+    static final int MAX_SHIFT = 26;
+    // the most bytes the arena keeps (256 MB unless -Dhuffman.arenaBytes is set)
+    static final long MAX_RETAINED = Long.getLong("huffman.arenaBytes", 256L << 20);
+    // the number of slots of each size class, a power of two of at least twice the number of processors
+    private static final int STRIPES = Integer.highestOneBit(2 * Math.max(1, Runtime.getRuntime().availableProcessors()) - 1) << 1;
+
+    // the slots of every size class, the slots of class c start at (c - MIN_SHIFT) * STRIPES
+    private static final AtomicReferenceArray<byte[]> slots = new AtomicReferenceArray<byte[]>((MAX_SHIFT - MIN_SHIFT + 1) * STRIPES);
+    // the number of bytes in the slots
+    private static final AtomicLong retained = new AtomicLong();
+    // the number of borrowed arrays that were found in a slot, and that had to be allocated
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    /**
+     * borrow
+     * Version 1.0
+     *
+     * @param size the number of bytes needed
+     * @return an array of at least size bytes, with whatever was in it before
+     */
+
+    public static byte[] borrow(int size) {
+        if (size < 1 << MIN_SHIFT) {
+            return new byte[size];
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        if (shift > MAX_SHIFT) {
+            misses.increment();
+            return new byte[size];
+        }
+        int base = (shift - MIN_SHIFT) * STRIPES;
+        int stripe = stripe();
+        for (int i = 0; i < STRIPES; i++) {
+            int slot = base + ((stripe + i) & (STRIPES - 1));
+            byte[] buffer = slots.get(slot);
+            if (buffer != null && slots.compareAndSet(slot, buffer, null)) {
+                retained.addAndGet(-buffer.length);
+                hits.increment();
+                return buffer;
+            }
+        }
+        misses.increment();
+        return new byte[1 << shift];
+    }// end borrow
+
+    /**
+     * release
+     * gives an array back to the arena, arrays that are not the size of a class are ignored
+     * Version 1.0
+     *
+     * @param buffer the array from borrow, or null
+     */
+
+    public static void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int length = buffer.length;
+        if (Integer.bitCount(length) != 1 || length < 1 << MIN_SHIFT || length > 1 << MAX_SHIFT) {
+            return;
+        }
+        if (retained.get() + length > MAX_RETAINED) {
+            return;
+        }
+        int base = (Integer.numberOfTrailingZeros(length) - MIN_SHIFT) * STRIPES;
+        int stripe = stripe();
+        for (int i = 0; i < STRIPES; i++) {
+            int slot = base + ((stripe + i) & (STRIPES - 1));
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buffer)) {
+                retained.addAndGet(length);
+                return;
+            }
+        }
+    }// end release
+
+    /**
+     * stripe
+     * Version 1.0
+     *
+     * @return the stripe of the current thread
+     */
+
+    private static int stripe() {
+        return (int) Thread.currentThread().getId() & (STRIPES - 1);
+    }// end stripe
+
+    /**
+     * getHits
+     * Version 1.0
+     *
+     * @return the number of borrowed arrays that were reused
+     */
+
+    public static long getHits() {
+        return hits.sum();
+    }// end getHits
+
+    /**
+     * getMisses
+     * Version 1.0
+     *
+     * @return the number of borrowed arrays that had to be allocated
+     */
+
+    public static long getMisses() {
+        return misses.sum();
+    }// end getMisses
+
+    /**
+     * getRetainedBytes
+     * Version 1.0
+     *
+     * @return the number of bytes the arena is keeping
+     */
+
+    public static long getRetainedBytes() {
+        return retained.get();
+    }// end getRetainedBytes
+
+    /**
+     * resetCounts
+     * sets the hits and misses back to 0, the kept arrays stay
+     * Version 1.0
+     */
+
+    static void resetCounts() {
+        hits.reset();
+        misses.reset();
+    }// end resetCounts
+}// end BufferArena
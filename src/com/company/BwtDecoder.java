@@ -0,0 +1,141 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Bwt Decoder
+ *
+ * Decodes the body of one block of the BWT format (see BwtEncoder): the symbols are decoded with the code table of
+ * the block, the runs and move to front positions are turned back into the transformed block, and the transform is
+ * undone by following each row to the row of the byte before it
+ */
+
+public class BwtDecoder {
+
+    /**
+     * decodeBlock
+     * decodes one block
+     * Version 2.0
+     *
+     * @param body   the block body, from its position to its limit
+     * @param out    the array the block is decoded into
+     * @param offset the first position in out to use
+     * @param length the number of bytes in the decoded block
+     * @throws IOException if the block is not valid or its symbols run past the end of the body
+     */
+
+    public static void decodeBlock(ByteBuffer body, byte[] out, int offset, int length) throws IOException {
+        // bits past the end of the body read as zeros, so the end is checked once the symbols are decoded
+        long endBit = body.remaining() * 8L;
+        BitReader reader = new BitReader(body);
+        long primary = reader.readVarLong();
+        if (primary < 1 || primary > length) {
+            throw new IOException("A block has an invalid first row");
+        }
+        int[] lengths = CanonicalCode.readLengths(reader, BwtEncoder.ALPHABET_SIZE);
+        DecodeTable table = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        byte[] last = BufferArena.borrow(length);
+        moveToBack(reader, table, last, length);
+        if (reader.getBitPosition() > endBit) {
+            BufferArena.release(last);
+            throw new IOException("A block ends before all of its bytes are decoded");
+        }
+        inverseTransform(last, length, (int) primary, out, offset);
+        BufferArena.release(last);
+    }// end decodeBlock
+
+    /**
+     * moveToBack
+     * decodes the symbols of a block and undoes the runs of zeros and the move to front, until the block is full
+     * Version 1.0
+     *
+     * @param reader the reader holding the symbols
+     * @param table  the lookup table for the codes of the block
+     * @param last   the array the transformed block is stored in
+     * @param length the number of bytes in the block
+     * @throws IOException if the symbols do not make exactly length bytes
+     */
+
+    static void moveToBack(BitReader reader, DecodeTable table, byte[] last, int length) throws IOException {
+        byte[] order = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            order[i] = (byte) i;
+        }
+        int position = 0;
+        // the length of the run of zeros being read, and the value of its next digit
+        int run = 0;
+        int digit = 1;
+        // the digits of a run only make it longer, so the block ends once the run reaches the end
+        while (position + run < length) {
+            reader.refill();
+            int symbol = table.decodeSymbol(reader);
+            if (symbol == BwtEncoder.RUN_A || symbol == BwtEncoder.RUN_B) {
+                run += (symbol + 1) * digit;
+                digit <<= 1;
+                if (run > length - position) {
+                    throw new IOException("A run is longer than its block");
+                }
+                continue;
+            }
+            if (run > 0) {
+                Arrays.fill(last, position, position + run, order[0]);
+                position += run;
+                run = 0;
+                digit = 1;
+            }
+            int index = symbol - 1;
+            byte b = order[index];
+            System.arraycopy(order, 0, order, 1, index);
+            order[0] = b;
+            last[position++] = b;
+        }
+        Arrays.fill(last, position, position + run, order[0]);
+    }// end moveToBack
+
+    /**
+     * inverseTransform
+     * undoes the Burrows-Wheeler transform, the block is rebuilt from its last byte to its first
+     * The rows of the same byte are in the same order in the first and last columns, so the row of the byte before
+     * each row is known from the number of smaller bytes and the number of the same bytes above it. The next row and
+     * the byte are kept in one int, so each step is one lookup
+     * Version 1.0
+     *
+     * @param last    the transformed block, without the row of the sentinel
+     * @param length  the number of bytes in the block
+     * @param primary the row of the sentinel
+     * @param out     the array the block is decoded into
+     * @param offset  the first position in out to use
+     */
+
+    static void inverseTransform(byte[] last, int length, int primary, byte[] out, int offset) {
+        // the first row of each byte in the first column, the sentinel has row 0
+        int[] next = new int[256];
+        for (int i = 0; i < length; i++) {
+            next[last[i] & 255]++;
+        }
+        int sum = 1;
+        for (int c = 0; c < 256; c++) {
+            int count = next[c];
+            next[c] = sum;
+            sum += count;
+        }
+        // for each row, the row that starts with its last byte, and the last byte
+        int[] rows = new int[length + 1];
+        for (int i = 0; i < length; i++) {
+            int b = last[i] & 255;
+            int row = i < primary ? i : i + 1;
+            rows[row] = (next[b]++ << 8) | b;
+        }
+        // the row of the sentinel ends with the last byte of the block
+        int row = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int entry = rows[row];
+            out[i] = (byte) entry;
+            row = entry >>> 8;
+        }
+    }// end inverseTransform
+}// end BwtDecoder
@@ -0,0 +1,239 @@
+package com.company;
+
+//imports
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bwt Encoder
+ *
+ * Compresses a file in blocks that are transformed before they are Huffman coded, the same steps as bzip2:
+ * The Burrows-Wheeler transform sorts the bytes of a block by what comes after them (see SuffixArray), so bytes that
+ * come before the same text end up next to each other in long runs
+ * Move to front turns each byte into its position in a list of the bytes that were used last, so the runs become runs
+ * of zeros and small numbers
+ * The runs of zeros are written as their length in base 2 with the digits RUN_A (1) and RUN_B (2), and every other
+ * position p is the symbol p + 1, so the code of each block has ALPHABET_SIZE symbols
+ * The blocks do not depend on each other, so a batch of them is transformed and encoded on the threads of a ForkJoin
+ * pool and written in order, the same as the block format
+ */
+
+public class BwtEncoder {
+
+    // the digits of the length of a run of zeros
+    static final int RUN_A = 0;
+    static final int RUN_B = 1;
+    // the run digits and the move to front positions 1 to 255
+    static final int ALPHABET_SIZE = 257;
+    // the most bytes in a block, the decoder numbers the rows of a block in 24 bits
+    static final int MAX_BLOCK_SIZE = (1 << 24) - 1;
+    // the longest code when no limit is given, the same as bzip2, so the lookup tables stay small
+    static final int DEFAULT_MAX_LENGTH = 20;
+
+    /**
+     * compress
+     * compresses an input into the BWT format
+     * Format:
+     * 'H' 'F' and the BWT format byte
+     * The number of bytes in the original file
+     * The block size
+     * Each block in order: the number of bytes in the block body, and then the body:
+     * the row of the transform that holds the first byte of the block, the length of the code of each symbol (see
+     * CanonicalCode), and then the symbols, the last byte is padded with trailing zeros
+     * Version 2.0
+     *
+     * @param input        the input to be compressed
+     * @param outputStream the stream the .huff file is written to
+     * @param blockSize    the number of bytes in each block
+     * @param maxLength    the longest code allowed, 0 for DEFAULT_MAX_LENGTH
+     * @param cost         the cost the bits the limit adds to the blocks is added to, or null
+     * @throws IOException
+     */
+
+    public static void compress(MappedInput input, OutputStream outputStream, int blockSize, int maxLength,
+                                final LimitCost cost) throws IOException {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The block size of the BWT format must be from 1 to " + MAX_BLOCK_SIZE);
+        }
+        final int limit = maxLength > 0 ? maxLength : DEFAULT_MAX_LENGTH;
+        long fileLength = input.size();
+        BitWriter writer = new BitWriter(outputStream);
+        // write the header
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.BWT);
+        writer.writeVarLong(fileLength);
+        writer.writeVarLong(blockSize);
+
+        // encode a batch of blocks in parallel, then write them in order
+        int batchSize = Math.max(1, ForkJoinPool.getCommonPoolParallelism()) * 2;
+        long position = 0;
+        while (position < fileLength) {
+            ArrayList<ForkJoinTask<byte[]>> tasks = new ArrayList<ForkJoinTask<byte[]>>();
+            for (int i = 0; i < batchSize && position < fileLength; i++) {
+                int length = (int) Math.min(blockSize, fileLength - position);
+                final ByteBuffer block = input.map(position, length);
+                tasks.add(ForkJoinPool.commonPool().submit(new Callable<byte[]>() {
+                    public byte[] call() throws IOException {
+                        return encodeBlock(block, limit, cost);
+                    }
+                }));
+                position += length;
+            }
+            for (ForkJoinTask<byte[]> task : tasks) {
+                byte[] body = BlockEncoder.join(task);
+                writer.writeVarLong(body.length);
+                writer.writeBytes(body, 0, body.length);
+            }
+        }
+        writer.flush(false);
+        writer.release();
+    }// end compress
+
+    /**
+     * encodeBlock
+     * transforms one block and encodes it with its own code table
+     * Version 2.0
+     *
+     * @param block     the bytes of the block
+     * @param maxLength the longest code allowed
+     * @param cost      the cost the bits the limit adds to the block is added to, or null
+     * @return the body of the block
+     * @throws IOException
+     */
+
+    static byte[] encodeBlock(ByteBuffer block, int maxLength, LimitCost cost) throws IOException {
+        int length = block.remaining();
+        byte[] data = BufferArena.borrow(length);
+        block.duplicate().get(data, 0, length);
+
+        // the last column of the sorted rotations, and the row of the block itself
+        byte[] last = BufferArena.borrow(length);
+        int primary = transform(data, length, last);
+        BufferArena.release(data);
+
+        // the symbols, there are never more than the bytes in the block
+        int[] symbols = new int[length];
+        long[] frequencies = new long[ALPHABET_SIZE];
+        int symbolCount = moveToFront(last, length, symbols, frequencies);
+        BufferArena.release(last);
+        int[] lengths = HuffmanEncoder.buildLengths(frequencies, maxLength, cost);
+        long[] codes = CanonicalCode.assignCodes(lengths);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 3 + 64);
+        BitWriter writer = new BitWriter(bytes, 1 << 14);
+        writer.writeVarLong(primary);
+        CanonicalCode.writeLengths(lengths, writer);
+        for (int i = 0; i < symbolCount; i++) {
+            writer.writeBits(codes[symbols[i]], lengths[symbols[i]]);
+        }
+        writer.flush(false);
+        writer.release();
+        return bytes.toByteArray();
+    }// end encodeBlock
+
+    /**
+     * transform
+     * the Burrows-Wheeler transform of a block, the block ends with a sentinel that is smaller than every byte, so the
+     * rows are the sorted suffixes and the sentinel does not need to be stored
+     * Version 1.0
+     *
+     * @param data   the bytes of the block
+     * @param length the number of bytes in the block
+     * @param last   the array the byte before each sorted suffix is stored in, the row of the whole block is left out
+     * @return the row of the whole block, the row the sentinel would be in (1 to length)
+     */
+
+    static int transform(byte[] data, int length, byte[] last) {
+        int[] suffixes = SuffixArray.build(data, length);
+        int primary = 0;
+        int count = 0;
+        for (int row = 0; row <= length; row++) {
+            int start = suffixes[row];
+            if (start == 0) {
+                primary = row;
+            } else {
+                last[count++] = data[start - 1];
+            }
+        }
+        return primary;
+    }// end transform
+
+    /**
+     * moveToFront
+     * turns the transformed block into symbols, each byte is replaced by its position in the list of bytes used last
+     * and the runs of zeros are replaced by their length
+     * Version 1.0
+     *
+     * @param last        the transformed block
+     * @param length      the number of bytes in the block
+     * @param symbols     the array the symbols are stored in
+     * @param frequencies the array the frequency of each symbol is counted in
+     * @return the number of symbols
+     */
+
+    static int moveToFront(byte[] last, int length, int[] symbols, long[] frequencies) {
+        byte[] order = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            order[i] = (byte) i;
+        }
+        int count = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = last[i];
+            if (order[0] == b) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                count = writeRun(run, symbols, count, frequencies);
+                run = 0;
+            }
+            // find the byte and move it to the front
+            int position = 1;
+            byte moved = order[0];
+            while (order[position] != b) {
+                byte next = order[position];
+                order[position++] = moved;
+                moved = next;
+            }
+            order[position] = moved;
+            order[0] = b;
+            symbols[count++] = position + 1;
+            frequencies[position + 1]++;
+        }
+        if (run > 0) {
+            count = writeRun(run, symbols, count, frequencies);
+        }
+        return count;
+    }// end moveToFront
+
+    /**
+     * writeRun
+     * writes the length of a run of zeros in base 2 with the digits 1 (RUN_A) and 2 (RUN_B), lowest digit first
+     * Version 1.0
+     *
+     * @param run         the length of the run
+     * @param symbols     the array the symbols are stored in
+     * @param count       the number of symbols before the run
+     * @param frequencies the array the frequency of each symbol is counted in
+     * @return the number of symbols after the run
+     */
+
+    private static int writeRun(int run, int[] symbols, int count, long[] frequencies) {
+        while (run > 0) {
+            int digit = (run & 1) != 0 ? RUN_A : RUN_B;
+            symbols[count++] = digit;
+            frequencies[digit]++;
+            run = (run - 1 - digit) >>> 1;
+        }
+        return count;
+    }// end writeRun
+}// end BwtEncoder
@@ -0,0 +1,189 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+
+/**
+ * Canonical Code
+ *
+ * Builds canonical Huffman codes, where the codes only depend on the length of the code of each symbol
+ * Shorter codes come first, and codes of the same length are given in order of the symbol, so only the lengths need
+ * to be stored in a file for the encoder and the decoder to make the same codes
+ * Format of the lengths (each symbol in order, the previous length starts at 8):
+ * 00             - same length as the previous symbol
+ * 01 s 1..1 0    - the previous length plus (s = 0) or minus (s = 1) one more than the number of 1s
+ * 10 nnnn        - the previous length repeated 3 + n times
+ * 110 nnn        - 1 + n symbols without a code (does not change the previous length)
+ * 111 nnnnnnnn   - 9 + n symbols without a code (does not change the previous length)
+ */
+
+public class CanonicalCode {
+
+    // the length the previous length starts at, most byte codes are close to 8 bits
+    private static final int FIRST_LENGTH = 8;
+
+    /**
+     * assignCodes
+     * gives each symbol its canonical code from the lengths of the codes
+     * Version 1.0
+     *
+     * @param lengths the length of the code of each symbol, 0 if the symbol has no code
+     * @return the code word of each symbol
+     */
+
+    public static long[] assignCodes(int[] lengths) {
+        // count the number of codes of each length
+        int maxLength = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            maxLength = Math.max(maxLength, lengths[i]);
+        }
+        int[] lengthCount = new int[maxLength + 1];
+        for (int i = 0; i < lengths.length; i++) {
+            lengthCount[lengths[i]]++;
+        }
+        lengthCount[0] = 0;
+
+        // find the first code of each length, the codes of one length come right after the codes of the length before
+        long[] nextCode = new long[maxLength + 1];
+        long code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code = (code + lengthCount[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+
+        // give the codes out in order of the symbols
+        long[] codes = new long[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] != 0) {
+                codes[i] = nextCode[lengths[i]]++;
+            }
+        }
+        return codes;
+    }// end assignCodes
+
+    /**
+     * writeLengths
+     * writes the length of the code of each symbol using the run length and delta format
+     * Version 1.0
+     *
+     * @param lengths the length of the code of each symbol (0 to 63)
+     * @param writer  the writer the lengths are written to
+     * @throws IOException
+     */
+
+    public static void writeLengths(int[] lengths, BitWriter writer) throws IOException {
+        int previous = FIRST_LENGTH;
+        int i = 0;
+        while (i < lengths.length) {
+            int length = lengths[i];
+            // count how many symbols in a row have this length
+            int run = 1;
+            while (i + run < lengths.length && lengths[i + run] == length) {
+                run++;
+            }
+            if (length == 0) {
+                // symbols without a code
+                int zeros = run;
+                while (zeros > 0) {
+                    if (zeros <= 8) {
+                        writer.writeBits(0b110, 3);
+                        writer.writeBits(zeros - 1, 3);
+                        zeros = 0;
+                    } else {
+                        int count = Math.min(zeros, 9 + 255);
+                        writer.writeBits(0b111, 3);
+                        writer.writeBits(count - 9, 8);
+                        zeros -= count;
+                    }
+                }
+                i += run;
+                continue;
+            }
+            // the first symbol of the run changes the previous length if it needs to
+            if (length != previous) {
+                int delta = length - previous;
+                writer.writeBits(0b01, 2);
+                writer.writeBits(delta > 0 ? 0 : 1, 1);
+                // one less than the size of the change in unary
+                int size = Math.abs(delta) - 1;
+                while (size > 0) {
+                    int bits = Math.min(size, 32);
+                    writer.writeBits(-1L, bits);
+                    size -= bits;
+                }
+                writer.writeBits(0, 1);
+                previous = length;
+                run--;
+                i++;
+            }
+            // the rest of the run repeats the previous length
+            while (run > 0) {
+                if (run >= 3) {
+                    int count = Math.min(run, 18);
+                    writer.writeBits(0b10, 2);
+                    writer.writeBits(count - 3, 4);
+                    run -= count;
+                    i += count;
+                } else {
+                    writer.writeBits(0b00, 2);
+                    run--;
+                    i++;
+                }
+            }
+        }
+    }// end writeLengths
+
+    /**
+     * readLengths
+     * reads the length of the code of each symbol that was written by writeLengths
+     * Version 1.0
+     *
+     * @param reader       the reader the lengths are read from
+     * @param alphabetSize the number of symbols
+     * @return the length of the code of each symbol
+     * @throws IOException if the lengths are not valid
+     */
+
+    public static int[] readLengths(BitReader reader, int alphabetSize) throws IOException {
+        int[] lengths = new int[alphabetSize];
+        int previous = FIRST_LENGTH;
+        int i = 0;
+        while (i < alphabetSize) {
+            int count;
+            int length = previous;
+            if (reader.readBits(1) == 0) {
+                if (reader.readBits(1) == 0) {
+                    // same as the previous length
+                    count = 1;
+                } else {
+                    // a change in length
+                    boolean down = reader.readBits(1) == 1;
+                    int size = 1;
+                    while (reader.readBits(1) == 1) {
+                        size++;
+                    }
+                    length = down ? previous - size : previous + size;
+                    previous = length;
+                    count = 1;
+                }
+            } else if (reader.readBits(1) == 0) {
+                // the previous length repeated
+                count = 3 + (int) reader.readBits(4);
+            } else if (reader.readBits(1) == 0) {
+                count = 1 + (int) reader.readBits(3);
+                length = 0;
+            } else {
+                count = 9 + (int) reader.readBits(8);
+                length = 0;
+            }
+            if (length < 0 || length > 63 || i + count > alphabetSize) {
+                throw new IOException("Invalid code lengths in the header");
+            }
+            for (int j = 0; j < count; j++) {
+                lengths[i++] = length;
+            }
+        }
+        return lengths;
+    }// end readLengths
+}// end CanonicalCode
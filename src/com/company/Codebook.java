@@ -0,0 +1,169 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Codebook
+ *
+ * A code trained ahead of time on sample data and shared by the encoder and the decoder, so small messages only store
+ * the id of the codebook instead of a table, and no tree is built for each message
+ * Every byte has a code, even bytes that are not in the samples, so any message can be encoded with any codebook
+ * The codes and the lookup table are built once when the codebook is made, and nothing changes after that, so one
+ * codebook can be used by many threads at the same time
+ * Format of a codebook file:
+ * 'H' 'C'
+ * The id of the codebook
+ * The length of the code of each byte (see CanonicalCode)
+ */
+
+public class Codebook {
+
+    // the magic bytes at the start of a codebook file
+    static final int MAGIC_1 = 'H';
+    static final int MAGIC_2 = 'C';
+
+    // the longest code allowed by default, so the lookup table stays small even for bytes that are never seen
+    static final int DEFAULT_MAX_LENGTH = 16;
+
+    // the number that is written in place of the table
+    final int id;
+    // the code word and the length of the code of each byte
+    final long[] codes;
+    final int[] lengths;
+    // the lookup table for decoding
+    final DecodeTable table;
+
+    Codebook(int id, int[] lengths) {
+        if (id < 0) {
+            throw new IllegalArgumentException("The id of a codebook can not be negative");
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] == 0) {
+                throw new IllegalArgumentException("The codebook has no code for the byte " + i);
+            }
+        }
+        this.id = id;
+        this.lengths = lengths;
+        this.codes = CanonicalCode.assignCodes(lengths);
+        this.table = DecodeTable.build(codes, lengths);
+    }
+
+    /**
+     * getId
+     * Version 1.0
+     *
+     * @return the number that is written in place of the table
+     */
+
+    public int getId() {
+        return id;
+    }// end getId
+
+    /**
+     * train
+     * builds a codebook from the bytes of sample files
+     * Version 1.0
+     *
+     * @param id        the id of the codebook
+     * @param samples   the sample files, they should look like the messages the codebook will be used for
+     * @param maxLength the longest code allowed, 0 for DEFAULT_MAX_LENGTH
+     * @return the codebook
+     * @throws IOException
+     */
+
+    public static Codebook train(int id, List<Path> samples, int maxLength) throws IOException {
+        long[] frequencies = new long[256];
+        for (Path sample : samples) {
+            try (MappedInput input = new MappedInput(sample)) {
+                Histogram.merge(frequencies, HuffmanEncoder.getFrequencies(input));
+            }
+        }
+        return train(id, frequencies, maxLength);
+    }// end train
+
+    /**
+     * train
+     * builds a codebook from the frequency of each byte in the samples
+     * Version 1.0
+     *
+     * @param id          the id of the codebook
+     * @param frequencies the frequency of each byte in the samples
+     * @param maxLength   the longest code allowed, 0 for DEFAULT_MAX_LENGTH
+     * @return the codebook
+     */
+
+    public static Codebook train(int id, long[] frequencies, int maxLength) {
+        // every byte is counted once more, so bytes that are not in the samples still get a (long) code
+        long[] counts = new long[256];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = frequencies[i] + 1;
+        }
+        return new Codebook(id, HuffmanEncoder.buildLengths(counts, maxLength > 0 ? maxLength : DEFAULT_MAX_LENGTH));
+    }// end train
+
+    /**
+     * write
+     * writes the codebook in the codebook file format
+     * Version 1.1
+     *
+     * @param output the stream the codebook is written to, it is not closed
+     * @throws IOException
+     */
+
+    public void write(OutputStream output) throws IOException {
+        BitWriter writer = new BitWriter(output, 1 << 10);
+        writer.writeByte(MAGIC_1);
+        writer.writeByte(MAGIC_2);
+        writer.writeVarLong(id);
+        CanonicalCode.writeLengths(lengths, writer);
+        writer.flush(false);
+        writer.release();
+    }// end write
+
+    /**
+     * read
+     * Version 1.0
+     *
+     * @param path a codebook file
+     * @return the codebook in the file
+     * @throws IOException if the file is not a valid codebook
+     */
+
+    public static Codebook read(Path path) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)), path.toString());
+    }// end read
+
+    /**
+     * read
+     * Version 1.0
+     *
+     * @param data the bytes of a codebook, starting at position 0
+     * @param name the name of the codebook used in errors
+     * @return the codebook
+     * @throws IOException if the bytes are not a valid codebook
+     */
+
+    static Codebook read(ByteBuffer data, String name) throws IOException {
+        if (data.remaining() < 2 || data.get(0) != MAGIC_1 || data.get(1) != MAGIC_2) {
+            throw new IOException(name + " is not a codebook");
+        }
+        data.position(2);
+        BitReader reader = new BitReader(data);
+        long id = reader.readVarLong();
+        if (id > Integer.MAX_VALUE) {
+            throw new IOException(name + " is not a valid codebook");
+        }
+        try {
+            return new Codebook((int) id, CanonicalCode.readLengths(reader, 256));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(name + " is not a valid codebook: " + e.getMessage());
+        }
+    }// end read
+}// end Codebook
@@ -0,0 +1,309 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Context Encoder
+ *
+ * Compresses a file with an order 1 model: the code of each byte depends on the byte before it
+ * A table for each of the 256 previous bytes would cost more than it saves on most files, so the previous bytes are
+ * put into groups whose next bytes look alike (k-means on the histograms of the next bytes), and each group gets one
+ * code table. The number of groups (up to MAX_GROUPS) is the one that makes the smallest file, tables included, so the
+ * decoder never holds more than MAX_GROUPS tables
+ */
+
+public class ContextEncoder {
+
+    // the most code tables a file can have
+    static final int MAX_GROUPS = 32;
+    // the most rounds of k-means for one number of groups
+    private static final int ROUNDS = 8;
+
+    /**
+     * compress
+     * compresses an input into the context format
+     * Format:
+     * 'H' 'F' and the context format byte
+     * The number of bytes in the original file
+     * The number of groups
+     * The group of each previous byte (0 to 255), in the fewest bits that hold the number of groups
+     * The length of the code of each byte in each group (see CanonicalCode)
+     * The encoded message, each byte uses the code of the group of the byte before it (0 before the first byte), the
+     * last byte is padded with trailing zeros
+     * Version 2.0
+     *
+     * @param input     the input to be compressed
+     * @param output    the stream the .huff file is written to
+     * @param maxLength the longest code allowed, 0 for no limit
+     * @param cost      the cost the bits the limit adds to the chosen groups is added to, or null
+     * @throws IOException
+     */
+
+    public static void compress(MappedInput input, OutputStream output, int maxLength, LimitCost cost) throws IOException {
+        long[][] counts = countPairs(input.range(0, input.size()));
+        long fileLength = 0;
+        for (long[] context : counts) {
+            for (long count : context) {
+                fileLength += count;
+            }
+        }
+
+        // try each number of groups and keep the smallest file
+        int[] groups = null;
+        int[][] groupLengths = null;
+        LimitCost groupCost = null;
+        long bestBits = Long.MAX_VALUE;
+        for (int groupCount = 1; groupCount <= MAX_GROUPS; groupCount *= 2) {
+            int[] map = cluster(counts, groupCount);
+            LimitCost trialCost = new LimitCost(maxLength);
+            int[][] lengths = buildLengths(counts, map, maxLength, trialCost);
+            long bits = mapBits(lengths.length) * 256;
+            for (int g = 0; g < lengths.length; g++) {
+                bits += BlockEncoder.tableBits(lengths[g]);
+            }
+            for (int c = 0; c < 256; c++) {
+                bits += PackageMerge.encodedBits(counts[c], lengths[map[c]]);
+            }
+            if (bits < bestBits) {
+                bestBits = bits;
+                groups = map;
+                groupLengths = lengths;
+                groupCost = trialCost;
+            }
+            // there can not be more groups than previous bytes that are used
+            if (lengths.length < groupCount) {
+                break;
+            }
+        }
+
+        if (cost != null) {
+            cost.add(groupCost);
+        }
+
+        BitWriter writer = new BitWriter(output);
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.CONTEXT);
+        writer.writeVarLong(fileLength);
+        writer.writeVarLong(groupLengths.length);
+        int bits = mapBits(groupLengths.length);
+        for (int c = 0; c < 256; c++) {
+            writer.writeBits(groups[c], bits);
+        }
+        for (int[] lengths : groupLengths) {
+            CanonicalCode.writeLengths(lengths, writer);
+        }
+
+        // the code of each previous byte points at the code of its group
+        long[][] codes = new long[256][];
+        int[][] lengths = new int[256][];
+        long[][] groupCodes = new long[groupLengths.length][];
+        for (int g = 0; g < groupLengths.length; g++) {
+            groupCodes[g] = CanonicalCode.assignCodes(groupLengths[g]);
+        }
+        for (int c = 0; c < 256; c++) {
+            codes[c] = groupCodes[groups[c]];
+            lengths[c] = groupLengths[groups[c]];
+        }
+        MappedInput message = input.range(0, input.size());
+        int previous = 0;
+        ByteBuffer window;
+        while ((window = message.nextWindow()) != null) {
+            for (int i = window.position(); i < window.limit(); i++) {
+                int b = window.get(i) & 255;
+                writer.writeBits(codes[previous][b], lengths[previous][b]);
+                previous = b;
+            }
+        }
+        writer.flush(false);
+        writer.release();
+    }// end compress
+
+    /**
+     * countPairs
+     * counts each byte after each previous byte
+     * Version 1.0
+     *
+     * @param input the input, its windows are used up
+     * @return the number of times each byte (second index) follows each byte (first index), the first byte of the
+     * input follows 0
+     * @throws IOException
+     */
+
+    static long[][] countPairs(MappedInput input) throws IOException {
+        // counted in ints one window at a time, so the counts can not overflow
+        int[] pairs = new int[256 * 256];
+        long[][] counts = new long[256][256];
+        int previous = 0;
+        ByteBuffer window;
+        while ((window = input.nextWindow()) != null) {
+            for (int i = window.position(); i < window.limit(); i++) {
+                int b = window.get(i) & 255;
+                pairs[(previous << 8) | b]++;
+                previous = b;
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                counts[i >>> 8][i & 255] += pairs[i];
+            }
+            Arrays.fill(pairs, 0);
+        }
+        return counts;
+    }// end countPairs
+
+    /**
+     * cluster
+     * puts the previous bytes into groups with k-means, a previous byte goes to the group whose code would take the
+     * fewest bits for the bytes that follow it
+     * Version 1.0
+     *
+     * @param counts     the number of times each byte follows each previous byte
+     * @param groupCount the largest number of groups
+     * @return the group of each previous byte, the groups are numbered from 0 with no gaps
+     */
+
+    static int[] cluster(long[][] counts, int groupCount) {
+        // the previous bytes that are used, the biggest first
+        Integer[] order = new Integer[256];
+        final long[] totals = new long[256];
+        int used = 0;
+        for (int c = 0; c < 256; c++) {
+            order[c] = c;
+            for (long count : counts[c]) {
+                totals[c] += count;
+            }
+            if (totals[c] > 0) {
+                used++;
+            }
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(totals[b], totals[a]);
+            }
+        });
+        groupCount = Math.max(1, Math.min(groupCount, used));
+
+        // start with the biggest previous bytes as the groups
+        int[] map = new int[256];
+        for (int i = 0; i < 256; i++) {
+            map[order[i]] = i < groupCount ? i : 0;
+        }
+        double[][] cost = new double[groupCount][256];
+        for (int round = 0; round < ROUNDS; round++) {
+            // the bits each byte takes in each group, a little is added to every count so no byte is free
+            long[][] groupCounts = groupCounts(counts, map, groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                long total = 0;
+                for (long count : groupCounts[g]) {
+                    total += count;
+                }
+                for (int s = 0; s < 256; s++) {
+                    cost[g][s] = Math.log((total + 128.0) / (groupCounts[g][s] + 0.5));
+                }
+            }
+            // move each previous byte to its cheapest group
+            boolean changed = false;
+            for (int c = 0; c < 256; c++) {
+                if (totals[c] == 0) {
+                    continue;
+                }
+                int best = map[c];
+                double bestCost = Double.MAX_VALUE;
+                for (int g = 0; g < groupCount; g++) {
+                    double bits = 0;
+                    for (int s = 0; s < 256; s++) {
+                        if (counts[c][s] != 0) {
+                            bits += counts[c][s] * cost[g][s];
+                        }
+                    }
+                    if (bits < bestCost) {
+                        bestCost = bits;
+                        best = g;
+                    }
+                }
+                if (best != map[c]) {
+                    map[c] = best;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+
+        // number the groups that are left from 0, previous bytes that are never used go in the first group
+        int[] number = new int[groupCount];
+        Arrays.fill(number, -1);
+        int next = 0;
+        for (int i = 0; i < 256; i++) {
+            int c = order[i];
+            if (totals[c] > 0 && number[map[c]] < 0) {
+                number[map[c]] = next++;
+            }
+        }
+        for (int c = 0; c < 256; c++) {
+            map[c] = totals[c] > 0 ? number[map[c]] : 0;
+        }
+        return map;
+    }// end cluster
+
+    /**
+     * groupCounts
+     * Version 1.0
+     *
+     * @param counts     the number of times each byte follows each previous byte
+     * @param map        the group of each previous byte
+     * @param groupCount the number of groups
+     * @return the number of times each byte follows the previous bytes of each group
+     */
+
+    private static long[][] groupCounts(long[][] counts, int[] map, int groupCount) {
+        long[][] groupCounts = new long[groupCount][256];
+        for (int c = 0; c < 256; c++) {
+            Histogram.merge(groupCounts[map[c]], counts[c]);
+        }
+        return groupCounts;
+    }// end groupCounts
+
+    /**
+     * buildLengths
+     * builds the code of each group
+     * Version 2.0
+     *
+     * @param counts    the number of times each byte follows each previous byte
+     * @param map       the group of each previous byte, numbered from 0 with no gaps
+     * @param maxLength the longest code allowed, 0 for no limit
+     * @param cost      the cost the bits the limit adds to the groups is added to
+     * @return the length of the code of each byte in each group
+     */
+
+    private static int[][] buildLengths(long[][] counts, int[] map, int maxLength, LimitCost cost) {
+        int groupCount = 0;
+        for (int c = 0; c < 256; c++) {
+            groupCount = Math.max(groupCount, map[c] + 1);
+        }
+        long[][] groupCounts = groupCounts(counts, map, groupCount);
+        int[][] lengths = new int[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            lengths[g] = HuffmanEncoder.buildLengths(groupCounts[g], maxLength, cost);
+        }
+        return lengths;
+    }// end buildLengths
+
+    /**
+     * mapBits
+     * Version 1.0
+     *
+     * @param groupCount the number of groups
+     * @return the number of bits used for the group of each previous byte
+     */
+
+    static int mapBits(int groupCount) {
+        return 32 - Integer.numberOfLeadingZeros(groupCount - 1);
+    }// end mapBits
+}// end ContextEncoder
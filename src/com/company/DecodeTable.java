@@ -0,0 +1,460 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decode Table
+ *
+ * A lookup table that decodes a prefix code several bits at a time
+ * The root table is indexed by the next rootBits bits of the message, each entry is one of:
+ * Single - one symbol and the length of its code
+ * Pair - two short codes that both fit in the root bits, so two symbols are found with one lookup
+ * Pointer - a second level table for the codes that are longer than the root bits
+ * Codes that are too long for the second level get a third level and so on, so any code length works
+ */
+
+public class DecodeTable {
+
+    // the default number of bits looked at by the root table (2^11 entries = 8 KB)
+    static final int DEFAULT_ROOT_BITS = 11;
+    // the largest number of bits looked at by a second (or later) level table
+    static final int MAX_SUB_BITS = 8;
+
+    // the kinds of entries, stored in the top 2 bits of an entry
+    static final int INVALID = 0;
+    static final int SINGLE = 1;
+    static final int PAIR = 2;
+    static final int POINTER = 3;
+
+    // the number of bits the root table looks at
+    final int rootBits;
+    // the longest code in the table
+    final int maxLength;
+    // all the tables, the root table is first and the other levels come after it
+    final int[] entries;
+
+    private DecodeTable(int rootBits, int maxLength, int[] entries) {
+        this.rootBits = rootBits;
+        this.maxLength = maxLength;
+        this.entries = entries;
+    }
+
+    /**
+     * build
+     * creates the lookup tables for a prefix code
+     * Version 1.0
+     *
+     * @param codes   the code word of each symbol
+     * @param lengths the length of the code of each symbol, 0 if the symbol has no code
+     * @return the decode table
+     */
+
+    public static DecodeTable build(long[] codes, int[] lengths) {
+        return build(codes, lengths, DEFAULT_ROOT_BITS);
+    }// end build
+
+    /**
+     * build
+     * creates the lookup tables for a prefix code
+     * Version 1.0
+     *
+     * @param codes    the code word of each symbol
+     * @param lengths  the length of the code of each symbol, 0 if the symbol has no code
+     * @param rootBits the largest number of bits the root table should look at
+     * @return the decode table
+     */
+
+    public static DecodeTable build(long[] codes, int[] lengths, int rootBits) {
+        // find the longest code, the root table never needs to look at more bits than that
+        int maxLength = 0;
+        int symbolCount = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            maxLength = Math.max(maxLength, lengths[i]);
+            if (lengths[i] != 0) {
+                symbolCount++;
+            }
+        }
+        rootBits = Math.max(1, Math.min(rootBits, maxLength));
+
+        // list the symbols that have a code
+        int[] symbols = new int[symbolCount];
+        int count = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] != 0) {
+                symbols[count++] = i;
+            }
+        }
+
+        // build the root table and all the levels below it
+        Builder builder = new Builder(codes, lengths);
+        builder.fill(symbols, symbolCount, 0, rootBits);
+        int[] entries = Arrays.copyOf(builder.entries, builder.size);
+
+        // join short codes into pairs when every symbol fits in a byte
+        if (lengths.length <= 256) {
+            addPairs(entries, rootBits);
+        }
+        return new DecodeTable(rootBits, maxLength, entries);
+    }// end build
+
+    /**
+     * addPairs
+     * changes root entries whose code leaves room for a second whole code into pair entries
+     * Version 1.0
+     *
+     * @param entries  the tables, the root table is at the start
+     * @param rootBits the number of bits the root table looks at
+     */
+
+    private static void addPairs(int[] entries, int rootBits) {
+        int rootSize = 1 << rootBits;
+        int rootMask = rootSize - 1;
+        // look up the second code in the original single entries
+        int[] singles = Arrays.copyOf(entries, rootSize);
+        for (int i = 0; i < rootSize; i++) {
+            int first = singles[i];
+            if (first >>> 30 != SINGLE) {
+                continue;
+            }
+            int length1 = (first >>> 16) & 63;
+            if (length1 >= rootBits) {
+                continue;
+            }
+            // the bits after the first code are the start of the second code
+            int second = singles[(i << length1) & rootMask];
+            if (second >>> 30 != SINGLE) {
+                continue;
+            }
+            int length2 = (second >>> 16) & 63;
+            if (length1 + length2 > rootBits) {
+                continue;
+            }
+            entries[i] = (PAIR << 30) | (length1 << 22) | ((length1 + length2) << 16)
+                    | ((second & 255) << 8) | (first & 255);
+        }
+    }// end addPairs
+
+    /**
+     * decodeSymbol
+     * decodes one symbol, the reader must have been refilled
+     * Version 1.0
+     *
+     * @param reader the reader holding the encoded message
+     * @return the decoded symbol
+     * @throws IOException if the bits are not a code in the table
+     */
+
+    public int decodeSymbol(BitReader reader) throws IOException {
+        int bits = rootBits;
+        int entry = entries[reader.peek(bits)];
+        // follow the pointers down to the level that holds the code
+        while (entry >>> 30 == POINTER) {
+            reader.consume(bits);
+            reader.refill();
+            bits = (entry >>> 20) & 63;
+            entry = entries[(entry & 0xFFFFF) + reader.peek(bits)];
+        }
+        if (entry >>> 30 == INVALID) {
+            throw new IOException("Invalid code in the encoded message");
+        }
+        // a pair is only used for its first symbol here
+        if (entry >>> 30 == PAIR) {
+            reader.consume((entry >>> 22) & 63);
+            return entry & 255;
+        }
+        reader.consume((entry >>> 16) & 63);
+        return entry & 0xFFFF;
+    }// end decodeSymbol
+
+    /**
+     * decode
+     * decodes bytes into an output array until the array is full or the end of the message is reached
+     * Every code that starts before endBit is decoded, so the reader can stop a little after endBit
+     * Version 2.0
+     *
+     * @param reader the reader holding the encoded message
+     * @param endBit the bit position where the encoded message ends
+     * @param out    the array the decoded bytes are stored in
+     * @param offset the first position in out to use
+     * @param length the largest number of bytes to decode
+     * @return the number of bytes decoded
+     * @throws IOException if the message has a bit pattern that is not a code
+     */
+
+    public int decode(BitReader reader, long endBit, byte[] out, int offset, int length) throws IOException {
+        int[] entries = this.entries;
+        int rootBits = this.rootBits;
+        int position = offset;
+        int end = offset + length;
+        // the number of bits left in the message
+        long bitsLeft = endBit - reader.getBitPosition();
+        while (position < end && bitsLeft > 0) {
+            reader.refill();
+            int entry = entries[reader.peek(rootBits)];
+            int kind = entry >>> 30;
+            if (kind == PAIR) {
+                int pairLength = (entry >>> 16) & 63;
+                // only use both symbols if the second one starts in the message and fits in the output
+                if (((entry >>> 22) & 63) < bitsLeft && position + 1 < end) {
+                    out[position++] = (byte) entry;
+                    out[position++] = (byte) (entry >>> 8);
+                    reader.consume(pairLength);
+                    bitsLeft -= pairLength;
+                } else {
+                    int firstLength = (entry >>> 22) & 63;
+                    out[position++] = (byte) entry;
+                    reader.consume(firstLength);
+                    bitsLeft -= firstLength;
+                }
+            } else if (kind == SINGLE) {
+                int codeLength = (entry >>> 16) & 63;
+                out[position++] = (byte) entry;
+                reader.consume(codeLength);
+                bitsLeft -= codeLength;
+            } else {
+                // a long code or an invalid code, use the general lookup
+                long before = reader.getBitPosition();
+                out[position++] = (byte) decodeSymbol(reader);
+                bitsLeft -= reader.getBitPosition() - before;
+            }
+        }
+        return position - offset;
+    }// end decode
+
+    /**
+     * decodeInterleaved
+     * decodes four streams at the same time, the streams do not depend on each other so the processor can work on
+     * the lookups of all four at once instead of waiting for each code before the next one can be found
+     * Each stream only keeps its bit position in a local variable, and every lookup reads the 8 bytes at that position,
+     * so the four chains of lookups only depend on their own position
+     * Stream i holds the bytes from i * quarter to (i + 1) * quarter (the last stream can be shorter)
+     * Version 1.0
+     *
+     * @param data    the bytes of the streams, each stream is padded to a whole byte
+     * @param starts  the position in data where each stream starts
+     * @param sizes   the number of bytes in each stream
+     * @param out     the array the decoded bytes are stored in
+     * @param offset  the first position in out to use
+     * @param quarter the number of bytes in each of the first three streams
+     * @param length  the number of bytes in all four streams
+     * @throws IOException if a stream has a bit pattern that is not a code, or is longer than its size
+     */
+
+    public void decodeInterleaved(ByteBuffer data, int[] starts, int[] sizes, byte[] out, int offset, int quarter,
+                                  int length) throws IOException {
+        int position0 = offset;
+        int position1 = offset + Math.min(length, quarter);
+        int position2 = offset + Math.min(length, 2 * quarter);
+        int position3 = offset + Math.min(length, 3 * quarter);
+        int end0 = position1;
+        int end1 = position2;
+        int end2 = position3;
+        int end3 = offset + length;
+        // the bit position of each stream, and the last position where 8 bytes can still be read inside the stream
+        long bit0 = (long) starts[0] * 8;
+        long bit1 = (long) starts[1] * 8;
+        long bit2 = (long) starts[2] * 8;
+        long bit3 = (long) starts[3] * 8;
+        long safe0 = ((long) starts[0] + sizes[0] - 8) * 8;
+        long safe1 = ((long) starts[1] + sizes[1] - 8) * 8;
+        long safe2 = ((long) starts[2] + sizes[2] - 8) * 8;
+        long safe3 = ((long) starts[3] + sizes[3] - 8) * 8;
+        int[] entries = this.entries;
+        int rootBits = this.rootBits;
+        // a code must fit in the 57 bits that are left after the shift of a lookup
+        if (maxLength <= 57) {
+            // while every stream has room for a pair, take one step in each stream
+            while (position0 < end0 - 1 && position1 < end1 - 1 && position2 < end2 - 1 && position3 < end3 - 1
+                    && bit0 <= safe0 && bit1 <= safe1 && bit2 <= safe2 && bit3 <= safe3) {
+                long step0 = step(entries, rootBits, data, bit0, out, position0);
+                long step1 = step(entries, rootBits, data, bit1, out, position1);
+                long step2 = step(entries, rootBits, data, bit2, out, position2);
+                long step3 = step(entries, rootBits, data, bit3, out, position3);
+                bit0 += step0 >>> 2;
+                bit1 += step1 >>> 2;
+                bit2 += step2 >>> 2;
+                bit3 += step3 >>> 2;
+                position0 += (int) step0 & 3;
+                position1 += (int) step1 & 3;
+                position2 += (int) step2 & 3;
+                position3 += (int) step3 & 3;
+            }
+        }
+        // finish each stream on its own, the ends are counted in bytes so the padding is never decoded
+        finish(data, bit0, starts[0] + sizes[0], out, position0, end0 - position0);
+        finish(data, bit1, starts[1] + sizes[1], out, position1, end1 - position1);
+        finish(data, bit2, starts[2] + sizes[2], out, position2, end2 - position2);
+        finish(data, bit3, starts[3] + sizes[3], out, position3, end3 - position3);
+    }// end decodeInterleaved
+
+    /**
+     * step
+     * decodes one lookup of a stream, there must be room for two bytes and 8 bytes to read
+     * Version 1.0
+     *
+     * @param entries  the tables
+     * @param rootBits the number of bits the root table looks at
+     * @param data     the bytes of the streams
+     * @param bit      the bit position of the stream
+     * @param out      the array the decoded bytes are stored in
+     * @param position the next position in out
+     * @return the number of bits used times 4, plus the number of bytes decoded (1 or 2)
+     * @throws IOException if the bits are not a code
+     */
+
+    private static long step(int[] entries, int rootBits, ByteBuffer data, long bit, byte[] out, int position) throws IOException {
+        long word = data.getLong((int) (bit >>> 3)) << (bit & 7);
+        int bits = rootBits;
+        int entry = entries[(int) (word >>> (64 - bits))];
+        int kind = entry >>> 30;
+        if (kind == PAIR) {
+            out[position] = (byte) entry;
+            out[position + 1] = (byte) (entry >>> 8);
+            return (long) ((entry >>> 16) & 63) << 2 | 2;
+        }
+        // follow the pointers down to the level that holds the code, all in the same 8 bytes
+        int used = 0;
+        while (kind == POINTER) {
+            used += bits;
+            bits = (entry >>> 20) & 63;
+            entry = entries[(entry & 0xFFFFF) + (int) ((word << used) >>> (64 - bits))];
+            kind = entry >>> 30;
+        }
+        if (kind == INVALID) {
+            throw new IOException("Invalid code in the encoded message");
+        }
+        out[position] = (byte) entry;
+        return (long) (used + ((entry >>> 16) & 63)) << 2 | 1;
+    }// end step
+
+    /**
+     * finish
+     * decodes the end of a stream with a bit reader
+     * Version 1.0
+     *
+     * @param data     the bytes of the streams
+     * @param bit      the bit position of the stream
+     * @param end      the position in data where the stream ends
+     * @param out      the array the decoded bytes are stored in
+     * @param position the next position in out
+     * @param count    the number of bytes left in the stream
+     * @throws IOException if the bits are not a code, or the stream is longer than its size
+     */
+
+    private void finish(ByteBuffer data, long bit, int end, byte[] out, int position, int count) throws IOException {
+        if (bit > (long) end * 8) {
+            throw new IOException("A stream is longer than its size");
+        }
+        ByteBuffer stream = data.duplicate();
+        stream.limit(end).position((int) (bit >>> 3));
+        BitReader reader = new BitReader(stream.slice());
+        reader.skipBits(bit & 7);
+        int done = 0;
+        while (done < count) {
+            int decoded = decode(reader, Long.MAX_VALUE, out, position + done, count - done);
+            if (decoded == 0) {
+                break;
+            }
+            done += decoded;
+        }
+        if (reader.getBitPosition() + (bit & ~7L) > (long) end * 8) {
+            throw new IOException("A stream is longer than its size");
+        }
+    }// end finish
+
+    /**
+     * Builder
+     * a growing array that the tables are added to while they are built
+     */
+
+    private static class Builder {
+        // the code word of each symbol
+        final long[] codes;
+        // the length of the code of each symbol
+        final int[] lengths;
+        // the tables built so far
+        int[] entries = new int[1 << 12];
+        // the number of entries used
+        int size;
+
+        Builder(long[] codes, int[] lengths) {
+            this.codes = codes;
+            this.lengths = lengths;
+        }
+
+        /**
+         * fill
+         * adds a table for a group of symbols whose codes all start with the same consumed bits
+         * Version 1.0
+         *
+         * @param symbols  the symbols in the group
+         * @param count    the number of symbols in the group
+         * @param consumed the number of bits of each code that are already used by the higher levels
+         * @param bits     the number of bits this table looks at
+         * @return the position of the table in entries
+         */
+
+        int fill(int[] symbols, int count, int consumed, int bits) {
+            int offset = size;
+            int tableSize = 1 << bits;
+            if (size + tableSize > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(entries.length * 2, size + tableSize));
+            }
+            size += tableSize;
+
+            // codes that end inside this table fill every entry they are a prefix of
+            // longer codes are put into groups by the bits that this table looks at
+            int[] groupSize = new int[tableSize];
+            for (int i = 0; i < count; i++) {
+                int symbol = symbols[i];
+                int remaining = lengths[symbol] - consumed;
+                long code = codes[symbol] & mask(remaining);
+                if (remaining <= bits) {
+                    int first = (int) (code << (bits - remaining));
+                    int entry = (SINGLE << 30) | (remaining << 16) | symbol;
+                    Arrays.fill(entries, offset + first, offset + first + (1 << (bits - remaining)), entry);
+                } else {
+                    groupSize[(int) (code >>> (remaining - bits))]++;
+                }
+            }
+
+            // build the next level for each group
+            for (int prefix = 0; prefix < tableSize; prefix++) {
+                if (groupSize[prefix] == 0) {
+                    continue;
+                }
+                int[] group = new int[groupSize[prefix]];
+                int groupCount = 0;
+                int longest = 0;
+                for (int i = 0; i < count; i++) {
+                    int symbol = symbols[i];
+                    int remaining = lengths[symbol] - consumed;
+                    if (remaining > bits && (int) ((codes[symbol] & mask(remaining)) >>> (remaining - bits)) == prefix) {
+                        group[groupCount++] = symbol;
+                        longest = Math.max(longest, remaining - bits);
+                    }
+                }
+                int subBits = Math.min(longest, MAX_SUB_BITS);
+                int subOffset = fill(group, groupCount, consumed + bits, subBits);
+                entries[offset + prefix] = (POINTER << 30) | (subBits << 20) | subOffset;
+            }
+            return offset;
+        }// end fill
+
+        /**
+         * mask
+         * Version 1.0
+         *
+         * @param length the number of bits
+         * @return a number with the lowest length bits set
+         */
+
+        private static long mask(int length) {
+            return length >= 64 ? -1L : (1L << length) - 1;
+        }// end mask
+    }// end Builder
+}// end DecodeTable
@@ -0,0 +1,83 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+
+/**
+ * Entropy Sampler
+ *
+ * Decides before anything is encoded if a file is worth compressing, from the bytes of SAMPLE_COUNT small samples
+ * spread over the file (the whole file if it is small)
+ * Compressed media and encrypted data use every byte about as often, so a Huffman code can not make them smaller and
+ * the table only makes them bigger. The entropy of the samples is the fewest bits any code can take, so when it is
+ * already too close to the size of the file no tree is built, otherwise the size with the code of the samples is
+ * estimated. Files that would not save at least 1/MIN_SAVING of their size are stored as they are
+ * -Dhuffman.store=false turns the check off so every file is coded, the benchmarks use it to measure the coder on
+ * data that would otherwise be stored
+ */
+
+public class EntropySampler {
+
+    // the number of samples and the number of bytes in each one
+    static final int SAMPLE_COUNT = 64;
+    static final int SAMPLE_SIZE = 1 << 12;
+    // a file has to save at least 1/MIN_SAVING of its size to be compressed
+    static final int MIN_SAVING = 32;
+
+    /**
+     * shouldStore
+     * Version 2.0
+     *
+     * @param input the input to be compressed
+     * @return true if the Huffman code of the input is not expected to save enough over storing it, false if the check
+     * is turned off
+     * @throws IOException
+     */
+
+    public static boolean shouldStore(MappedInput input) throws IOException {
+        if (!Boolean.parseBoolean(System.getProperty("huffman.store", "true"))) {
+            return false;
+        }
+        long size = input.size();
+        long[] counts = sample(input);
+        long sampled = 0;
+        for (long count : counts) {
+            sampled += count;
+        }
+        // the header of both is about the same, so only the bodies are compared
+        double limit = 8.0 * (size - size / MIN_SAVING);
+        if (sampled == 0) {
+            return true;
+        }
+        double scale = (double) size / sampled;
+        if (BlockEncoder.entropyBits(counts) * scale >= limit) {
+            return true;
+        }
+        int[] lengths = HuffmanEncoder.buildLengths(counts, 0);
+        return BlockEncoder.tableBits(lengths) + PackageMerge.encodedBits(counts, lengths) * scale >= limit;
+    }// end shouldStore
+
+    /**
+     * sample
+     * Version 1.0
+     *
+     * @param input the input
+     * @return the number of times each byte is in the samples, the samples are evenly spaced from the start to the
+     * end of the input
+     * @throws IOException
+     */
+
+    static long[] sample(MappedInput input) throws IOException {
+        long size = input.size();
+        if (size <= (long) SAMPLE_COUNT * SAMPLE_SIZE) {
+            return Histogram.count(input.map(0, (int) size));
+        }
+        long[] counts = new long[256];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            long start = (size - SAMPLE_SIZE) * i / (SAMPLE_COUNT - 1);
+            Histogram.countInto(input.map(start, SAMPLE_SIZE), 0, SAMPLE_SIZE, counts);
+        }
+        return counts;
+    }// end sample
+}// end EntropySampler
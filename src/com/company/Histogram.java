@@ -0,0 +1,208 @@
+package com.company;
+
+//imports
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Histogram
+ *
+ * Counts how many times each byte is in a block of data using plain arrays of counters
+ * Four count tables are used in turn, so a run of the same byte does not wait for the store of the byte before it,
+ * and big inputs are split between the threads of a ForkJoin pool and the counts of each thread are added together
+ */
+
+public class Histogram {
+
+    // inputs at least this big are counted in parallel
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    // the size of the part of the input each task counts
+    static final int TASK_SIZE = 1 << 18;
+
+    /**
+     * count
+     * counts each byte in part of an array, big parts are counted in parallel
+     * Version 1.0
+     *
+     * @param data   the bytes to count
+     * @param offset the first byte to count
+     * @param length the number of bytes to count
+     * @return the number of times each byte is in the data, indexed by the byte (0 to 255)
+     */
+
+    public static long[] count(byte[] data, int offset, int length) {
+        return count(ByteBuffer.wrap(data, offset, length));
+    }// end count
+
+    /**
+     * count
+     * counts each byte from the position to the limit of a buffer (which can be a mapped window of a file), big
+     * buffers are counted in parallel
+     * Version 1.0
+     *
+     * @param buffer the bytes to count, the position of the buffer is not changed
+     * @return the number of times each byte is in the buffer, indexed by the byte (0 to 255)
+     */
+
+    public static long[] count(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int length = buffer.remaining();
+        if (length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ForkJoinPool.commonPool().invoke(new CountTask(buffer, offset, length));
+        }
+        long[] counts = new long[256];
+        countInto(buffer, offset, length, counts);
+        return counts;
+    }// end count
+
+    /**
+     * countInto
+     * counts each byte in part of an array on the current thread and adds the counts to an existing histogram
+     * Version 1.0
+     *
+     * @param data   the bytes to count
+     * @param offset the first byte to count
+     * @param length the number of bytes to count
+     * @param counts the histogram the counts are added to
+     */
+
+    public static void countInto(byte[] data, int offset, int length, long[] counts) {
+        // four tables so that the same byte four times in a row updates four different counters
+        int[] counts0 = new int[256];
+        int[] counts1 = new int[256];
+        int[] counts2 = new int[256];
+        int[] counts3 = new int[256];
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            counts0[data[i] & 255]++;
+            counts1[data[i + 1] & 255]++;
+            counts2[data[i + 2] & 255]++;
+            counts3[data[i + 3] & 255]++;
+        }
+        // count the bytes left over
+        for (; i < end; i++) {
+            counts0[data[i] & 255]++;
+        }
+        // add the four tables together
+        for (int b = 0; b < 256; b++) {
+            counts[b] += (long) counts0[b] + counts1[b] + counts2[b] + counts3[b];
+        }
+    }// end countInto
+
+    /**
+     * countInto
+     * counts each byte in part of a buffer on the current thread and adds the counts to an existing histogram
+     * Version 1.0
+     *
+     * @param buffer the bytes to count, only read with absolute gets so many threads can share it
+     * @param offset the first byte to count
+     * @param length the number of bytes to count
+     * @param counts the histogram the counts are added to
+     */
+
+    public static void countInto(ByteBuffer buffer, int offset, int length, long[] counts) {
+        // heap buffers are counted straight from their array
+        if (buffer.hasArray()) {
+            countInto(buffer.array(), buffer.arrayOffset() + offset, length, counts);
+            return;
+        }
+        int[] counts0 = new int[256];
+        int[] counts1 = new int[256];
+        int[] counts2 = new int[256];
+        int[] counts3 = new int[256];
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            counts0[buffer.get(i) & 255]++;
+            counts1[buffer.get(i + 1) & 255]++;
+            counts2[buffer.get(i + 2) & 255]++;
+            counts3[buffer.get(i + 3) & 255]++;
+        }
+        for (; i < end; i++) {
+            counts0[buffer.get(i) & 255]++;
+        }
+        for (int b = 0; b < 256; b++) {
+            counts[b] += (long) counts0[b] + counts1[b] + counts2[b] + counts3[b];
+        }
+    }// end countInto
+
+    /**
+     * merge
+     * adds the counts of one histogram to another
+     * Version 1.0
+     *
+     * @param into   the histogram the counts are added to
+     * @param counts the counts to add
+     */
+
+    public static void merge(long[] into, long[] counts) {
+        for (int b = 0; b < into.length; b++) {
+            into[b] += counts[b];
+        }
+    }// end merge
+
+    /**
+     * toNodes
+     * creates a leaf node for each symbol that is used, for createTree
+     * Version 2.0
+     *
+     * @param counts the number of times each symbol is used, any number of symbols
+     * @return a list of leaf nodes
+     */
+
+    public static ArrayList<Node> toNodes(long[] counts) {
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            if (counts[symbol] > 0) {
+                Node node = new Node();
+                node.symbol = symbol;
+                node.frequency = counts[symbol];
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }// end toNodes
+
+    /**
+     * CountTask
+     * counts part of the input, splitting it in half until the parts are small enough
+     */
+
+    private static class CountTask extends RecursiveTask<long[]> {
+        // tasks are never serialized, but RecursiveTask is Serializable
+        private static final long serialVersionUID = 1L;
+        // the bytes to count
+        private final ByteBuffer buffer;
+        // the first byte and the number of bytes this task counts
+        private final int offset;
+        private final int length;
+
+        CountTask(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected long[] compute() {
+            // a small part is counted on this thread
+            if (length <= TASK_SIZE) {
+                long[] counts = new long[256];
+                countInto(buffer, offset, length, counts);
+                return counts;
+            }
+            // otherwise count each half and add them together
+            int half = length / 2;
+            CountTask left = new CountTask(buffer, offset, half);
+            CountTask right = new CountTask(buffer, offset + half, length - half);
+            left.fork();
+            long[] counts = right.compute();
+            merge(counts, left.join());
+            return counts;
+        }
+    }// end CountTask
+}// end Histogram
@@ -0,0 +1,603 @@
+package com.company;
+
+//imports
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Huffman Archive
+ *
+ * Packs every file in a folder into one archive, so a tree of many small files is compressed in one JVM and one file
+ * instead of one .huff file each
+ * The files are compressed on a pool of threads and written in the order of their names, at most two files for each
+ * thread are waiting to be written at any time, so the memory used does not grow with the number of files
+ * Each entry is a whole .huff message in any format, and a central directory at the end holds the name, position and
+ * sizes of every entry, so one entry can be extracted without reading the others
+ * An archive can also share one code table (a Codebook trained on the small entries) between entries with similar
+ * bytes, a small entry is written with the shared table when that makes it smaller than its own table would
+ * Format of an archive:
+ * 'H' 'F' and the archive format byte
+ * The entries, one after another
+ * The shared codebook in the codebook file format (see Codebook), if any entry uses it
+ * The central directory: the number of entries, and for each entry the length of its name, its name in UTF-8, its
+ * position in the archive, its length and the number of bytes in the original file
+ * The position of the central directory and of the shared codebook (-1 if there is none), 8 bytes each
+ */
+
+public class HuffmanArchive {
+
+    // the extension of archives
+    static final String EXTENSION = ".harc";
+    // the number of bytes after the central directory
+    static final int TRAILER_SIZE = 16;
+    // files up to this size are compressed in memory, bigger ones through a temporary file
+    static final long MEMORY_ENTRY_SIZE = 8 << 20;
+    // files up to this size train the shared table and are tried with it, a bigger file pays little for its own table
+    static final long SHARED_ENTRY_SIZE = 256 << 10;
+    // the id of the shared codebook, it is only used inside the archive
+    static final int SHARED_ID = 0;
+
+    /**
+     * Entry
+     * one file in an archive
+     */
+
+    public static class Entry {
+
+        // the path of the file in the folder, with / between the folders
+        final String name;
+        // the position of the .huff message in the archive, and its length
+        final long offset;
+        final long compressedSize;
+        // the number of bytes in the original file
+        final long size;
+
+        Entry(String name, long offset, long compressedSize, long size) {
+            this.name = name;
+            this.offset = offset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }// end Entry
+
+    /**
+     * Compressed
+     * the .huff message of one file, waiting to be written to the archive
+     */
+
+    private static class Compressed {
+
+        // the message, or null if it is in a temporary file
+        final ByteArrayOutputStream bytes;
+        // the temporary file holding the message, or null if it is in memory
+        final Path temp;
+        // the number of bytes in the original file
+        final long size;
+        // true if the message uses the shared table
+        final boolean shared;
+
+        Compressed(ByteArrayOutputStream bytes, Path temp, long size, boolean shared) {
+            this.bytes = bytes;
+            this.temp = temp;
+            this.size = size;
+            this.shared = shared;
+        }
+
+        /**
+         * writeTo
+         * writes the message to the archive, and deletes its temporary file
+         * Version 1.0
+         *
+         * @param output the archive
+         * @return the number of bytes written
+         * @throws IOException
+         */
+
+        long writeTo(OutputStream output) throws IOException {
+            if (bytes != null) {
+                bytes.writeTo(output);
+                return bytes.size();
+            }
+            try {
+                return Files.copy(temp, output);
+            } finally {
+                discard();
+            }
+        }// end writeTo
+
+        /**
+         * discard
+         * deletes the temporary file, if there is one
+         * Version 1.0
+         *
+         * @throws IOException
+         */
+
+        void discard() throws IOException {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }// end discard
+    }// end Compressed
+
+    /**
+     * create
+     * compresses every file in a folder and its sub folders into an archive
+     * Version 2.0
+     *
+     * @param folder     the folder
+     * @param archive    the archive file, it is skipped if it is inside the folder
+     * @param codec      the codec each file is compressed with, it can not use a codebook
+     * @param shareTable true to try one shared table on the small files
+     * @param threads    the number of files compressed at the same time
+     * @return the entries written, in the order of their names
+     * @throws IOException if a file could not be read or is too big for an entry
+     */
+
+    public static List<Entry> create(Path folder, Path archive, final HuffmanCodec codec, boolean shareTable, int threads)
+            throws IOException {
+        if (codec.hasCodebook()) {
+            throw new IllegalArgumentException("An archive keeps its own table, so it can not be made with a codebook");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("An archive needs at least one thread");
+        }
+        List<Path> files = listFiles(folder, archive);
+        List<Entry> entries = new ArrayList<Entry>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Compressed>> pending = new ArrayDeque<Future<Compressed>>();
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(archive), 1 << 16)) {
+            final Codebook table = shareTable ? trainTable(files, pool, threads) : null;
+            output.write(HuffmanFormat.MAGIC_1);
+            output.write(HuffmanFormat.MAGIC_2);
+            output.write(HuffmanFormat.ARCHIVE);
+            long position = HuffmanFormat.HEADER_SIZE;
+            boolean tableUsed = false;
+
+            // compress the files ahead of the one being written, but never more than two for each thread
+            int next = 0;
+            for (int i = 0; i < files.size(); i++) {
+                while (next < files.size() && next - i < 2 * threads) {
+                    final Path file = files.get(next++);
+                    pending.add(pool.submit(new Callable<Compressed>() {
+                        public Compressed call() throws IOException {
+                            return compressEntry(file, codec, table);
+                        }
+                    }));
+                }
+                Compressed message = join(pending.poll(), files.get(i));
+                long length = message.writeTo(output);
+                entries.add(new Entry(getName(folder, files.get(i)), position, length, message.size));
+                position += length;
+                tableUsed |= message.shared;
+            }
+
+            // the shared codebook is only kept if an entry needs it
+            long tablePosition = -1;
+            if (tableUsed) {
+                ByteArrayOutputStream book = new ByteArrayOutputStream();
+                table.write(book);
+                book.writeTo(output);
+                tablePosition = position;
+                position += book.size();
+            }
+            writeDirectory(entries, output);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            trailer.putLong(position).putLong(tablePosition);
+            output.write(trailer.array());
+        } finally {
+            // a file that failed leaves the ones after it waiting, the running ones are interrupted and the ones that
+            // never started are cancelled, since shutdownNow drops them without ever finishing their futures
+            pool.shutdownNow();
+            for (Future<Compressed> waiting : pending) {
+                waiting.cancel(false);
+            }
+            // only a file that was compressed has a temporary file to delete
+            for (Future<Compressed> waiting : pending) {
+                try {
+                    waiting.get().discard();
+                } catch (CancellationException | ExecutionException | InterruptedException | IOException e) {
+                    // nothing to delete
+                }
+            }
+        }
+        return entries;
+    }// end create
+
+    /**
+     * list
+     * Version 1.0
+     *
+     * @param archive the archive
+     * @return the entries in the central directory, in the order they were written
+     * @throws IOException if the file is not a valid archive
+     */
+
+    public static List<Entry> list(Path archive) throws IOException {
+        try (MappedInput input = new MappedInput(archive)) {
+            return readDirectory(input, readTrailer(input, archive), archive);
+        }
+    }// end list
+
+    /**
+     * extract
+     * decompresses one entry of an archive without reading the others
+     * Version 1.0
+     *
+     * @param archive the archive
+     * @param name    the name of the entry, as in the central directory
+     * @param out     the file the entry is decompressed into
+     * @throws IOException if the archive has no entry with the name or is not valid
+     */
+
+    public static void extract(Path archive, String name, Path out) throws IOException {
+        try (MappedInput input = new MappedInput(archive)) {
+            long[] trailer = readTrailer(input, archive);
+            for (Entry entry : readDirectory(input, trailer, archive)) {
+                if (entry.name.equals(name)) {
+                    extractEntry(input, entry, readTable(input, trailer, archive), out);
+                    return;
+                }
+            }
+        }
+        throw new IOException(archive + " has no entry " + name);
+    }// end extract
+
+    /**
+     * extractAll
+     * decompresses every entry of an archive into a folder, sub folders are made as needed
+     * Version 1.0
+     *
+     * @param archive the archive
+     * @param folder  the folder
+     * @return the entries
+     * @throws IOException if the archive is not valid or an entry name leaves the folder
+     */
+
+    public static List<Entry> extractAll(Path archive, Path folder) throws IOException {
+        try (MappedInput input = new MappedInput(archive)) {
+            long[] trailer = readTrailer(input, archive);
+            List<Entry> entries = readDirectory(input, trailer, archive);
+            Map<Integer, Codebook> codebooks = readTable(input, trailer, archive);
+            for (Entry entry : entries) {
+                Path out = resolve(folder, entry.name, archive);
+                Files.createDirectories(out.getParent());
+                extractEntry(input, entry, codebooks, out);
+            }
+            return entries;
+        }
+    }// end extractAll
+
+    /**
+     * resolve
+     * finds where an entry is extracted to, with its sub folders
+     * Version 1.0
+     *
+     * @param folder  the folder the archive is extracted into
+     * @param name    the name of the entry
+     * @param archive the archive, for the error
+     * @return the file of the entry inside the folder
+     * @throws IOException if the name leaves the folder
+     */
+
+    static Path resolve(Path folder, String name, Path archive) throws IOException {
+        Path root = folder.toAbsolutePath().normalize();
+        Path out = root.resolve(name).normalize();
+        if (!out.startsWith(root) || out.equals(root)) {
+            throw new IOException(archive + " has an entry outside of its folder: " + name);
+        }
+        return out;
+    }// end resolve
+
+    /**
+     * listFiles
+     * Version 1.0
+     *
+     * @param folder  the folder
+     * @param archive the archive being made, it is left out
+     * @return every file in the folder and its sub folders, sorted by name
+     * @throws IOException
+     */
+
+    private static List<Path> listFiles(Path folder, Path archive) throws IOException {
+        final Path skipped = archive.toAbsolutePath().normalize();
+        final List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && !file.toAbsolutePath().normalize().equals(skipped)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }// end listFiles
+
+    /**
+     * getName
+     * Version 1.0
+     *
+     * @param folder the folder being archived
+     * @param file   a file in the folder
+     * @return the name of the entry of the file
+     */
+
+    private static String getName(Path folder, Path file) {
+        return folder.relativize(file).toString().replace(File.separatorChar, '/');
+    }// end getName
+
+    /**
+     * trainTable
+     * counts the bytes of the small files on the pool and trains the shared codebook on them
+     * Version 1.0
+     *
+     * @param files   the files
+     * @param pool    the threads
+     * @param threads the number of threads
+     * @return the codebook, or null if there are no small files
+     * @throws IOException
+     */
+
+    private static Codebook trainTable(List<Path> files, ExecutorService pool, int threads) throws IOException {
+        List<Path> small = new ArrayList<Path>();
+        for (Path file : files) {
+            if (Files.size(file) <= SHARED_ENTRY_SIZE) {
+                small.add(file);
+            }
+        }
+        if (small.isEmpty()) {
+            return null;
+        }
+        long[] frequencies = new long[256];
+        ArrayDeque<Future<long[]>> pending = new ArrayDeque<Future<long[]>>();
+        int next = 0;
+        for (int i = 0; i < small.size(); i++) {
+            while (next < small.size() && next - i < 2 * threads) {
+                final Path file = small.get(next++);
+                pending.add(pool.submit(new Callable<long[]>() {
+                    public long[] call() throws IOException {
+                        try (MappedInput input = new MappedInput(file)) {
+                            return HuffmanEncoder.getFrequencies(input);
+                        }
+                    }
+                }));
+            }
+            Histogram.merge(frequencies, join(pending.poll(), small.get(i)));
+        }
+        return Codebook.train(SHARED_ID, frequencies, 0);
+    }// end trainTable
+
+    /**
+     * compressEntry
+     * Version 1.0
+     *
+     * @param file  the file
+     * @param codec the codec
+     * @param table the shared codebook, or null
+     * @return the .huff message of the file, with the shared table if that is smaller
+     * @throws IOException if the file could not be read or its message is too big for an entry
+     */
+
+    private static Compressed compressEntry(Path file, HuffmanCodec codec, Codebook table) throws IOException {
+        if (Files.size(file) > MEMORY_ENTRY_SIZE) {
+            Path temp = Files.createTempFile("huff", ".tmp");
+            try {
+                codec.compress(file, temp);
+                // an entry is mapped in one piece when it is extracted
+                if (Files.size(temp) > Integer.MAX_VALUE) {
+                    throw new IOException("The file is too big for an archive entry");
+                }
+                return new Compressed(null, temp, Files.size(file), false);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+        try (MappedInput input = new MappedInput(file)) {
+            long size = input.size();
+            ByteArrayOutputStream own = new ByteArrayOutputStream((int) (size / 2) + 64);
+            codec.compress(input, own);
+            if (table != null && size <= SHARED_ENTRY_SIZE) {
+                ByteArrayOutputStream shared = new ByteArrayOutputStream(own.size() + 16);
+                HuffmanEncoder.compressShared(input.range(0, size), shared, table);
+                if (shared.size() < own.size()) {
+                    return new Compressed(shared, null, size, true);
+                }
+            }
+            return new Compressed(own, null, size, false);
+        }
+    }// end compressEntry
+
+    /**
+     * join
+     * Version 1.0
+     *
+     * @param task the task of a file
+     * @param file the file, for the error
+     * @return the result of the task, after waiting for it
+     * @throws IOException the error of the task, with the name of the file
+     */
+
+    private static <T> T join(Future<T> task, Path file) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException(file + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }// end join
+
+    /**
+     * writeDirectory
+     * Version 1.0
+     *
+     * @param entries the entries
+     * @param output  the archive
+     * @throws IOException
+     */
+
+    private static void writeDirectory(List<Entry> entries, OutputStream output) throws IOException {
+        BitWriter writer = new BitWriter(output, 1 << 14);
+        writer.writeVarLong(entries.size());
+        for (Entry entry : entries) {
+            byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+            writer.writeVarLong(name.length);
+            writer.writeBytes(name, 0, name.length);
+            writer.writeVarLong(entry.offset);
+            writer.writeVarLong(entry.compressedSize);
+            writer.writeVarLong(entry.size);
+        }
+        writer.flush(false);
+        writer.release();
+    }// end writeDirectory
+
+    /**
+     * readTrailer
+     * Version 1.0
+     *
+     * @param input   the archive
+     * @param archive the name of the archive, for errors
+     * @return the position of the central directory and of the shared codebook (-1 if there is none)
+     * @throws IOException if the file is not an archive
+     */
+
+    private static long[] readTrailer(MappedInput input, Path archive) throws IOException {
+        long size = input.size();
+        if (size < HuffmanFormat.HEADER_SIZE + TRAILER_SIZE
+                || HuffmanFormat.getFormat(input.map(0, HuffmanFormat.HEADER_SIZE)) != HuffmanFormat.ARCHIVE) {
+            throw new IOException(archive + " is not an archive");
+        }
+        ByteBuffer trailer = input.map(size - TRAILER_SIZE, TRAILER_SIZE);
+        long directory = trailer.getLong(0);
+        long table = trailer.getLong(8);
+        if (directory < HuffmanFormat.HEADER_SIZE || directory > size - TRAILER_SIZE
+                || size - TRAILER_SIZE - directory > Integer.MAX_VALUE
+                || (table != -1 && (table < HuffmanFormat.HEADER_SIZE || table >= directory))) {
+            throw new IOException(archive + " is not a valid archive");
+        }
+        return new long[]{directory, table};
+    }// end readTrailer
+
+    /**
+     * readDirectory
+     * Version 1.0
+     *
+     * @param input   the archive
+     * @param trailer the positions from readTrailer
+     * @param archive the name of the archive, for errors
+     * @return the entries in the central directory
+     * @throws IOException if the central directory is not valid
+     */
+
+    private static List<Entry> readDirectory(MappedInput input, long[] trailer, Path archive) throws IOException {
+        long directory = trailer[0];
+        ByteBuffer data = input.map(directory, (int) (input.size() - TRAILER_SIZE - directory));
+        BitReader reader = new BitReader(data);
+        long count = reader.readVarLong();
+        // every entry takes at least 4 bytes, a 10 byte number can be negative
+        if (count < 0 || count > data.capacity() / 4) {
+            throw new IOException(archive + " has a central directory that is not valid");
+        }
+        List<Entry> entries = new ArrayList<Entry>((int) count);
+        for (long i = 0; i < count; i++) {
+            long nameLength = reader.readVarLong();
+            if (nameLength < 0 || nameLength > data.capacity()) {
+                throw new IOException(archive + " has a central directory that is not valid");
+            }
+            byte[] name = new byte[(int) nameLength];
+            for (int j = 0; j < name.length; j++) {
+                name[j] = (byte) reader.readBits(8);
+            }
+            long offset = reader.readVarLong();
+            long compressedSize = reader.readVarLong();
+            long size = reader.readVarLong();
+            if (offset < HuffmanFormat.HEADER_SIZE || compressedSize < 0 || compressedSize > Integer.MAX_VALUE
+                    || offset > directory - compressedSize || size < 0) {
+                throw new IOException(archive + " has an entry that is not valid");
+            }
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), offset, compressedSize, size));
+        }
+        return entries;
+    }// end readDirectory
+
+    /**
+     * readTable
+     * Version 1.0
+     *
+     * @param input   the archive
+     * @param trailer the positions from readTrailer
+     * @param archive the name of the archive, for errors
+     * @return the shared codebook by id, empty if the archive has none
+     * @throws IOException if the codebook is not valid
+     */
+
+    private static Map<Integer, Codebook> readTable(MappedInput input, long[] trailer, Path archive) throws IOException {
+        Map<Integer, Codebook> codebooks = new HashMap<Integer, Codebook>();
+        if (trailer[1] != -1) {
+            Codebook table = Codebook.read(input.map(trailer[1], (int) (trailer[0] - trailer[1])), archive + " table");
+            codebooks.put(table.id, table);
+        }
+        return codebooks;
+    }// end readTable
+
+    /**
+     * extractEntry
+     * Version 1.0
+     *
+     * @param input     the archive
+     * @param entry     the entry
+     * @param codebooks the shared codebook by id
+     * @param out       the file the entry is decompressed into
+     * @throws IOException if the entry is not valid
+     */
+
+    private static void extractEntry(MappedInput input, Entry entry, Map<Integer, Codebook> codebooks, Path out) throws IOException {
+        // the message is read as an input of its own, so the decoders see where it ends
+        try (MappedInput message = new MappedInput(input.map(entry.offset, (int) entry.compressedSize));
+             FileChannel output = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            HuffmanDecoder.decompress(message, output, codebooks);
+        }
+    }// end extractEntry
+}// end HuffmanArchive
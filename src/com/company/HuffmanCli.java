@@ -0,0 +1,607 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Huffman Cli
+ *
+ * Compresses or decompresses many files from the command line with no dialogs, several files at the same time in
+ * one JVM
+ * Usage: HuffmanCli compress|decompress [options] file... (or @list for a file with one file name on each line, or -
+ * to read standard input and write standard output)
+ * or: HuffmanCli train [-id n] [-l bits] codebook sample... to train a codebook (see Codebook) on sample files
+ * or: HuffmanCli archive [options] [-s] folder... to pack each folder into one archive (see HuffmanArchive), -s shares
+ * one table between the small files
+ * or: HuffmanCli extract [-o dir] archive [entry...] to unpack an archive, or only the entries named
+ * or: HuffmanCli list archive... to print the entries of archives
+ * Options:
+ * -o dir     write the output files into dir instead of next to the input files
+ * -j threads the number of files processed at the same time (default the number of processors)
+ * -b kb      compress into blocks of kb KB that are encoded in parallel
+ * -l bits    the longest code allowed
+ * -i         add a seek index
+ * -legacy    write the original .huff table instead of the canonical table
+ * -adaptive  write the single pass adaptive format, which starts writing before the whole input has been read
+ * -4         write the interleaved format, four streams that are decoded at the same time
+ * -context   write the context format, the code of each byte depends on the byte before it (smaller for text and logs)
+ * -bwt       transform each block (of -b kb, 1 MB by default) like bzip2 before it is coded, the smallest for text
+ * -lz level  replace repeated strings with matches like DEFLATE, level 1 (fastest) to 9 (smallest)
+ * -p         read and write each file on their own threads while it is coded, for slow or network storage
+ * -s         share one table between the small files of an archive
+ * -c file    compress with a trained codebook instead of a table for each file, or decompress files that use it (can
+ *            be given more than once, the first codebook is used to compress)
+ * Compressed files get the .huff extension, decompressed files lose it (or get .out if they do not have it)
+ * Archives get the .harc extension and are extracted into a folder with the name of the archive without it
+ */
+
+public class HuffmanCli {
+
+    // the extension of compressed files
+    static final String EXTENSION = ".huff";
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            System.exit(2);
+        }
+        System.exit(run(args[0], args, 1));
+    }// end main
+
+    /**
+     * run
+     * reads the options and the file names and processes every file
+     * Version 2.0
+     *
+     * @param mode  compress, decompress, archive, extract, list or train
+     * @param args  the command line
+     * @param first the first argument after the mode
+     * @return the exit status, 0 if every file worked, 1 if a file failed, 2 if the command line is wrong
+     */
+
+    static int run(String mode, String[] args, int first) {
+        boolean compress;
+        boolean archive = false;
+        if (mode.equals("compress")) {
+            compress = true;
+        } else if (mode.equals("decompress")) {
+            compress = false;
+        } else if (mode.equals("archive")) {
+            compress = true;
+            archive = true;
+        } else if (mode.equals("extract")) {
+            return extract(args, first);
+        } else if (mode.equals("list")) {
+            return list(args, first);
+        } else if (mode.equals("train")) {
+            return train(args, first);
+        } else {
+            usage();
+            return 2;
+        }
+
+        // read the options and the file names
+        Path outDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int blockSize = 0;
+        int maxLength = 0;
+        int indexInterval = 0;
+        boolean canonical = true;
+        boolean adaptive = false;
+        boolean interleaved = false;
+        boolean context = false;
+        boolean bwt = false;
+        boolean pipelined = false;
+        boolean shareTable = false;
+        int level = -1;
+        List<Path> codebookFiles = new ArrayList<Path>();
+        List<Path> files = new ArrayList<Path>();
+        try {
+            for (int i = first; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-o")) {
+                    outDir = Paths.get(args[++i]);
+                } else if (arg.equals("-j")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (arg.equals("-b")) {
+                    blockSize = Integer.parseInt(args[++i]) * 1024;
+                } else if (arg.equals("-l")) {
+                    maxLength = Integer.parseInt(args[++i]);
+                } else if (arg.equals("-i")) {
+                    indexInterval = SeekIndex.DEFAULT_INTERVAL;
+                } else if (arg.equals("-legacy")) {
+                    canonical = false;
+                } else if (arg.equals("-adaptive")) {
+                    adaptive = true;
+                } else if (arg.equals("-4")) {
+                    interleaved = true;
+                } else if (arg.equals("-context")) {
+                    context = true;
+                } else if (arg.equals("-bwt")) {
+                    bwt = true;
+                } else if (arg.equals("-lz")) {
+                    level = Integer.parseInt(args[++i]);
+                } else if (arg.equals("-p")) {
+                    pipelined = true;
+                } else if (arg.equals("-s")) {
+                    shareTable = true;
+                } else if (arg.equals("-c")) {
+                    codebookFiles.add(Paths.get(args[++i]));
+                } else if (arg.startsWith("@")) {
+                    readList(arg, files);
+                } else if (arg.startsWith("-") && !arg.equals("-")) {
+                    System.err.println("Unknown option " + arg);
+                    usage();
+                    return 2;
+                } else {
+                    files.add(Paths.get(arg));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            usage();
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Could not read the file list: " + e.getMessage());
+            return 2;
+        }
+        if (files.isEmpty() || threads < 1 || (archive && !codebookFiles.isEmpty()) || (shareTable && !archive)) {
+            usage();
+            return 2;
+        }
+        // each file gets one format, so options for two formats are refused instead of one of them being dropped
+        List<String> formats = new ArrayList<String>();
+        if (!codebookFiles.isEmpty()) {
+            formats.add("-c");
+        }
+        if (adaptive) {
+            formats.add("-adaptive");
+        }
+        if (interleaved) {
+            formats.add("-4");
+        }
+        if (context) {
+            formats.add("-context");
+        }
+        if (bwt) {
+            formats.add("-bwt");
+        }
+        if (level >= 0) {
+            formats.add("-lz");
+        }
+        String conflict = null;
+        if (formats.size() > 1) {
+            conflict = formats.get(0) + " and " + formats.get(1);
+        } else if (!canonical && (!formats.isEmpty() || blockSize > 0 || indexInterval > 0)) {
+            conflict = "-legacy and " + (!formats.isEmpty() ? formats.get(0) : blockSize > 0 ? "-b" : "-i");
+        } else if (indexInterval > 0 && (!formats.isEmpty() || blockSize > 0)) {
+            conflict = "-i and " + (!formats.isEmpty() ? formats.get(0) : "-b");
+        } else if (blockSize > 0 && !formats.isEmpty() && !bwt) {
+            conflict = "-b and " + formats.get(0);
+        } else if (maxLength > 0 && (adaptive || !codebookFiles.isEmpty())) {
+            conflict = "-l and " + formats.get(0);
+        }
+        if (conflict != null) {
+            System.err.println("The options " + conflict + " can not be used together");
+            usage();
+            return 2;
+        }
+
+        // one codec is shared by every thread
+        HuffmanCodec codec;
+        try {
+            if (!codebookFiles.isEmpty()) {
+                Codebook[] codebooks = new Codebook[codebookFiles.size()];
+                for (int i = 0; i < codebooks.length; i++) {
+                    codebooks[i] = Codebook.read(codebookFiles.get(i));
+                }
+                codec = HuffmanCodec.shared(codebooks);
+            } else if (adaptive) {
+                codec = HuffmanCodec.adaptive();
+            } else if (interleaved) {
+                codec = HuffmanCodec.interleaved(maxLength);
+            } else if (context) {
+                codec = HuffmanCodec.context(maxLength);
+            } else if (bwt) {
+                codec = HuffmanCodec.bwt(blockSize, maxLength);
+            } else if (level >= 0) {
+                codec = HuffmanCodec.lz77(level, maxLength);
+            } else {
+                codec = new HuffmanCodec(canonical, blockSize, maxLength, indexInterval);
+            }
+            if (pipelined) {
+                codec = codec.pipelined();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Could not read the codebook: " + e.getMessage());
+            return 2;
+        }
+        if (archive) {
+            return archiveAll(codec, shareTable, files, outDir, threads);
+        }
+        // - pipes standard input to standard output
+        if (files.size() == 1 && files.get(0).toString().equals("-")) {
+            return pipe(codec, compress);
+        }
+        return processAll(codec, compress, files, outDir, threads);
+    }// end run
+
+    /**
+     * train
+     * trains a codebook on sample files and writes it to a codebook file
+     * Version 1.0
+     *
+     * @param args  the command line
+     * @param first the first argument after the mode
+     * @return 0 if it worked, 1 if a file could not be read or written, 2 if the command line is wrong
+     */
+
+    private static int train(String[] args, int first) {
+        int id = 1;
+        int maxLength = 0;
+        Path output = null;
+        List<Path> samples = new ArrayList<Path>();
+        try {
+            for (int i = first; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-id")) {
+                    id = Integer.parseInt(args[++i]);
+                } else if (arg.equals("-l")) {
+                    maxLength = Integer.parseInt(args[++i]);
+                } else if (arg.startsWith("@")) {
+                    readList(arg, samples);
+                } else if (arg.startsWith("-")) {
+                    System.err.println("Unknown option " + arg);
+                    usage();
+                    return 2;
+                } else if (output == null) {
+                    output = Paths.get(arg);
+                } else {
+                    samples.add(Paths.get(arg));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            usage();
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Could not read the file list: " + e.getMessage());
+            return 2;
+        }
+        if (output == null || samples.isEmpty() || id < 0 || maxLength < 0) {
+            usage();
+            return 2;
+        }
+
+        try (OutputStream out = Files.newOutputStream(output)) {
+            Codebook codebook = Codebook.train(id, samples, maxLength);
+            codebook.write(out);
+            System.out.println(output + ": codebook " + id + " trained on " + samples.size() + " files");
+            return 0;
+        } catch (IOException e) {
+            System.err.println(output + ": " + e);
+            return 1;
+        }
+    }// end train
+
+    /**
+     * archiveAll
+     * packs each folder into an archive and prints the result of each one
+     * Version 1.0
+     *
+     * @param codec      the codec
+     * @param shareTable true to share one table between the small files
+     * @param folders    the folders
+     * @param outDir     the folder of the archives, or null to write them next to the folders
+     * @param threads    the number of files compressed at the same time
+     * @return 0 if every folder worked, 1 if a folder failed
+     */
+
+    private static int archiveAll(HuffmanCodec codec, boolean shareTable, List<Path> folders, Path outDir, int threads) {
+        int status = 0;
+        for (Path folder : folders) {
+            Path name = folder.toAbsolutePath().normalize().getFileName();
+            String archiveName = (name != null ? name.toString() : "archive") + HuffmanArchive.EXTENSION;
+            Path out = outDir != null ? outDir.resolve(archiveName) : folder.toAbsolutePath().normalize().resolveSibling(archiveName);
+            try {
+                if (!Files.isDirectory(folder)) {
+                    throw new IOException("Not a folder");
+                }
+                long startTime = System.nanoTime();
+                List<HuffmanArchive.Entry> entries = HuffmanArchive.create(folder, out, codec, shareTable, threads);
+                long time = (System.nanoTime() - startTime) / 1000000;
+                long size = 0;
+                for (HuffmanArchive.Entry entry : entries) {
+                    size += entry.getSize();
+                }
+                System.out.println(folder + " (" + entries.size() + " files, " + size + " bytes) -> " + out + " ("
+                        + Files.size(out) + " bytes) in " + time + " ms");
+            } catch (IOException e) {
+                System.err.println(folder + ": " + e);
+                status = 1;
+            }
+        }
+        return status;
+    }// end archiveAll
+
+    /**
+     * extract
+     * unpacks an archive into a folder
+     * Version 2.0
+     *
+     * @param args  the command line
+     * @param first the first argument after the mode
+     * @return 0 if it worked, 1 if the archive could not be read or written, 2 if the command line is wrong
+     */
+
+    private static int extract(String[] args, int first) {
+        Path outDir = null;
+        Path archive = null;
+        List<String> names = new ArrayList<String>();
+        try {
+            for (int i = first; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-o")) {
+                    outDir = Paths.get(args[++i]);
+                } else if (arg.startsWith("-")) {
+                    System.err.println("Unknown option " + arg);
+                    usage();
+                    return 2;
+                } else if (archive == null) {
+                    archive = Paths.get(arg);
+                } else {
+                    names.add(arg);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            usage();
+            return 2;
+        }
+        if (archive == null) {
+            usage();
+            return 2;
+        }
+        if (outDir == null) {
+            String name = archive.getFileName().toString();
+            if (name.endsWith(HuffmanArchive.EXTENSION) && name.length() > HuffmanArchive.EXTENSION.length()) {
+                name = name.substring(0, name.length() - HuffmanArchive.EXTENSION.length());
+            } else {
+                name += ".out";
+            }
+            outDir = archive.resolveSibling(name);
+        }
+
+        try {
+            long startTime = System.nanoTime();
+            int count = names.size();
+            if (names.isEmpty()) {
+                count = HuffmanArchive.extractAll(archive, outDir).size();
+            } else {
+                // each entry keeps its sub folders, as when the whole archive is extracted
+                for (String name : names) {
+                    Path out = HuffmanArchive.resolve(outDir, name, archive);
+                    Files.createDirectories(out.getParent());
+                    HuffmanArchive.extract(archive, name, out);
+                }
+            }
+            long time = (System.nanoTime() - startTime) / 1000000;
+            System.out.println(archive + " -> " + outDir + " (" + count + " files) in " + time + " ms");
+            return 0;
+        } catch (IOException e) {
+            System.err.println(archive + ": " + e);
+            return 1;
+        }
+    }// end extract
+
+    /**
+     * list
+     * prints the size, the compressed size and the name of every entry of archives
+     * Version 1.0
+     *
+     * @param args  the command line
+     * @param first the first argument after the mode
+     * @return 0 if every archive could be read, 1 if one could not, 2 if the command line is wrong
+     */
+
+    private static int list(String[] args, int first) {
+        if (first >= args.length) {
+            usage();
+            return 2;
+        }
+        int status = 0;
+        for (int i = first; i < args.length; i++) {
+            Path archive = Paths.get(args[i]);
+            try {
+                for (HuffmanArchive.Entry entry : HuffmanArchive.list(archive)) {
+                    System.out.println(entry.getSize() + "\t" + entry.getCompressedSize() + "\t" + entry.getName());
+                }
+            } catch (IOException e) {
+                System.err.println(archive + ": " + e);
+                status = 1;
+            }
+        }
+        return status;
+    }// end list
+
+    /**
+     * readList
+     * reads a file with one file name on each line, blank lines are skipped
+     * Version 1.0
+     *
+     * @param arg   @ and the name of the list
+     * @param files the list the file names are added to
+     * @throws IOException
+     */
+
+    private static void readList(String arg, List<Path> files) throws IOException {
+        for (String line : Files.readAllLines(Paths.get(arg.substring(1)), StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                files.add(Paths.get(line.trim()));
+            }
+        }
+    }// end readList
+
+    /**
+     * pipe
+     * compresses or decompresses standard input into standard output, the cost of a length limit goes to standard error
+     * Version 2.0
+     *
+     * @param codec    the codec
+     * @param compress true to compress, false to decompress
+     * @return 0 if it worked, 1 if it failed
+     */
+
+    private static int pipe(HuffmanCodec codec, boolean compress) {
+        try {
+            if (compress) {
+                LimitCost cost = codec.compress(System.in, System.out);
+                if (cost.getMaxLength() > 0) {
+                    System.err.println("-: " + cost);
+                }
+            } else {
+                codec.decompress(System.in, System.out);
+            }
+            System.out.flush();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("-: " + e);
+            return 1;
+        }
+    }// end pipe
+
+    /**
+     * processAll
+     * compresses or decompresses every file on a pool of threads, and prints the result of each file
+     * Version 1.0
+     *
+     * @param codec    the codec
+     * @param compress true to compress, false to decompress
+     * @param files    the input files
+     * @param outDir   the folder of the output files, or null to write them next to the input files
+     * @param threads  the number of files processed at the same time
+     * @return 0 if every file worked, 1 if a file failed
+     */
+
+    private static int processAll(final HuffmanCodec codec, final boolean compress, List<Path> files, final Path outDir, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (final Path file : files) {
+            results.add(pool.submit(new Callable<String>() {
+                public String call() throws IOException {
+                    return process(codec, compress, file, outDir);
+                }
+            }));
+        }
+        pool.shutdown();
+
+        // print the results in the order of the files
+        int status = 0;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                System.out.println(results.get(i).get());
+            } catch (ExecutionException e) {
+                System.err.println(files.get(i) + ": " + e.getCause());
+                status = 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+                return 1;
+            }
+        }
+        return status;
+    }// end processAll
+
+    /**
+     * process
+     * compresses or decompresses one file
+     * Version 2.0
+     *
+     * @param codec    the codec
+     * @param compress true to compress, false to decompress
+     * @param file     the input file
+     * @param outDir   the folder of the output file, or null to write it next to the input file
+     * @return a line that describes the result, with what the limit on the length of the codes cost if there is one
+     * @throws IOException
+     */
+
+    private static String process(HuffmanCodec codec, boolean compress, Path file, Path outDir) throws IOException {
+        Path out = getOutput(compress, file, outDir);
+        long startTime = System.nanoTime();
+        String limitReport = "";
+        if (compress) {
+            LimitCost cost = codec.compress(file, out);
+            if (cost.getMaxLength() > 0) {
+                limitReport = ", " + cost;
+            }
+        } else {
+            codec.decompress(file, out);
+        }
+        long time = (System.nanoTime() - startTime) / 1000000;
+        return file + " (" + Files.size(file) + " bytes) -> " + out + " (" + Files.size(out) + " bytes) in " + time + " ms"
+                + limitReport;
+    }// end process
+
+    /**
+     * getOutput
+     * Version 1.0
+     *
+     * @param compress true to compress, false to decompress
+     * @param file     the input file
+     * @param outDir   the folder of the output file, or null to write it next to the input file
+     * @return the name of the output file
+     */
+
+    static Path getOutput(boolean compress, Path file, Path outDir) {
+        String name = file.getFileName().toString();
+        if (compress) {
+            name += EXTENSION;
+        } else if (name.endsWith(EXTENSION) && name.length() > EXTENSION.length()) {
+            name = name.substring(0, name.length() - EXTENSION.length());
+        } else {
+            name += ".out";
+        }
+        return outDir != null ? outDir.resolve(name) : file.resolveSibling(name);
+    }// end getOutput
+
+    /**
+     * usage
+     * prints how to use the command line
+     * Version 1.0
+     */
+
+    private static void usage() {
+        System.err.println("Usage: HuffmanCli compress|decompress [options] file... (or @list, or - for a pipe)");
+        System.err.println("   or: HuffmanCli train [-id n] [-l bits] codebook sample... (or @list)");
+        System.err.println("   or: HuffmanCli archive [options] [-s] folder...");
+        System.err.println("   or: HuffmanCli extract [-o dir] archive [entry...]");
+        System.err.println("   or: HuffmanCli list archive...");
+        System.err.println("  -o dir      write the output files into dir");
+        System.err.println("  -j threads  the number of files processed at the same time");
+        System.err.println("  -b kb       compress into blocks of kb KB that are encoded in parallel");
+        System.err.println("  -l bits     the longest code allowed");
+        System.err.println("  -i          add a seek index");
+        System.err.println("  -legacy     write the original .huff table");
+        System.err.println("  -adaptive   write the single pass adaptive format");
+        System.err.println("  -4          write four interleaved streams, which decode faster on one core");
+        System.err.println("  -context    use a table for each group of previous bytes, smaller for text and logs");
+        System.err.println("  -bwt        sort each block like bzip2 before it is coded, the smallest for text");
+        System.err.println("  -lz level   replace repeated strings like DEFLATE, level 1 (fastest) to 9 (smallest)");
+        System.err.println("  -p          read and write on their own threads, for slow or network storage");
+        System.err.println("  -s          share one table between the small files of an archive");
+        System.err.println("  -c file     use a trained codebook instead of a table for each file");
+    }// end usage
+}// end HuffmanCli
@@ -0,0 +1,514 @@
+package com.company;
+
+//imports
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Huffman Codec
+ *
+ * Compresses and decompresses .huff data without any dialogs, so it can be used inside other programs and on servers
+ * The settings are fixed when the codec is made and nothing else is stored, so one codec can be used by many threads
+ * at the same time
+ * Streams are copied to a temporary file first, because the encoder reads its input twice (once to count the bytes)
+ * and the decoder jumps around the encoded file when it decodes in parallel, except in the adaptive format, which is
+ * encoded and decoded as the stream goes by
+ * A codec made with codebooks (see Codebook) writes small messages with the id of a codebook in place of the table,
+ * and can decode messages made with any of its codebooks
+ */
+
+public class HuffmanCodec {
+
+    // true for the canonical table, false for the original .huff table
+    private final boolean canonical;
+    // the number of bytes in each block of the block format, 0 for one stream
+    private final int blockSize;
+    // the longest code allowed, 0 for no limit
+    private final int maxLength;
+    // the number of bytes between two seek index points, 0 for no index
+    private final int indexInterval;
+    // the adaptive, interleaved, context, BWT or LZ77 format byte for the codecs of those formats, 0 for the format chosen by
+    // the other settings
+    private final int format;
+    // the level of the LZ77 format, 0 for the default
+    private final int level;
+    // the codebook used to compress, or null to build a code for each file
+    private final Codebook codebook;
+    // the codebooks that can be used to decompress, by id
+    private final Map<Integer, Codebook> codebooks;
+    // true to read and write files on their own threads while the coder runs (see Pipeline)
+    private final boolean pipelined;
+
+    /**
+     * creates a codec that writes the canonical format as one stream with no limit on the code length
+     */
+
+    public HuffmanCodec() {
+        this(true, 0, 0, 0);
+    }
+
+    /**
+     * @param canonical     true for the canonical table, false for the original .huff table
+     * @param blockSize     the number of bytes in each block of the block format, 0 for one stream (canonical only)
+     * @param maxLength     the longest code allowed, 0 for no limit
+     * @param indexInterval the number of bytes between two seek index points, 0 for no index (canonical one stream only)
+     * @throws IllegalArgumentException if blocks or an index are asked for without the canonical table, or together
+     */
+
+    public HuffmanCodec(boolean canonical, int blockSize, int maxLength, int indexInterval) {
+        this(canonical, blockSize, maxLength, indexInterval, 0, 0, new Codebook[0], false);
+        if (!canonical && (blockSize > 0 || indexInterval > 0)) {
+            throw new IllegalArgumentException("The original .huff table can not be used with blocks or a seek index");
+        }
+        if (blockSize > 0 && indexInterval > 0) {
+            throw new IllegalArgumentException("Blocks and a seek index can not be used together");
+        }
+    }
+
+    private HuffmanCodec(boolean canonical, int blockSize, int maxLength, int indexInterval, int format, int level,
+                         Codebook[] codebooks, boolean pipelined) {
+        if (blockSize < 0 || maxLength < 0 || indexInterval < 0) {
+            throw new IllegalArgumentException("The block size, the maximum code length and the index interval can not be negative");
+        }
+        checkMaxLength(maxLength, format);
+        this.canonical = canonical;
+        this.blockSize = blockSize;
+        this.maxLength = maxLength;
+        this.indexInterval = indexInterval;
+        this.format = format;
+        this.level = level;
+        this.codebook = codebooks.length > 0 ? codebooks[0] : null;
+        Map<Integer, Codebook> byId = new HashMap<Integer, Codebook>();
+        for (Codebook book : codebooks) {
+            if (byId.put(book.id, book) != null) {
+                throw new IllegalArgumentException("Two codebooks have the id " + book.id);
+            }
+        }
+        this.codebooks = Collections.unmodifiableMap(byId);
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * checkMaxLength
+     * a limit on the code length must leave room for a code for every symbol of the alphabet of the format
+     * Version 1.0
+     *
+     * @param maxLength the longest code allowed, 0 for no limit
+     * @param format    the format byte, 0 for the canonical formats
+     * @throws IllegalArgumentException if the limit is too short for the alphabet
+     */
+
+    private static void checkMaxLength(int maxLength, int format) {
+        int alphabetSize = 256;
+        if (format == HuffmanFormat.BWT) {
+            alphabetSize = BwtEncoder.ALPHABET_SIZE;
+        } else if (format == HuffmanFormat.LZ77) {
+            alphabetSize = Math.max(Lz77Encoder.LITERAL_LENGTH_SIZE, Lz77Encoder.DISTANCE_CODES);
+        }
+        // the shortest limit with 2^limit >= alphabetSize
+        int shortest = 32 - Integer.numberOfLeadingZeros(alphabetSize - 1);
+        if (maxLength != 0 && maxLength < shortest) {
+            throw new IllegalArgumentException("A maximum code length of " + maxLength + " bits can not give each of the "
+                    + alphabetSize + " symbols of this format a code, it must be at least " + shortest);
+        }
+    }// end checkMaxLength
+
+    /**
+     * adaptive
+     * Version 1.0
+     *
+     * @return a codec that writes the single pass adaptive format (see AdaptiveHuffman)
+     */
+
+    public static HuffmanCodec adaptive() {
+        return new HuffmanCodec(true, 0, 0, 0, HuffmanFormat.ADAPTIVE, 0, new Codebook[0], false);
+    }// end adaptive
+
+    /**
+     * interleaved
+     * Version 1.0
+     *
+     * @param maxLength the longest code allowed, 0 for no limit
+     * @return a codec that writes the interleaved format, which decodes faster on one core
+     */
+
+    public static HuffmanCodec interleaved(int maxLength) {
+        return new HuffmanCodec(true, 0, maxLength, 0, HuffmanFormat.INTERLEAVED, 0, new Codebook[0], false);
+    }// end interleaved
+
+    /**
+     * context
+     * Version 1.0
+     *
+     * @param maxLength the longest code allowed, 0 for no limit
+     * @return a codec that writes the context format, where the code of each byte depends on the byte before it (see
+     * ContextEncoder)
+     */
+
+    public static HuffmanCodec context(int maxLength) {
+        return new HuffmanCodec(true, 0, maxLength, 0, HuffmanFormat.CONTEXT, 0, new Codebook[0], false);
+    }// end context
+
+    /**
+     * bwt
+     * Version 1.0
+     *
+     * @param blockSize the number of bytes in each block, 0 for HuffmanFormat.DEFAULT_BLOCK_SIZE
+     * @param maxLength the longest code allowed, 0 for BwtEncoder.DEFAULT_MAX_LENGTH
+     * @return a codec that writes the BWT format, where each block is transformed before it is coded (see BwtEncoder)
+     */
+
+    public static HuffmanCodec bwt(int blockSize, int maxLength) {
+        if (blockSize > BwtEncoder.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The block size of the BWT format can not be more than "
+                    + BwtEncoder.MAX_BLOCK_SIZE);
+        }
+        return new HuffmanCodec(true, blockSize, maxLength, 0, HuffmanFormat.BWT, 0, new Codebook[0], false);
+    }// end bwt
+
+    /**
+     * lz77
+     * Version 1.0
+     *
+     * @param level     1 (fastest) to 9 (smallest), 0 for Lz77Encoder.DEFAULT_LEVEL
+     * @param maxLength the longest code allowed, 0 for Lz77Encoder.DEFAULT_MAX_LENGTH
+     * @return a codec that writes the LZ77 format, where repeated strings are replaced by their length and distance
+     * (see Lz77Encoder)
+     */
+
+    public static HuffmanCodec lz77(int level, int maxLength) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("The level must be from 1 to 9");
+        }
+        return new HuffmanCodec(true, 0, maxLength, 0, HuffmanFormat.LZ77, level, new Codebook[0], false);
+    }// end lz77
+
+    /**
+     * shared
+     * Version 1.0
+     *
+     * @param codebooks the codebooks, the first one is used to compress and any of them can be used to decompress
+     * @return a codec that writes the shared format (see Codebook)
+     */
+
+    public static HuffmanCodec shared(Codebook... codebooks) {
+        if (codebooks.length == 0) {
+            throw new IllegalArgumentException("A shared codec needs at least one codebook");
+        }
+        return new HuffmanCodec(true, 0, 0, 0, 0, 0, codebooks.clone(), false);
+    }// end shared
+
+    /**
+     * pipelined
+     * Version 1.0
+     *
+     * @return a codec with the same settings that reads the input file ahead and writes the output file behind on their
+     * own threads while the coder runs, for files on slow or network storage (see Pipeline), streams and buffers are
+     * coded the same way as before
+     */
+
+    public HuffmanCodec pipelined() {
+        List<Codebook> books = new ArrayList<Codebook>();
+        if (codebook != null) {
+            // the codebook used to compress stays first
+            books.add(codebook);
+            for (Codebook book : codebooks.values()) {
+                if (book != codebook) {
+                    books.add(book);
+                }
+            }
+        }
+        return new HuffmanCodec(canonical, blockSize, maxLength, indexInterval, format, level,
+                books.toArray(new Codebook[books.size()]), true);
+    }// end pipelined
+
+    /**
+     * hasCodebook
+     * Version 1.0
+     *
+     * @return true if the codec compresses with a codebook instead of a table for each file
+     */
+
+    boolean hasCodebook() {
+        return codebook != null;
+    }// end hasCodebook
+
+    /**
+     * compress
+     * compresses a file into a .huff file
+     * Version 3.0
+     *
+     * @param in  the file to be compressed
+     * @param out the .huff file
+     * @return what the limit on the length of the codes cost
+     * @throws IOException
+     */
+
+    public LimitCost compress(Path in, Path out) throws IOException {
+        try (MappedInput input = new MappedInput(in, pipelined);
+             OutputStream output = pipelined ? Pipeline.writer(Files.newOutputStream(out)) : Files.newOutputStream(out)) {
+            return compress(input, output);
+        }
+    }// end compress
+
+    /**
+     * compress
+     * compresses everything left in a stream, the streams are not closed
+     * Version 2.0
+     *
+     * @param in  the stream to be compressed
+     * @param out the stream the .huff data is written to
+     * @return what the limit on the length of the codes cost
+     * @throws IOException
+     */
+
+    public LimitCost compress(InputStream in, OutputStream out) throws IOException {
+        // the adaptive format does not need the whole input first
+        if (format == HuffmanFormat.ADAPTIVE) {
+            compressAdaptive(in, out);
+            return new LimitCost(maxLength);
+        }
+        Path temp = spool(in);
+        try {
+            try (MappedInput input = new MappedInput(temp)) {
+                return compress(input, out);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }// end compress
+
+    /**
+     * compress
+     * compresses the bytes from the position to the limit of a buffer, the position of the buffer is not changed
+     * Version 1.0
+     *
+     * @param in the bytes to be compressed
+     * @return a new buffer holding the .huff data
+     * @throws IOException
+     */
+
+    public ByteBuffer compress(ByteBuffer in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.remaining() / 2 + 64);
+        try (MappedInput input = new MappedInput(in)) {
+            compress(input, out);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }// end compress
+
+    /**
+     * decompress
+     * decompresses a .huff file in any format
+     * Version 2.0
+     *
+     * @param in  the .huff file
+     * @param out the decoded file
+     * @throws IOException if the .huff file is not valid
+     */
+
+    public void decompress(Path in, Path out) throws IOException {
+        try (MappedInput input = new MappedInput(in, pipelined);
+             FileChannel output = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (!pipelined) {
+                HuffmanDecoder.decompress(input, output, codebooks);
+                return;
+            }
+            // closing the writer stage waits for the last chunk before the file is closed
+            try (OutputStream staged = Pipeline.writer(Channels.newOutputStream(output))) {
+                HuffmanDecoder.decompress(input, Channels.newChannel(staged), codebooks);
+            }
+        }
+    }// end decompress
+
+    /**
+     * decompress
+     * decompresses all the .huff data left in a stream, the streams are not closed
+     * Version 1.0
+     *
+     * @param in  the stream of .huff data
+     * @param out the stream the decoded bytes are written to
+     * @throws IOException if the data is not valid
+     */
+
+    public void decompress(InputStream in, OutputStream out) throws IOException {
+        // look at the format, the adaptive format is decoded as it arrives
+        in = new BufferedInputStream(in);
+        in.mark(HuffmanFormat.HEADER_SIZE);
+        byte[] header = new byte[HuffmanFormat.HEADER_SIZE];
+        int count = 0;
+        int read;
+        while (count < header.length && (read = in.read(header, count, header.length - count)) > 0) {
+            count += read;
+        }
+        in.reset();
+        if (HuffmanFormat.getFormat(ByteBuffer.wrap(header, 0, count)) == HuffmanFormat.ADAPTIVE) {
+            copy(new AdaptiveHuffmanInputStream(in), out);
+            return;
+        }
+        Path temp = spool(in);
+        try {
+            try (MappedInput input = new MappedInput(temp)) {
+                HuffmanDecoder.decompress(input, Channels.newChannel(out), codebooks);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }// end decompress
+
+    /**
+     * decompress
+     * decompresses the .huff data from the position to the limit of a buffer, the position of the buffer is not changed
+     * Version 1.0
+     *
+     * @param in the .huff data
+     * @return a new buffer holding the decoded bytes
+     * @throws IOException if the data is not valid
+     */
+
+    public ByteBuffer decompress(ByteBuffer in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.remaining() * 2 + 64);
+        try (MappedInput input = new MappedInput(in)) {
+            HuffmanDecoder.decompress(input, Channels.newChannel(out), codebooks);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }// end decompress
+
+    /**
+     * decompressRange
+     * decodes part of a .huff file in the indexed format without decoding the whole file
+     * Version 1.0
+     *
+     * @param in     the .huff file
+     * @param offset the position in the original file of the first byte to decode
+     * @param length the number of bytes to decode, fewer are decoded if the original file ends first
+     * @return the decoded bytes
+     * @throws IOException              if the file has no seek index or is not valid
+     * @throws IllegalArgumentException if the offset or the length is negative
+     */
+
+    public byte[] decompressRange(Path in, long offset, int length) throws IOException {
+        try (MappedInput input = new MappedInput(in)) {
+            return HuffmanDecoder.decodeRange(input, offset, length);
+        }
+    }// end decompressRange
+
+    /**
+     * compress
+     * compresses an input with the settings of this codec, the whole input is one stage of HuffmanMetrics
+     * Version 3.0
+     *
+     * @param input  the input to be compressed
+     * @param output the stream the .huff data is written to
+     * @return what the limit on the length of the codes cost
+     * @throws IOException
+     */
+
+    LimitCost compress(MappedInput input, OutputStream output) throws IOException {
+        HuffmanMetrics.Timer timer = HuffmanMetrics.start(HuffmanMetrics.COMPRESS);
+        OutputStream counted = HuffmanMetrics.countOutput(output, timer);
+        LimitCost cost = new LimitCost(maxLength);
+        compressFormat(input, counted, cost);
+        HuffmanMetrics.end(timer, input.size(), HuffmanMetrics.written(counted));
+        return cost;
+    }// end compress
+
+    /**
+     * compressFormat
+     * compresses an input with the encoder of the format of the codec
+     * Version 2.0
+     *
+     * @param input  the input to be compressed
+     * @param output the stream the .huff file is written to
+     * @param cost   the cost the bits the length limit adds is added to, the adaptive and shared formats add nothing
+     * @throws IOException
+     */
+
+    private void compressFormat(MappedInput input, OutputStream output, LimitCost cost) throws IOException {
+        if (format == HuffmanFormat.ADAPTIVE) {
+            compressAdaptive(input.openStream(), output);
+        } else if (codebook != null) {
+            HuffmanEncoder.compressShared(input, output, codebook);
+        } else if (format == HuffmanFormat.LZ77) {
+            Lz77Encoder.compress(input, output, level, maxLength, cost);
+        } else {
+            HuffmanEncoder.compress(input, output, canonical, blockSize, maxLength, indexInterval, format, cost);
+        }
+    }// end compressFormat
+
+    /**
+     * compressAdaptive
+     * compresses a stream in the adaptive format as it is read
+     * Version 1.0
+     *
+     * @param in  the stream to be compressed
+     * @param out the stream the .huff data is written to, it is not closed
+     * @throws IOException
+     */
+
+    private static void compressAdaptive(InputStream in, OutputStream out) throws IOException {
+        AdaptiveHuffmanOutputStream adaptiveOut = new AdaptiveHuffmanOutputStream(out);
+        copy(in, adaptiveOut);
+        adaptiveOut.finish();
+    }// end compressAdaptive
+
+    /**
+     * copy
+     * copies a stream into another one, the output is flushed whenever the input has to wait for more bytes
+     * Version 1.0
+     *
+     * @param in  the stream to read
+     * @param out the stream to write
+     * @throws IOException
+     */
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = BufferArena.borrow(1 << 14);
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+            // nothing else is ready, send what there is so far so a slow stream is not held back
+            if (in.available() == 0) {
+                out.flush();
+            }
+        }
+        BufferArena.release(buffer);
+    }// end copy
+
+    /**
+     * spool
+     * copies a stream into a temporary file
+     * Version 1.0
+     *
+     * @param in the stream
+     * @return the temporary file, it must be deleted by the caller
+     * @throws IOException
+     */
+
+    private static Path spool(InputStream in) throws IOException {
+        Path temp = Files.createTempFile("huff", ".tmp");
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }// end spool
+}// end HuffmanCodec
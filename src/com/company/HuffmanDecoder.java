@@ -3,10 +3,20 @@ package com.company;
 //imports
 
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -21,11 +31,13 @@ import java.util.Map;
 
 public class HuffmanDecoder {
 
-    // a variable to hold the location of where the table ends in the .huff file
-    static int endTable = 0;
-
     public static void main(String[] args) throws IOException {
 
+        // run without dialogs when files are given on the command line or there is no screen (see HuffmanCli)
+        if (args.length > 0 || GraphicsEnvironment.isHeadless()) {
+            System.exit(HuffmanCli.run("decompress", args, 0));
+        }
+
         // welcomes the user
         JOptionPane.showMessageDialog(null, "Welcome to the .huff decoder");
 
@@ -47,19 +59,12 @@ public class HuffmanDecoder {
         // get time for when the code started
         double startTime = System.currentTimeMillis();
 
-        // get an array of bytes for the whole file
-        byte[] data = getByte(fileName);
-
-        // create a table for each byte
-        Map<String, Byte> table = getTable(data);
-
-        // create an array list of the file without a table
-        ArrayList<Byte> encodedByte = getEncoded(data);
-        // an array list to hold the decoded bytes
-        ArrayList<Byte> decodedByte = decode(encodedByte, table, (int) data[1]);
-
-        //save the decoded bytes in the specified file
-        saveToFile(decodedByte, outFileName);
+        // decode the file straight into the output file
+        try (MappedInput input = new MappedInput(fileName);
+             FileChannel output = FileChannel.open(Paths.get(outFileName), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            decompress(input, output);
+        }
 
         // get time for when the code ended
         double endTime = System.currentTimeMillis();
@@ -69,272 +74,775 @@ public class HuffmanDecoder {
     }// end main
 
     /**
-     * saveToFile
-     * saves all the decoded bytes into an output file
+     * decompress
+     * decodes a .huff file in any of the formats
+     * The decoders write straight into one fixed size buffer that is written to the output whenever it fills up
+     * Version 2.0
+     *
+     * @param input   the encoded file
+     * @param channel the channel the decoded bytes are written to
+     * @throws IOException if the file is not valid
+     */
+
+    static void decompress(MappedInput input, WritableByteChannel channel) throws IOException {
+        decompress(input, channel, Collections.<Integer, Codebook>emptyMap());
+    }// end decompress
+
+    /**
+     * decompress
+     * decodes a .huff file in any of the formats, files in the shared format can use any of the codebooks, the whole
+     * file is one stage of HuffmanMetrics
+     * Version 2.0
+     *
+     * @param input     the encoded file
+     * @param channel   the channel the decoded bytes are written to
+     * @param codebooks the codebooks that can be used, by id
+     * @throws IOException if the file is not valid or its codebook is not given
+     */
+
+    static void decompress(MappedInput input, WritableByteChannel channel, Map<Integer, Codebook> codebooks) throws IOException {
+        HuffmanMetrics.Timer timer = HuffmanMetrics.start(HuffmanMetrics.DECOMPRESS);
+        WritableByteChannel counted = HuffmanMetrics.countOutput(channel, timer);
+        decodeFormat(input, counted, codebooks);
+        HuffmanMetrics.end(timer, input.size(), HuffmanMetrics.written(counted));
+    }// end decompress
+
+    /**
+     * decodeFormat
+     * decodes a .huff file with the decoder of its format
      * Version 1.0
      *
-     * @param decoded  the decoded byte arraylist
-     * @param fileName the name of the output file
-     * @throws IOException
+     * @param input     the encoded file
+     * @param channel   the channel the decoded bytes are written to
+     * @param codebooks the codebooks that can be used, by id
+     * @throws IOException if the file is not valid or its codebook is not given
      */
 
-    private static void saveToFile(ArrayList<Byte> decoded, String fileName) throws IOException {
-        FileOutputStream output = null;
-        // create an array of bytes that will hold the same bytes from the arraylist of bytes (do this because you cannot print out an arraylist)
-        byte[] decodedArray = new byte[decoded.size()];
-        for (int i = 0; i < decodedArray.length; i++) {
-            decodedArray[i] = decoded.get(i);
+    private static void decodeFormat(MappedInput input, WritableByteChannel channel, Map<Integer, Codebook> codebooks) throws IOException {
+        // the first window holds the whole header
+        ByteBuffer window = input.nextWindow();
+        if (window == null) {
+            window = ByteBuffer.allocate(0);
+        }
+        int format = HuffmanFormat.getFormat(window);
+        if (format == HuffmanFormat.SHARED) {
+            // the table is looked up, and the output buffer is only as big as the message
+            decodeShared(window, input, codebooks, channel);
+            return;
+        }
+        if (format == HuffmanFormat.ARCHIVE) {
+            throw new IOException("The file is an archive, its entries are extracted with HuffmanArchive");
+        }
+        if (format == HuffmanFormat.STORED) {
+            // the bytes are sent straight from the file, without a buffer
+            decodeStored(window, input, channel);
+            return;
+        }
+        OutputBuffer output = new OutputBuffer(channel);
+        if (format == HuffmanFormat.CANONICAL || format == HuffmanFormat.INDEXED) {
+            // the canonical format only stores the code lengths
+            decodeCanonical(window, input, format, output);
+        } else if (format == HuffmanFormat.CONTEXT) {
+            // the table changes with the byte before
+            decodeContext(window, input, output);
+        } else if (format == HuffmanFormat.INTERLEAVED) {
+            // four streams in each chunk are decoded at the same time
+            decodeInterleaved(window, input, output);
+        } else if (format == HuffmanFormat.BLOCKS) {
+            // each block has its own code lengths
+            decodeBlocks(window, input, output);
+        } else if (format == HuffmanFormat.BWT) {
+            // each block is undone on its own thread
+            decodeBwt(window, input, output);
+        } else if (format == HuffmanFormat.LZ77) {
+            // matches are copied from the bytes before them, the reader counts its bits from the end of the format byte
+            window.position(HuffmanFormat.HEADER_SIZE);
+            BitReader reader = new BitReader(window, input, 0);
+            Lz77Decoder.decode(reader, reader.readVarLong(), (input.size() - HuffmanFormat.HEADER_SIZE) * 8, output);
+        } else if (format == HuffmanFormat.ADAPTIVE) {
+            // the adaptive format has no table, the tree is rebuilt while decoding
+            decodeAdaptive(input, output);
+        } else {
+            // create a lookup table for the codes of each byte, the window is moved to the end of the table
+            HuffmanMetrics.Timer timer = HuffmanMetrics.start(HuffmanMetrics.DECODE_TABLE);
+            DecodeTable table = getTable(window);
+            HuffmanMetrics.end(timer, window.position(), 0);
+            timer = HuffmanMetrics.start(HuffmanMetrics.DECODE);
+            decode(window, input, table, output);
+            HuffmanMetrics.end(timer, input.size() - window.position(), 0);
+        }
+        output.flush();
+        output.release();
+    }// end decodeFormat
+
+    /**
+     * decode
+     * decodes the message after the table, using the lookup table to find one or two bytes at a time, and writes them
+     * to the output
+     * Version 7.0
+     *
+     * @param window the first window of the encoded file, its position is at the end of the table
+     * @param input  the rest of the windows of the encoded file
+     * @param table  the lookup table for the codes
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if the message is not made of codes from the table
+     */
 
+    private static void decode(ByteBuffer window, MappedInput input, DecodeTable table, OutputBuffer output) throws IOException {
+        // an empty file only has the first two bytes
+        long fileLength = input.size();
+        if (fileLength <= 2) {
+            return;
+        }
+        // the message starts where the table ends
+        int endTable = window.position();
+        // the number of zeros at the start of the last byte that are skipped
+        int remainingZeros = window.get(1);
+        if (remainingZeros < 0 || remainingZeros > 8) {
+            throw new IOException("The last byte can not have " + remainingZeros + " trailing zeros");
+        }
+        // the original encoder wrote 8 when the message filled its last byte, every bit of that byte is a code bit
+        if (remainingZeros == 8) {
+            remainingZeros = 0;
+        }
+        // long messages are decoded on many threads
+        long messageBits = (fileLength - endTable) * 8 - remainingZeros;
+        if (ParallelDecoder.isWorthIt(messageBits)) {
+            ParallelDecoder.decode(input, (long) endTable * 8, fileLength * 8 - remainingZeros, -1, remainingZeros, table, output);
+            return;
+        }
+        // read the message that starts after the table, the last byte keeps its bits at the bottom
+        BitReader reader = new BitReader(window, input, remainingZeros);
+        // the message ends when all the bits except the remaining zeros have been read
+        long endBit = messageBits;
+        // decode straight into the output buffer until the message ends
+        while (true) {
+            // room() writes out a full buffer, so it is called before size is used
+            int room = output.room();
+            int count = table.decode(reader, endBit, output.bytes, output.size, room);
+            if (count == 0) {
+                break;
+            }
+            output.size += count;
         }
+        // the last code must end exactly where the message ends
+        if (reader.getBitPosition() != endBit) {
+            throw new IOException("The encoded message ends in the middle of a code");
+        }
+    }// end decode
 
-        // TEST - print out the length of both arraylist and array to see if they are equal
-        //System.out.println("length of arrayList: " + decoded.size());
-        //System.out.println("Length of array" + decodedArray.length);
+    /**
+     * decodeCanonical
+     * decodes a file in the canonical format, the codes are rebuilt from the lengths in the header
+     * Version 6.0
+     *
+     * @param window the first window of the encoded file
+     * @param input  the rest of the windows of the encoded file
+     * @param format the canonical or the indexed format
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if the header or the message is not valid, or the file ends before the message does
+     */
 
-        // print the decoded bytes to a specified file
-        try {
-            File file = new File(fileName);
-            output = new FileOutputStream(file);
-            output.write(decodedArray);
-        } finally {
-            if (output != null) {
-                output.close();
+    private static void decodeCanonical(ByteBuffer window, MappedInput input, int format, OutputBuffer output) throws IOException {
+        // the header and the message are one stream of bits after the format byte
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long remaining = reader.readVarLong();
+        // the message ends where the seek index starts
+        long endBit = input.size() * 8;
+        if (format == HuffmanFormat.INDEXED) {
+            reader.readVarLong();
+            endBit = SeekIndex.getPosition(input) * 8;
+        }
+        HuffmanMetrics.Timer timer = HuffmanMetrics.start(HuffmanMetrics.DECODE_TABLE);
+        int[] lengths = CanonicalCode.readLengths(reader, 256);
+        DecodeTable table = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        long startBit = HuffmanFormat.HEADER_SIZE * 8 + reader.getBitPosition();
+        HuffmanMetrics.end(timer, startBit / 8, 0);
+        timer = HuffmanMetrics.start(HuffmanMetrics.DECODE);
+        long fileLength = remaining;
+        // long messages are decoded on many threads
+        if (ParallelDecoder.isWorthIt(endBit - startBit)) {
+            ParallelDecoder.decode(input, startBit, endBit, remaining, 0, table, output);
+        } else {
+            // decode straight into the output buffer until every byte of the original file is found, the reader
+            // counts its bits from the end of the format byte
+            long messageEnd = endBit - HuffmanFormat.HEADER_SIZE * 8;
+            while (remaining > 0) {
+                int room = (int) Math.min(output.room(), remaining);
+                int count = table.decode(reader, messageEnd, output.bytes, output.size, room);
+                if (count == 0) {
+                    throw new IOException("The file ends before all of its bytes are decoded");
+                }
+                output.size += count;
+                remaining -= count;
+            }
+            if (reader.getBitPosition() > messageEnd) {
+                throw new IOException("The encoded message ends in the middle of a code");
             }
         }
-    }// end saveToFile
+        HuffmanMetrics.end(timer, (endBit - startBit) / 8, fileLength);
+    }// end decodeCanonical
 
     /**
-     * decode
-     * gets all the encoded bytes, decodes them and stores them in an array list
-     * Version 3.0
+     * decodeContext
+     * decodes a file in the context format, each byte is decoded with the table of the group of the byte before it
+     * Version 2.0
      *
-     * @param encoded
-     * @param table
-     * @param remainingZeros
-     * @return
+     * @param window the first window of the encoded file
+     * @param input  the rest of the windows of the encoded file
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if the header or the message is not valid, or the file ends before the message does
      */
 
-    private static ArrayList<Byte> decode(ArrayList<Byte> encoded, Map<String, Byte> table, int remainingZeros) {
-        // hold the resulting list of bytes
-        ArrayList<Byte> result = new ArrayList<Byte>();
-        // string builder that holds a code that is being built and checked
-        StringBuilder tempString = new StringBuilder();
-        // TEST - print out the size of the encoded file
-        //System.out.println("SIZE: " + encoded.size() );
-        // loop through all the encoded file and decode
-        for (int i = 0; i < encoded.size(); i++) {
-            // get the current byte
-            byte currentByte = encoded.get(i);
-            // if the current byte is not the last byte
-            if (i != encoded.size() - 1) {
-                // loop through the byte
-                for (int j = 7; j >= 0; j--) {
-                    // get a temporary byte, then and it with the current byte, return 0 or 1 as appropriate
-                    byte tempByte = (byte) Math.pow(2, j);
-                    if ((tempByte & currentByte) != 0) {
-                        tempString.append("1");
-                    } else {
-                        tempString.append("0");
-                    }
-                    // checks if the current tempString represents a code for a byte
-                    Byte b = table.get(tempString.toString());
-                    // if it represents a byte, add that byte to the decoded arraylist and reset the tempstring
-                    if (b != null) {
-                        //System.out.println(tempString + "->" + b);
-                        result.add(b);
-                        tempString = new StringBuilder();
-                    }
-                }// else if it is the last byte of the array
+    private static void decodeContext(ByteBuffer window, MappedInput input, OutputBuffer output) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long remaining = reader.readVarLong();
+        long groupCount = reader.readVarLong();
+        if (groupCount < 1 || groupCount > ContextEncoder.MAX_GROUPS) {
+            throw new IOException("The file has " + groupCount + " code tables");
+        }
+        int bits = ContextEncoder.mapBits((int) groupCount);
+        int[] groups = new int[256];
+        for (int c = 0; c < 256; c++) {
+            groups[c] = (int) reader.readBits(bits);
+            if (groups[c] >= groupCount) {
+                throw new IOException("A previous byte has a code table that does not exist");
+            }
+        }
+        DecodeTable[] groupTables = new DecodeTable[(int) groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            int[] lengths = CanonicalCode.readLengths(reader, 256);
+            groupTables[g] = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        }
+        // the table of each previous byte
+        DecodeTable[] tables = new DecodeTable[256];
+        for (int c = 0; c < 256; c++) {
+            tables[c] = groupTables[groups[c]];
+        }
+        // decode straight into the output buffer, one byte at a time because the table of the next byte is only known
+        // once this byte is found
+        // bits past the end of the file read as zeros, so the end of the message is checked after each buffer, before it
+        // is written out, the reader counts its bits from the end of the format byte
+        long messageEnd = (input.size() - HuffmanFormat.HEADER_SIZE) * 8;
+        int previous = 0;
+        while (remaining > 0) {
+            int room = (int) Math.min(output.room(), remaining);
+            byte[] bytes = output.bytes;
+            int end = output.size + room;
+            for (int i = output.size; i < end; i++) {
+                reader.refill();
+                previous = tables[previous].decodeSymbol(reader);
+                bytes[i] = (byte) previous;
+            }
+            if (reader.getBitPosition() > messageEnd) {
+                throw new IOException("The file ends before all of its bytes are decoded");
+            }
+            output.size = end;
+            remaining -= room;
+        }
+    }// end decodeContext
+
+    /**
+     * decodeInterleaved
+     * decodes a file in the interleaved format one chunk at a time, the four streams of a chunk are decoded together
+     * Version 1.0
+     *
+     * @param window the first window of the encoded file
+     * @param input  the rest of the windows of the encoded file
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if the header or a chunk is not valid
+     */
+
+    private static void decodeInterleaved(ByteBuffer window, MappedInput input, OutputBuffer output) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long remaining = reader.readVarLong();
+        int[] lengths = CanonicalCode.readLengths(reader, 256);
+        DecodeTable table = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        reader.alignToByte();
+        // the chunks start after the table, each one is mapped on its own
+        long position = HuffmanFormat.HEADER_SIZE + reader.getBitPosition() / 8;
+        long fileLength = input.size();
+        // the reader gives zeros past the end of the file, so a cut header or table ends past the end of the file
+        if (position > fileLength) {
+            throw new IOException("The file ends in the middle of a chunk");
+        }
+        int[] starts = new int[HuffmanFormat.STREAMS];
+        int[] sizes = new int[HuffmanFormat.STREAMS];
+        // chunks that are bigger than the output buffer are decoded into one array that is reused for every chunk
+        byte[] block = null;
+        while (remaining > 0) {
+            int length = (int) Math.min(HuffmanFormat.INTERLEAVED_CHUNK_SIZE, remaining);
+            int quarter = (length + HuffmanFormat.STREAMS - 1) / HuffmanFormat.STREAMS;
+            // map the most bytes the chunk can take, no stream is longer than its bytes times the longest code
+            long bound = HuffmanFormat.JUMP_TABLE_SIZE + HuffmanFormat.STREAMS * ((long) quarter * table.maxLength / 8 + 1);
+            ByteBuffer chunk = input.map(position, (int) Math.min(bound, fileLength - position));
+            if (chunk.limit() < HuffmanFormat.JUMP_TABLE_SIZE) {
+                throw new IOException("The file ends in the middle of a chunk");
+            }
+            // read the jump table to find where each stream starts
+            int start = HuffmanFormat.JUMP_TABLE_SIZE;
+            for (int i = 0; i < HuffmanFormat.STREAMS; i++) {
+                sizes[i] = ((chunk.get(3 * i) & 255) << 16) | ((chunk.get(3 * i + 1) & 255) << 8) | (chunk.get(3 * i + 2) & 255);
+                starts[i] = start;
+                start += sizes[i];
+            }
+            if (start > chunk.limit()) {
+                throw new IOException("A stream is longer than the file");
+            }
+            if (output.reserve(length)) {
+                table.decodeInterleaved(chunk, starts, sizes, output.bytes, output.size, quarter, length);
+                output.size += length;
             } else {
-                // only read the remaining bits, skips the leading
-                for (int j = 7 - remainingZeros; j >= 0; j--) {
-                    // get a temporary byte, then and it with the current byte, return 0 or 1 as appropriate
-                    byte tempByte = (byte) Math.pow(2, j);
-                    if ((tempByte & currentByte) != 0) {
-                        tempString.append("1");
-                    } else {
-                        tempString.append("0");
-                    }
-                    // checks if the current tempString represents a code for a byte
-                    Byte b = table.get(tempString.toString());
-                    // if it represents a byte, add that byte to decoded and reset tempString
-                    if (b != null) {
-                        //System.out.println(tempString + "->" + b);
-                        result.add(b);
-                        tempString.delete(0, tempString.length());
-                    }
+                if (block == null) {
+                    block = BufferArena.borrow(length);
                 }
+                table.decodeInterleaved(chunk, starts, sizes, block, 0, quarter, length);
+                output.write(block, 0, length);
             }
-        }// return the decoded byte arraylist
-        return result;
-    }// end decode
+            position += start;
+            remaining -= length;
+        }
+        BufferArena.release(block);
+    }// end decodeInterleaved
 
     /**
-     * getEncoded
-     * get the content from the data array, this excludes the table
+     * decodeShared
+     * decodes a file in the shared format with the codebook named in the header
+     * Version 2.0
+     *
+     * @param window    the first window of the encoded file
+     * @param input     the rest of the windows of the encoded file
+     * @param codebooks the codebooks that can be used, by id
+     * @param channel   the channel the decoded bytes are written to
+     * @throws IOException if the codebook is not given or the message is not valid or is cut short
+     */
+
+    private static void decodeShared(ByteBuffer window, MappedInput input, Map<Integer, Codebook> codebooks,
+                                     WritableByteChannel channel) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long id = reader.readVarLong();
+        Codebook codebook = id <= Integer.MAX_VALUE ? codebooks.get((int) id) : null;
+        if (codebook == null) {
+            throw new IOException("The file needs the codebook " + id + ", which is not loaded");
+        }
+        long remaining = reader.readVarLong();
+        OutputBuffer output = new OutputBuffer(channel, (int) Math.max(0, Math.min(OutputBuffer.DEFAULT_SIZE, remaining)));
+        // decode straight into the output buffer until every byte of the original file is found, the message ends with
+        // the file and the reader counts its bits from the end of the format byte
+        long messageEnd = (input.size() - HuffmanFormat.HEADER_SIZE) * 8;
+        while (remaining > 0) {
+            int room = (int) Math.min(output.room(), remaining);
+            int count = codebook.table.decode(reader, messageEnd, output.bytes, output.size, room);
+            if (count == 0) {
+                throw new IOException("The file ends before all of its bytes are decoded");
+            }
+            output.size += count;
+            remaining -= count;
+        }
+        if (reader.getBitPosition() > messageEnd) {
+            throw new IOException("The encoded message ends in the middle of a code");
+        }
+        output.flush();
+        output.release();
+    }// end decodeShared
+
+    /**
+     * decodeStored
+     * writes the bytes of a file in the stored format to the output
      * Version 1.0
      *
-     * @param data - holds all the bytes from the encoded file
-     * @return an array list of bytes that holds the content of the encoded file
+     * @param window  the first window of the encoded file
+     * @param input   the encoded file
+     * @param channel the channel the decoded bytes are written to
+     * @throws IOException if the file does not hold as many bytes as its header says
      */
 
-    private static ArrayList<Byte> getEncoded(byte[] data) {
-        // hold the arraylist of bytes for content and add all the content
-        ArrayList<Byte> encoded = new ArrayList<Byte>();
-        for (int i = endTable; i < data.length; i++) {
-            encoded.add(data[i]);
+    private static void decodeStored(ByteBuffer window, MappedInput input, WritableByteChannel channel) throws IOException {
+        long start = storedStart(window, input);
+        input.transferTo(start, input.size() - start, channel);
+    }// end decodeStored
+
+    /**
+     * storedStart
+     * reads the header of a file in the stored format
+     * Version 1.0
+     *
+     * @param window the first window of the encoded file
+     * @param input  the encoded file
+     * @return the position in the encoded file of the first stored byte
+     * @throws IOException if the file does not hold as many bytes as its header says
+     */
 
-        }// return all the encoded content
-        return encoded;
-    }// end getEncoded
+    private static long storedStart(ByteBuffer window, MappedInput input) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long fileLength = reader.readVarLong();
+        long start = HuffmanFormat.HEADER_SIZE + reader.getBitPosition() / 8;
+        if (input.size() - start != fileLength) {
+            throw new IOException("The file should hold " + fileLength + " bytes but holds " + (input.size() - start));
+        }
+        return start;
+    }// end storedStart
 
     /**
-     * getCode
-     * get the code of a byte to be used in the table for decoding
+     * decodeAdaptive
+     * decodes a file in the adaptive format
+     * Version 1.0
+     *
+     * @param input  the encoded file
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if the message is not valid
+     */
+
+    private static void decodeAdaptive(MappedInput input, OutputBuffer output) throws IOException {
+        InputStream in = new AdaptiveHuffmanInputStream(input.openStream());
+        while (true) {
+            int room = output.room();
+            int count = in.read(output.bytes, output.size, room);
+            if (count < 0) {
+                break;
+            }
+            output.size += count;
+        }
+    }// end decodeAdaptive
+
+    /**
+     * decodeRange
+     * decodes part of a file in the indexed format, starting from the nearest seek index point before the part instead
+     * of the start of the message, or reads it from a file in the stored format
      * Version 3.0
      *
-     * @param data          an array that holds all the information in the file
-     * @param startPosition the position in data where the code starts
-     * @param remainder     the remainder of the code, will need another byte to be read
-     * @param numberOfBytes the total number of bytes the code is in
-     * @return a string for the code of the byte
+     * @param fileName the name of the .huff file
+     * @param offset   the position in the original file of the first byte to decode
+     * @param length   the number of bytes to decode, fewer are decoded if the original file ends first
+     * @return the decoded bytes
+     * @throws IOException              if the file is not in the indexed format or is not valid
+     * @throws IllegalArgumentException if the offset or the length is negative
      */
 
-    private static String getCode(byte[] data, int startPosition, int remainder, int numberOfBytes) {
-        // string builder that holds the temporary code
-        StringBuilder tempCode = new StringBuilder();
-        // if there is more than one byte
-        if (numberOfBytes > 1) {
-            // loop through all the bytes
-            for (int i = 0; i < numberOfBytes; i++) {
-                // get the current byte
-                byte currentByte = data[startPosition + i];
-                // if this is the last byte to be read
-                if (i == (numberOfBytes - 1)) {
-                    // if the remainder is zero, change it to 8 so that it will read 8 bits
-                    if (remainder == 0) {
-                        remainder = 8;
-                    }// loop through the array
-                    for (int j = 7; j > 7 - remainder; j--) {
-                        // temporary byte that will use and with the current byte to add to the code
-                        byte temp = (byte) Math.pow(2, j);
-                        if ((temp & currentByte) != 0) {
-                            tempCode.append("1");
-                        } else {
-                            tempCode.append("0");
-                        }
-                    }// if it is not the last byte
-                } else {
-                    // loop through the whole byte
-                    for (int j = 7; j >= 0; j--) {
-                        // temporary byte that will use and with the current byte to add to the code
-                        byte temp = (byte) Math.pow(2, j);
-                        if ((temp & currentByte) != 0) {
-                            tempCode.append("1");
-                        } else {
-                            tempCode.append("0");
+    public static byte[] decodeRange(String fileName, long offset, int length) throws IOException {
+        try (MappedInput input = new MappedInput(fileName)) {
+            return decodeRange(input, offset, length);
+        }
+    }// end decodeRange
+
+    /**
+     * decodeRange
+     * decodes part of an encoded input in the indexed (or stored) format
+     * Version 4.0
+     *
+     * @param input  the encoded input
+     * @param offset the position in the original file of the first byte to decode
+     * @param length the number of bytes to decode, fewer are decoded if the original file ends first
+     * @return the decoded bytes
+     * @throws IOException              if the input is not in the indexed format or is not valid, or the message ends
+     *                                  before the part
+     * @throws IllegalArgumentException if the offset or the length is negative
+     */
+
+    static byte[] decodeRange(MappedInput input, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("The range " + offset + "+" + length + " is not valid");
+        }
+        ByteBuffer window = input.nextWindow();
+        if (window != null && HuffmanFormat.getFormat(window) == HuffmanFormat.STORED) {
+            // an indexed file that could not be made smaller is stored, so any part of it can be read straight away
+            long start = storedStart(window, input);
+            byte[] result = new byte[(int) Math.max(0, Math.min(length, input.size() - start - offset))];
+            if (result.length > 0) {
+                input.map(start + offset, result.length).get(result);
+            }
+            return result;
+        }
+        if (window == null || HuffmanFormat.getFormat(window) != HuffmanFormat.INDEXED) {
+            throw new IOException("The file does not have a seek index");
+        }
+        // read the header
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long fileLength = reader.readVarLong();
+        int interval = (int) reader.readVarLong();
+        int[] lengths = CanonicalCode.readLengths(reader, 256);
+        DecodeTable table = DecodeTable.build(CanonicalCode.assignCodes(lengths), lengths);
+        long startBit = HuffmanFormat.HEADER_SIZE * 8 + reader.getBitPosition();
+
+        byte[] result = new byte[(int) Math.max(0, Math.min(length, fileLength - offset))];
+        if (result.length == 0) {
+            return result;
+        }
+        // jump to the last point at or before the offset, the reader counts its bits from the byte the point is in
+        SeekIndex index = SeekIndex.read(input, interval);
+        int point = index.getPoint(offset);
+        long pointBit = startBit + index.getBitOffset(point);
+        long messageEnd = index.getPosition() * 8;
+        if (pointBit < startBit || pointBit > messageEnd) {
+            throw new IOException("The seek index is not valid");
+        }
+        reader = ParallelDecoder.openReader(input, pointBit, 0);
+        long endBit = messageEnd - pointBit / 8 * 8;
+        // decode and throw away the bytes between the point and the offset
+        long skip = offset - (long) point * interval;
+        byte[] chunk = new byte[(int) Math.min(skip, 1 << 16)];
+        while (skip > 0) {
+            skip -= decodeBounded(table, reader, endBit, chunk, 0, (int) Math.min(chunk.length, skip));
+        }
+        int count = 0;
+        while (count < result.length) {
+            count += decodeBounded(table, reader, endBit, result, count, result.length - count);
+        }
+        if (reader.getBitPosition() > endBit) {
+            throw new IOException("The encoded message ends in the middle of a code");
+        }
+        return result;
+    }// end decodeRange
+
+    /**
+     * decodeBounded
+     * decodes codes that start before the end of the message
+     * Version 1.0
+     *
+     * @param table  the decode table
+     * @param reader the reader
+     * @param endBit the bit position of the reader where the message ends
+     * @param out    the array the bytes are written to
+     * @param off    the first index written
+     * @param len    the most bytes to decode
+     * @return the number of bytes decoded, at least 1
+     * @throws IOException if the message ends before any byte is decoded
+     */
+
+    private static int decodeBounded(DecodeTable table, BitReader reader, long endBit, byte[] out, int off, int len) throws IOException {
+        int count = table.decode(reader, endBit, out, off, len);
+        if (count == 0) {
+            throw new IOException("The file ends before all of its bytes are decoded");
+        }
+        return count;
+    }// end decodeBounded
+
+    /**
+     * decodeBlocks
+     * decodes a file in the block format, one block at a time
+     * Version 5.0
+     *
+     * @param window the first window of the encoded file
+     * @param input  the rest of the windows of the encoded file
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if a block is not valid or the file ends before its last block does
+     */
+
+    private static void decodeBlocks(ByteBuffer window, MappedInput input, OutputBuffer output) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long remaining = reader.readVarLong();
+        long blockSize = reader.readVarLong();
+        if (blockSize < 1 || blockSize > Integer.MAX_VALUE) {
+            throw new IOException("Invalid block size " + blockSize);
+        }
+        // blocks that are bigger than the output buffer are decoded into one array that is reused for every block
+        byte[] block = null;
+        // the lookup table of the block before, kept for blocks that reuse it
+        DecodeTable table = null;
+        // the reader counts its bits from the end of the format byte
+        long messageEnd = (input.size() - HuffmanFormat.HEADER_SIZE) * 8;
+        while (remaining > 0) {
+            int length = (int) Math.min(blockSize, remaining);
+            long bodyLength = reader.readVarLong();
+            if (bodyLength < 1 || bodyLength > (messageEnd - reader.getBitPosition()) / 8) {
+                throw new IOException("A block is longer than the file");
+            }
+            if (output.reserve(length)) {
+                table = BlockDecoder.decodeBlock(reader, bodyLength, table, output.bytes, output.size, length);
+                output.size += length;
+            } else {
+                if (block == null) {
+                    block = BufferArena.borrow(length);
+                }
+                table = BlockDecoder.decodeBlock(reader, bodyLength, table, block, 0, length);
+                output.write(block, 0, length);
+            }
+            remaining -= length;
+        }
+        BufferArena.release(block);
+    }// end decodeBlocks
+
+    /**
+     * decodeBwt
+     * decodes a file in the BWT format, a batch of blocks is decoded in parallel and then written in order
+     * Version 1.0
+     *
+     * @param window the first window of the encoded file
+     * @param input  the rest of the windows of the encoded file
+     * @param output the buffer the decoded bytes are written to
+     * @throws IOException if a block is not valid
+     */
+
+    private static void decodeBwt(ByteBuffer window, MappedInput input, OutputBuffer output) throws IOException {
+        window.position(HuffmanFormat.HEADER_SIZE);
+        BitReader reader = new BitReader(window, input, 0);
+        long remaining = reader.readVarLong();
+        long blockSize = reader.readVarLong();
+        if (blockSize < 1 || blockSize > BwtEncoder.MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid block size " + blockSize);
+        }
+        int batchSize = Math.max(1, ForkJoinPool.getCommonPoolParallelism()) * 2;
+        while (remaining > 0) {
+            ArrayList<ForkJoinTask<byte[]>> tasks = new ArrayList<ForkJoinTask<byte[]>>();
+            ArrayList<Integer> lengths = new ArrayList<Integer>();
+            // the number of blocks of the batch that were written, after an error the rest are drained
+            int written = 0;
+            try {
+                for (int i = 0; i < batchSize && remaining > 0; i++) {
+                    final int length = (int) Math.min(blockSize, remaining);
+                    long bodyLength = reader.readVarLong();
+                    // the bodies start on whole bytes, so each one can be mapped on its own
+                    long start = HuffmanFormat.HEADER_SIZE + reader.getBitPosition() / 8;
+                    if (bodyLength < 1 || bodyLength > input.size() - start) {
+                        throw new IOException("A block is longer than the file");
+                    }
+                    final ByteBuffer body = input.map(start, (int) bodyLength);
+                    reader.skipBits(bodyLength * 8);
+                    tasks.add(ForkJoinPool.commonPool().submit(new Callable<byte[]>() {
+                        public byte[] call() throws IOException {
+                            byte[] block = BufferArena.borrow(length);
+                            BwtDecoder.decodeBlock(body, block, 0, length);
+                            return block;
                         }
+                    }));
+                    lengths.add(length);
+                    remaining -= length;
+                }
+                while (written < tasks.size()) {
+                    byte[] block = BlockEncoder.join(tasks.get(written));
+                    // the block is counted before it is written, so a failed write does not make drainBlocks give it
+                    // back to the arena a second time
+                    int length = lengths.get(written++);
+                    try {
+                        output.write(block, 0, length);
+                    } finally {
+                        BufferArena.release(block);
                     }
                 }
-
-            }// if there is only one byte that holds the entire code
-        } else {
-            // if the remainder is zero, change it to 8 so it will read 8 bits
-            if (remainder == 0) {
-                remainder = 8;
+            } finally {
+                drainBlocks(tasks, written);
             }
-            // get the current byte
-            byte currentByte = data[startPosition];
-            // loop through the whole byte
-            for (int i = remainder - 1; i >= 0; i--) {
-                // temporary byte that will use and with the current byte to add to the code
-                byte temp = (byte) Math.pow(2, i);
-                if ((temp & currentByte) != 0) {
-                    tempCode.append("1");
-                } else {
-                    tempCode.append("0");
-                }
+        }
+    }// end decodeBwt
+
+    /**
+     * drainBlocks
+     * waits for the tasks of a batch that were not written and gives their blocks back to the arena, a task that is
+     * cancelled while it runs would keep its block, so every task is left to finish
+     * Version 1.0
+     *
+     * @param tasks the tasks of the batch
+     * @param from  the first task that was not written
+     */
+
+    private static void drainBlocks(List<ForkJoinTask<byte[]>> tasks, int from) {
+        for (int i = from; i < tasks.size(); i++) {
+            ForkJoinTask<byte[]> task = tasks.get(i);
+            task.quietlyJoin();
+            if (task.isCompletedNormally()) {
+                BufferArena.release(task.getRawResult());
             }
-        }// return the code for the byte
-        return tempCode.toString();
+        }
+    }// end drainBlocks
+
+    /**
+     * getCode
+     * get the code of a byte to be used in the table for decoding
+     * Version 5.0
+     *
+     * @param data          the first window of the encoded file, which holds the table
+     * @param startPosition the position in data where the code starts
+     * @param lengthOfCode  the number of bits in the code
+     * @return the code word of the byte
+     */
+
+    private static long getCode(ByteBuffer data, int startPosition, int lengthOfCode) {
+        // codes that fit in one byte are at the bottom of the byte
+        if (lengthOfCode <= 8) {
+            return data.get(startPosition) & ((1 << lengthOfCode) - 1);
+        }
+        // longer codes start at the top of the first byte, read whole bytes and remove the trailing zeros
+        int numberOfBytes = (lengthOfCode + 7) / 8;
+        ByteBuffer codeBytes = data.duplicate();
+        codeBytes.position(startPosition).limit(startPosition + numberOfBytes);
+        BitReader reader = new BitReader(codeBytes);
+        long code = 0;
+        int remaining = lengthOfCode;
+        while (remaining > 0) {
+            int bits = Math.min(remaining, 32);
+            code = (code << bits) | reader.readBits(bits);
+            remaining -= bits;
+        }
+        return code;
     }// end getCode
 
     /**
      * getTable
-     * returns a map of the table to be used when decoding
-     * Version 5.0
+     * reads the table at the start of the encoded file and builds the lookup table used when decoding
+     * Version 9.0
      *
-     * @param data an array of bytes that holds all the information in the encoded file
-     * @return a map with a string code for a key, and a byte for the value
+     * @param data the first window of the encoded file, which holds the whole table, its position is moved to the end
+     *             of the table
+     * @return the lookup table for the codes of each byte
+     * @throws IOException if the table is cut short or has a code length that can not be right
      */
 
-    private static Map<String, Byte> getTable(byte[] data) {
+    static DecodeTable getTable(ByteBuffer data) throws IOException {
+        // even an empty file has the length of the table and the remaining zeros
+        if (data.limit() < 2) {
+            throw new IOException("The file is too short to hold a table");
+        }
         // get the length of the table, if its 0 then length has to be 256 (the maximum length)
-        int lengthOfTable = (int) data[0];
-        if (lengthOfTable == 0) {
+        int lengthOfTable = data.limit() <= 2 ? 0 : data.get(0) & 255;
+        if (lengthOfTable == 0 && data.limit() > 2) {
             lengthOfTable = 256;
         }
-        // create a map that will hold the table
-        Map<String, Byte> tempTable = new HashMap();
+        // the code word and the length of the code of each byte
+        long[] codes = new long[256];
+        int[] lengths = new int[256];
         // start the pointer at two as it skips the length of the table and remaining zeros in data
         int pointer = 2;
-        // while the table is not complete yet
-        while (tempTable.size() < lengthOfTable) {
+        // read each entry of the table
+        for (int i = 0; i < lengthOfTable; i++) {
+            // each entry has at least its byte and the length of its code
+            if (pointer + 1 >= data.limit()) {
+                throw new IOException("The file ends in the middle of the table");
+            }
             // get the byte
-            byte b = data[pointer];
+            int b = data.get(pointer) & 255;
             // get the length of the code at the next byte
-            int lengthOfCode = (byte) data[pointer + 1];
+            int lengthOfCode = data.get(pointer + 1) & 255;
+            // a code is never empty, and the tree of a file never has a code longer than a long
+            if (lengthOfCode == 0 || lengthOfCode > 64) {
+                throw new IOException("The table has a code of " + lengthOfCode + " bits");
+            }
             // get the number of bytes the code is in
-            int numberOfBytes = lengthOfCode / 8;
-            int remainder = lengthOfCode % 8;
-            if (remainder != 0) {
-                numberOfBytes += 1;
-            }// increase the pointer by 2 to make it point at the beginning of the code
+            int numberOfBytes = (lengthOfCode + 7) / 8;
+            // increase the pointer by 2 to make it point at the beginning of the code
             pointer += 2;
+            if (pointer + numberOfBytes > data.limit()) {
+                throw new IOException("The file ends in the middle of the table");
+            }
             // get the code of the byte using the getCode method
-            String code = getCode(data, pointer, remainder, numberOfBytes);
-            // store the code and the byte it represents into the table
-            tempTable.put(code, b);
+            codes[b] = getCode(data, pointer, lengthOfCode);
+            lengths[b] = lengthOfCode;
             // TEST - print out the code and its byte that it represents
-            //System.out.println(code+"->"+b);
+            //System.out.println(Long.toBinaryString(codes[b]) + "->" + b);
             // increase the pointer by the length of the code of the current byte
             pointer += numberOfBytes;
         }
         // TEST - print the length of the table
         //System.out.println(lengthOfTable);
-        // saves the last pointer as the end of the table, so that when an arraylist of all the content is made it will know when to start
-        endTable = pointer;
-        // return the table
-        return tempTable;
+        // moves the window to the end of the table, so that decoding knows where the message starts
+        data.position(pointer);
+        // build the lookup table once for the whole message
+        return DecodeTable.build(codes, lengths);
     }// end getTable
-
-    /**
-     * getByte
-     * get all the information from the encoded file and store it in a byte array
-     * Version 1.0
-     *
-     * @param fileName the name of the encoded file
-     * @return an array of bytes that stores all the information in the encoded file
-     * @throws IOException
-     */
-
-    private static byte[] getByte(String fileName) throws IOException {
-        // the array to hold all the bytes from the encoded file
-        byte[] getBytes;
-        InputStream input = null;
-        // take all the bytes from the encoded file and save it to the byte array
-        try {
-            File file = new File(fileName);
-            // set the size of the byte array to the length of the file
-            getBytes = new byte[(int) file.length()];
-            input = new FileInputStream(file);
-            // get all the bytes from the file
-            input.read(getBytes);
-        } finally {
-            if (input != null) {
-                input.close();
-            }
-        }// return the array of bytes for all the information in the encoded file
-        return getBytes;
-    }// end getByte
 }// end HuffmanDecoder
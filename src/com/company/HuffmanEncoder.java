@@ -3,7 +3,11 @@ package com.company;
 //imports
 
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 
 
@@ -11,7 +15,7 @@ import java.util.*;
  * Huffman Encoder
  *
  * @author Sasha Maximovitch
- *         Version 6.0
+ *         Version 7.0
  * @date October 4th,2017
  * Uses Huffman coding to encode any file
  */
@@ -20,6 +24,11 @@ public class HuffmanEncoder {
 
     public static void main(String[] args) throws IOException {
 
+        // run without dialogs when files are given on the command line or there is no screen (see HuffmanCli)
+        if (args.length > 0 || GraphicsEnvironment.isHeadless()) {
+            System.exit(HuffmanCli.run("compress", args, 0));
+        }
+
         // Welcome user
         JOptionPane.showMessageDialog(null, "Welcome to the .huff compressor");
 
@@ -38,47 +47,49 @@ public class HuffmanEncoder {
         // start compressing
         JOptionPane.showMessageDialog(null, "Compressing " + fileName + " to " + outFileName);
 
-        // get time for when the code started
-        double startTime = System.currentTimeMillis();
-
-        // HashMap of frequencies which stores bytes and nodes, gets the hashmap from the getFrequencies method
-        Map<Byte, Node> frequencies = getFrequencies(fileName);
-
-        // TEST - PRINT OUT ALL THE FREQUENCIES
-        //System.out.println(frequencies);
-
-        // Stores all the nodes from frequencies into an array list
-        ArrayList<Node> nodes = new ArrayList<Node>(frequencies.values());
-        // TEST - Print out nodes
-        //System.out.println(nodes);
-
-        // Get the top node by using the Arraylist of nodes in createTree
-        Node topNode = createTree(nodes);
-
-        // create an encoding table to be used when encoding the file
-        Map<Byte, String> encodingTable = new HashMap<>();
-        createEncodingTable(topNode, "", encodingTable);
-
-        // TEST - Print out the encoding table
-        //System.out.println(encodingTable);
+        // ask if the compact canonical table should be used instead of the original table
+        int canonical = JOptionPane.showConfirmDialog(null, "Use the compact canonical table? (No writes the original .huff table)", "Table format", JOptionPane.YES_NO_OPTION);
+
+        // the canonical format can also be split into blocks that are compressed in parallel
+        int blockSize = 0;
+        // or have a seek index so parts of the file can be decoded on their own
+        int indexInterval = 0;
+        if (canonical == JOptionPane.YES_OPTION) {
+            String blockSizeText = JOptionPane.showInputDialog(null, "Please input the block size in KB to compress blocks in parallel (leave blank for one stream)");
+            if ((blockSizeText != null) && (!blockSizeText.trim().equals(""))) {
+                blockSize = Integer.parseInt(blockSizeText.trim()) * 1024;
+            } else if (JOptionPane.showConfirmDialog(null, "Add a seek index so parts of the file can be decoded on their own?", "Seek index", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                indexInterval = SeekIndex.DEFAULT_INTERVAL;
+            }
+        }
 
-        // encode using the encoding table from the input file
-        String encoded = encode(fileName, encodingTable);
-        // TEST - print out the encoded text
-        //System.out.println(encoded);
+        // ask for the longest code allowed, so the decoder's lookup tables stay small
+        String maxLengthText = JOptionPane.showInputDialog(null, "Please input the maximum code length in bits (leave blank for no limit)");
+        int maxLength = 0;
+        if ((maxLengthText != null) && (!maxLengthText.trim().equals(""))) {
+            maxLength = Integer.parseInt(maxLengthText.trim());
+        }
 
-        // encodes the table to binary representation
-        String encodedTable = decodingTableAsBinary(encodingTable, encoded);
+        // get time for when the code started
+        double startTime = System.currentTimeMillis();
 
-        // saves the encoded table and text in the .huff file
-        saveToFile(outFileName, encoded, encodedTable);
+        // compress the file, what the length limit cost is reported at the end
+        LimitCost limitCost = new LimitCost(maxLength);
+        try (MappedInput input = new MappedInput(fileName);
+             OutputStream output = new FileOutputStream(outFileName)) {
+            compress(input, output, canonical == JOptionPane.YES_OPTION, blockSize, maxLength, indexInterval, 0, limitCost);
+        }
+        String limitReport = "";
+        if (maxLength > 0) {
+            limitReport = "\n" + limitCost;
+        }
 
         // get time for when the code ended
         double endTime = System.currentTimeMillis();
 
         // calculate and print out the total time of the program
         double totalTime = (endTime - startTime) / 1000.0;
-        JOptionPane.showMessageDialog(null, "Finishing Compressing\nTime to compress: " + totalTime + " seconds");
+        JOptionPane.showMessageDialog(null, "Finishing Compressing\nTime to compress: " + totalTime + " seconds" + limitReport);
 
         // just for testing, decode
         //String original = decode(encoded, decodingTable);
@@ -87,230 +98,268 @@ public class HuffmanEncoder {
     }// main method end
 
     /**
-     * decodingTableAsBinary
-     * Format:
-     * Byte 1: Length of table
-     * Byte 2: The number of zeros in the last byte that needs to be skipped, because the file ended
-     * Rest is: Byte, length of byte code, and the code of the byte.
+     * compress
+     * compresses an input into the chosen .huff format, the steps of the canonical and original formats are stages
+     * of HuffmanMetrics
      * Version 3.0
      *
-     * @param table         - encodeTable to be changed to binary
-     * @param encodedString - the encoded text, this is to figure out the remaining zeros
-     * @return String binary representation of tree
+     * @param input         - the input to be compressed
+     * @param output        - the stream the .huff file is written to
+     * @param canonical     - true for the canonical table, false for the original .huff table
+     * @param blockSize     - the number of bytes in each block of the block format, 0 for one stream
+     * @param maxLength     - the longest code allowed, 0 for no limit
+     * @param indexInterval - the number of bytes between two seek index points, 0 for no index
+     * @param format        - HuffmanFormat.INTERLEAVED, HuffmanFormat.CONTEXT or HuffmanFormat.BWT for those canonical
+     *                      formats, 0 for the format chosen by the other settings
+     * @param cost          - the cost the bits the length limit adds to the message is added to
+     * @throws IOException
      */
 
-    private static String decodingTableAsBinary(Map<Byte, String> table, String encodedString) {
+    static void compress(MappedInput input, OutputStream output, boolean canonical, int blockSize, int maxLength,
+                         int indexInterval, int format, LimitCost cost) throws IOException {
+        if (canonical && format == HuffmanFormat.BWT) {
+            // each block is transformed and encoded on its own thread
+            BwtEncoder.compress(input, output, blockSize > 0 ? blockSize : HuffmanFormat.DEFAULT_BLOCK_SIZE, maxLength, cost);
+            return;
+        }
+        if (canonical && blockSize > 0) {
+            // each block gets its own table and is encoded on its own thread
+            BlockEncoder.compress(input, output, blockSize, maxLength, cost);
+            return;
+        }
+        if (canonical && format == HuffmanFormat.CONTEXT) {
+            // a table for each group of previous bytes
+            ContextEncoder.compress(input, output, maxLength, cost);
+            return;
+        }
+        if (canonical && EntropySampler.shouldStore(input)) {
+            // the code would not save enough to pay for the table, so the file is stored as it is
+            saveToFileStored(input, output);
+            return;
+        }
+        // the frequency of each byte, indexed by the byte, from the getFrequencies method
+        long fileLength = input.size();
+        HuffmanMetrics.Timer timer = HuffmanMetrics.start(HuffmanMetrics.FREQUENCIES);
+        long[] frequencies = getFrequencies(input.range(0, fileLength));
+        HuffmanMetrics.end(timer, fileLength, 0);
+
+        // TEST - PRINT OUT ALL THE FREQUENCIES
+        //System.out.println(Arrays.toString(frequencies));
 
-        // StringBuilder that holds the binary representation of the variable to be returned
-        StringBuilder result = new StringBuilder();
+        // Stores a leaf node for each byte in the file into an array list
+        ArrayList<Node> nodes = Histogram.toNodes(frequencies);
+        // TEST - Print out nodes
+        //System.out.println(nodes);
 
-        // add length of the table, if table is length of 256 make all bits 0(size cannot be larger than 256)
-        if (table.size() == 256) {
-            result.append("00000000");
+        // Get the top node by using the Arraylist of nodes in createTree
+        timer = HuffmanMetrics.start(HuffmanMetrics.TREE);
+        Node topNode = createTree(nodes);
+        HuffmanMetrics.end(timer, 0, 0);
+
+        // create an encoding table to be used when encoding the file, the code word and its bit length are stored for each byte
+        timer = HuffmanMetrics.start(HuffmanMetrics.TABLE);
+        long[] codes = new long[256];
+        int[] lengths = new int[256];
+        createEncodingTable(topNode, 0, 0, codes, lengths);
+
+        // TEST - Print out the encoding table
+        //System.out.println(Arrays.toString(lengths));
+
+        // only rebuild the lengths if a code is longer than the limit
+        int[] limited = limitLengths(frequencies, lengths, maxLength, cost);
+        if (limited != lengths) {
+            lengths = limited;
+            // any prefix code works in the original table, so the canonical codes are used for the new lengths
+            codes = CanonicalCode.assignCodes(lengths);
+        }
+        HuffmanMetrics.endTable(timer, 0, lengths, frequencies);
+
+        // encodes the table and the input straight into the .huff file
+        timer = HuffmanMetrics.start(HuffmanMetrics.ENCODE);
+        OutputStream counted = HuffmanMetrics.countOutput(output, timer);
+        if (canonical && format == HuffmanFormat.INTERLEAVED) {
+            saveToFileInterleaved(input, counted, frequencies, lengths);
+        } else if (canonical) {
+            saveToFileCanonical(input.range(0, fileLength), counted, frequencies, lengths, indexInterval);
         } else {
-            result.append(padWithZeros(Integer.toBinaryString(table.size())));
-        }// add the remaining zeros
-        result.append(padWithZeros(Integer.toBinaryString(getRemainingZeros(encodedString))));
-
-        // add all the table elements to result in binary form, before the code, add the length of the code
-        for (Map.Entry<Byte, String> entry : table.entrySet()) {
-            // byte of the current key in table and its value is stored
-            Byte b = entry.getKey();
-            String value = entry.getValue();
-            // add the byte to the result
-            result.append(padWithZeros(toBinaryString(b)));
-            // add the length of the code
-            result.append(padWithZeros(Integer.toBinaryString((value).length())));
-            // add the code
-            result.append(padWithZeros(value));
-        }
-        return result.toString();
-    }// end decodeTableAsBinary
+            saveToFile(input.range(0, fileLength), counted, frequencies, codes, lengths);
+        }
+        HuffmanMetrics.end(timer, fileLength, HuffmanMetrics.written(counted));
+    }// end compress
 
     /**
-     * toBinaryString
-     * takes a byte, creates it to a string if it is positive, if byte is negative the string will be changed to represent the negative number in binary form
-     * Version 1.0
+     * limitLengths
+     * makes sure no code is longer than maxLength, the package-merge algorithm finds the best lengths under the limit
+     * Version 2.0
      *
-     * @param b holds the current byte
-     * @return a string representation of the current byte
+     * @param frequencies - the frequency of each byte
+     * @param lengths     - the length of the code of each byte from the Huffman tree
+     * @param maxLength   - the longest code allowed, 0 for no limit
+     * @param cost        - the cost the bits of the message with and without the limit are added to, or null
+     * @return lengths if no code is too long, otherwise the new length of the code of each byte
      */
 
-    private static String toBinaryString(byte b) {
-        return Integer.toBinaryString(b & 255 | 256).substring(1);
-    }// end toBinaryString
+    private static int[] limitLengths(long[] frequencies, int[] lengths, int maxLength, LimitCost cost) {
+        if (maxLength <= 0) {
+            return lengths;
+        }
+        int[] limited = limitLengths(frequencies, lengths, maxLength);
+        if (cost != null) {
+            long optimalBits = PackageMerge.encodedBits(frequencies, lengths);
+            cost.add(optimalBits, limited != lengths ? PackageMerge.encodedBits(frequencies, limited) : optimalBits);
+        }
+        return limited;
+    }// end limitLengths
 
     /**
-     * getRemainingZeros
-     * Gives back the total number of zeros at the end of the file to be skipped
+     * limitLengths
      * Version 1.0
      *
-     * @param encoded string for the message
-     * @return integer for the number of zeros to skip over at the end of the file
+     * @param frequencies - the frequency of each byte
+     * @param lengths     - the length of the code of each byte from the Huffman tree
+     * @param maxLength   - the longest code allowed, more than 0
+     * @return lengths if no code is too long, otherwise the new length of the code of each byte
      */
 
-    private static int getRemainingZeros(String encoded) {
-        // gets the remainder of the length of the encoded string by 8, since it will all be divided into bytes of 8
-        int remainder = encoded.length() % 8;
-        // returns 8 - remainder as that is the number of zeros at the end of the file that must be skipped
-        return 8 - remainder;
-    }// end getRemainingZeros
+    private static int[] limitLengths(long[] frequencies, int[] lengths, int maxLength) {
+        // check if any code is longer than the limit
+        boolean tooLong = false;
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] > maxLength) {
+                tooLong = true;
+            }
+        }
+        if (!tooLong) {
+            return lengths;
+        }
+        return PackageMerge.computeLengths(frequencies, maxLength);
+    }// end limitLengths
 
     /**
-     * padWithZeros
-     * Pads given text with leading or trailing zeros(To convert it to binary)
-     * Version 1.0
+     * buildLengths
+     * builds the Huffman tree for a histogram and returns the length of the code of each symbol
+     * Version 3.0
      *
-     * @param text - the text that needs to be converted to binary
-     * @return String for the binary representation of text
+     * @param frequencies - the frequency of each symbol, 256 for the byte codes or more for bigger alphabets
+     * @param maxLength   - the longest code allowed, 0 for no limit
+     * @return the length of the code of each symbol, 0 if the symbol is not used
      */
 
-    private static String padWithZeros(String text) {
-        // get the number of bytes the current text holds(number of groups of 8, including remainder)
-        int bytesSize = text.length() / 8;
-        if ((text.length() % 8) != 0) {
-            bytesSize += 1;
-        }// if its only one byte, add leading zeros and return the last 8 zeros
-        if (bytesSize == 1) {
-            String result = "00000000" + text;
-            return result.substring(result.length() - 8);
-        } else {// if there is more then 1 byte, add trailing zeros and return a string of length 8 * number of bytes
-            String result = text + "00000000";
-            return result.substring(0, 8 * bytesSize);
-        }
-    }// end padWithZeros
+    static int[] buildLengths(long[] frequencies, int maxLength) {
+        return buildLengths(frequencies, maxLength, null);
+    }// end buildLengths
 
     /**
-     * messageToBytes
-     * Takes the encoded text and changes it all to bytes in a byte array
+     * buildLengths
+     * builds the Huffman tree for a histogram and returns the length of the code of each symbol
      * Version 1.0
      *
-     * @param msg, the text that needs to be encoded to bytes
-     * @return byte[], this will include the message in a byte array
+     * @param frequencies - the frequency of each symbol, 256 for the byte codes or more for bigger alphabets
+     * @param maxLength   - the longest code allowed, 0 for no limit
+     * @param cost        - the cost the bits of the message with and without the limit are added to, or null
+     * @return the length of the code of each symbol, 0 if the symbol is not used
      */
 
-    private static byte[] messageToBytes(String msg) {
-        // create a byte array to store each chunk of the message
-        byte[] arr = new byte[getByteArraySize(msg)];
-        // TEST - print out the length of the byte array
-        //System.out.println(arr.length);
-
-        // encode message, loop over the arr array
-        for (int i = 0; i < arr.length; i++) {
-            // creates a chunk of string which is of size 8
-            String chunk = getChunk(msg, i);
-            // TEST - Print out the chunck of string
-            //System.out.println(chunk);
-            // Take the chunck and convert it to a byte by using encodeToByte
-            byte encodedByte = encodeToByte(chunk);
-            // save that byte in the byte array
-            arr[i] = encodedByte;
-
-        }
-        // return the byte array back
-        return arr;
-    }// messageToBytes end
+    static int[] buildLengths(long[] frequencies, int maxLength, LimitCost cost) {
+        long[] codes = new long[frequencies.length];
+        int[] lengths = new int[frequencies.length];
+        createEncodingTable(createTree(Histogram.toNodes(frequencies)), 0, 0, codes, lengths);
+        return limitLengths(frequencies, lengths, maxLength, cost);
+    }// end buildLengths
 
     /**
-     * saveToFile
-     * stores the decoded table and encoded message in a specified .huff file
-     * Version 1.0
+     * decodingTableAsBinary
+     * Format:
+     * Byte 1: Length of table
+     * Byte 2: The number of zeros in the last byte that needs to be skipped, because the file ended
+     * Rest is: Byte, length of byte code, and the code of the byte.
+     * Version 4.0
      *
-     * @param outFileName  - the name of the .huff file that will be the output for the encoded text
-     * @param encoded      - the text that is encoded and ready to be put into the output file
-     * @param encodedTable - the encoded table to be outputted to the file
+     * @param codes          - the code word of each byte
+     * @param lengths        - the length of the code of each byte, 0 if the byte is not in the file
+     * @param remainingZeros - the number of zeros at the end of the last byte of the encoded message
+     * @param writer         - the bit writer the table is written to
      * @throws IOException
      */
 
-    private static void saveToFile(String outFileName, String encoded, String encodedTable) throws IOException {
-        // Change the encoded message into an array of bytes, 8 bits each
-        byte[] arr = messageToBytes(encoded);
-        byte[] table = messageToBytes(encodedTable);
-
-        // output the the specified .huff file for the encoded text
-        try (OutputStream outputStream = new FileOutputStream(outFileName)) {
-            // output the whole byte array into the .huff file in outFileName
-            outputStream.write(table);
-            outputStream.write(arr);
-        }// close the output to outFileName
-    }// end of saveToFile
-
-    /**
-     * encodeToByte
-     * takes a chunk of string which is of 8 length and change it to one byte, it returns that byte
-     * Version 1.0
-     *
-     * @param chunk - the chunk of string that is 8 characters long, it will be converted to a byte
-     * @return a byte holding the chunk
-     */
+    private static void decodingTableAsBinary(long[] codes, int[] lengths, int remainingZeros, BitWriter writer) throws IOException {
 
-    private static byte encodeToByte(String chunk) {
-        // if the chunks length is less than 8, produce an error
-        if (chunk.length() > 8) {
-            System.out.println("*** Error: " + chunk);
-        }
-
-        // the end result of the byte is stored in result
-        byte result = 0;
-        // loops through the whole chunk one by one, it will loop 8 times
-        for (int i = 0; i < chunk.length(); i++) {
-            // takes the character at position i in chunck
-            char c = chunk.charAt(i); // can only be 1 or 0
-            // if the character is equal to one we put it in the byte, if it is zero we don't need to shift it since it is already there
-            if (c == '1') {
-                // creates a temporary byte variable which shifts a one to the left by the chunks length - i -1
-                byte b = (byte) (1 << (chunk.length() - i - 1));
-                // use or to put the b byte into the end result
-                result = (byte) (result | b);
+        // count the number of bytes that have a code
+        int tableSize = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] != 0) {
+                tableSize++;
             }
-            // TEST - print out the resulting byte
-            //System.out.println(Integer.toBinaryString(result));
         }
 
-        // return the final byte
-        return result;
-    }// end encodeToByte
+        // add length of the table, if table is length of 256 make all bits 0(size cannot be larger than 256)
+        writer.writeByte(tableSize == 256 ? 0 : tableSize);
+        // add the remaining zeros
+        writer.writeByte(remainingZeros);
+
+        // add all the table elements in order of the byte, before the code, add the length of the code
+        for (int i = 0; i < lengths.length; i++) {
+            int length = lengths[i];
+            if (length == 0) {
+                continue;
+            }
+            // add the byte and the length of the code
+            writer.writeByte(i);
+            writer.writeByte(length);
+            // add the code, codes that fit in one byte get leading zeros, longer codes get trailing zeros
+            int padding = (8 - length % 8) % 8;
+            if (length <= 8) {
+                writer.writeBits(0, padding);
+                writer.writeBits(codes[i], length);
+            } else {
+                writer.writeBits(codes[i], length);
+                writer.writeBits(0, padding);
+            }
+        }
+    }// end decodeTableAsBinary
 
     /**
-     * getChunk
-     * takes the encoded message and takes a chunk of 8 characters that was specified and returns it
-     * Version 1.0
+     * getRemainingZeros
+     * Gives back the total number of zeros at the end of the file to be skipped
+     * Version 2.0
      *
-     * @param encoded - the encoded text
-     * @param i       - the chunk number that needs to be returned
-     * @return - returns back a string that is a chunk of the encoded message (8 characters)
+     * @param encodedBits the number of bits in the encoded message
+     * @return integer for the number of zeros to skip over at the end of the file
      */
 
-    private static String getChunk(String encoded, int i) {
-
-        // returns a substring out of the current chunk which is i * 8, 8 characters is one chunk, I specifies which chunk needs to be taken
-        return encoded.substring(8 * i, Math.min(8 * i + 8, encoded.length()));// return back String either with 8 characters or the remainder
-    }// end getChunk
+    private static int getRemainingZeros(long encodedBits) {
+        // gets the remainder of the length of the encoded message by 8, since it will all be divided into bytes of 8
+        int remainder = (int) (encodedBits % 8);
+        // if the message fills the last byte there is nothing to skip, otherwise 8 - remainder zeros must be skipped
+        return remainder == 0 ? 0 : 8 - remainder;
+    }// end getRemainingZeros
 
     /**
-     * getByteArraySize
-     * takes an encoded text and finds out how many chunks of 8 are inside it, if there is a remainder, it adds one chunk because bytes must have 8 bits
-     * Version 1.0
+     * saveToFile
+     * stores the decoding table and the encoded message in a specified .huff file, the message is packed by a bit
+     * writer while the input file is read, so the encoded message is never held in memory
+     * Version 3.0
      *
-     * @param encoded - the encoded text
-     * @return - returns the number of chunks in the encoded message
+     * @param input       - the input to be encoded
+     * @param output      - the stream the .huff file is written to
+     * @param frequencies - the frequency of each byte, used to work out the remaining zeros before the message is encoded
+     * @param codes       - the code word of each byte
+     * @param lengths     - the length of the code of each byte
+     * @throws IOException
      */
 
-    private static int getByteArraySize(String encoded) {
-
-        // check for how many sets of 8 are inside the encoded message and stores it
-        int set8 = encoded.length() / 8;
-        // stores the remainder using the length of the text and modulo 8
-        int remainder = encoded.length() % 8;
-
-        // if there is a remainder add one to the total set of 8
-        if (remainder != 0) {
-            // return the set of 8 plus one because of the remainder
-            return set8 + 1;
-        } else {// else if there is not remainder, return the total set of 8 only
-            return set8;
-        }
-    }// end getByteArraySize
+    private static void saveToFile(MappedInput input, OutputStream output, long[] frequencies, long[] codes, int[] lengths) throws IOException {
+        // the number of zeros in the last byte is known before encoding, so the table can be written first
+        int remainingZeros = getRemainingZeros(PackageMerge.encodedBits(frequencies, lengths));
+
+        BitWriter writer = new BitWriter(output);
+        // write the table and then the encoded message
+        decodingTableAsBinary(codes, lengths, remainingZeros, writer);
+        encode(input, codes, lengths, writer, null);
+        // the last byte of the message keeps its bits at the bottom, the remaining zeros are skipped by the decoder
+        writer.flush(true);
+        writer.release();
+    }// end of saveToFile
 
     /**
      * TEST - decode
@@ -349,104 +398,309 @@ public class HuffmanEncoder {
     }// end decode
 
     /**
-     * encode
-     * reads a specified file and uses the encoding table to encode each byte and returns the encoded string
+     * saveToFileCanonical
+     * stores the file in the canonical format, only the length of each code is stored and the codes are rebuilt from
+     * the lengths in the same way by the encoder and the decoder
+     * Format:
+     * 'H' 'F' and the canonical (or indexed) format byte
+     * The number of bytes in the original file
+     * The number of bytes between two seek index points (indexed format only)
+     * The length of the code of each byte (see CanonicalCode)
+     * The encoded message, the last byte is padded with trailing zeros
+     * The seek index (indexed format only, see SeekIndex)
+     * Version 3.0
+     *
+     * @param input         - the input to be encoded
+     * @param output        - the stream the .huff file is written to
+     * @param frequencies   - the frequency of each byte
+     * @param lengths       - the length of the code of each byte
+     * @param indexInterval - the number of bytes between two seek index points, 0 for no index
+     * @throws IOException
+     */
+
+    private static void saveToFileCanonical(MappedInput input, OutputStream output, long[] frequencies, int[] lengths, int indexInterval) throws IOException {
+        // the codes only depend on the lengths, so they are rebuilt in canonical order
+        long[] codes = CanonicalCode.assignCodes(lengths);
+        // the number of bytes in the original file
+        long fileLength = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            fileLength += frequencies[i];
+        }
+
+        BitWriter writer = new BitWriter(output);
+        // write the header, the code lengths and then the encoded message
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(indexInterval > 0 ? HuffmanFormat.INDEXED : HuffmanFormat.CANONICAL);
+        writer.writeVarLong(fileLength);
+        SeekIndex index = null;
+        if (indexInterval > 0) {
+            writer.writeVarLong(indexInterval);
+            index = new SeekIndex(indexInterval);
+        }
+        CanonicalCode.writeLengths(lengths, writer);
+        encode(input, codes, lengths, writer, index);
+        // the index goes after the message
+        if (index != null) {
+            index.write(writer);
+        }
+        writer.flush(false);
+        writer.release();
+    }// end saveToFileCanonical
+
+    /**
+     * saveToFileStored
+     * stores the file without coding it, for files that a code can not make smaller
+     * Format:
+     * 'H' 'F' and the stored format byte
+     * The number of bytes in the original file
+     * The bytes of the original file
      * Version 1.0
      *
-     * @param fileName      - the file that will be read from
-     * @param encodingTable - the encoding table with all the bytes with their matching codes
-     * @return - returns back the encoded string
+     * @param input  - the input to be stored
+     * @param output - the stream the .huff file is written to
      * @throws IOException
      */
 
-    private static String encode(String fileName, Map<Byte, String> encodingTable) throws IOException {
-
-        // StringBuilder that will hold the encoded string
-        StringBuilder encode = new StringBuilder();
-
-        // variable which holds an array of all the bytes from the input file
-        byte[] getBytes;
-        // creates an inputStream to be used to read the file
-        InputStream inputStream = null;
-        // try reading the specified inputFile and collecting all the bytes into an array
-        try {
-            // create a path to the input file
-            File inputFile = new File(fileName);
-            // set getBytes to the length of the file
-            getBytes = new byte[(int) inputFile.length()];
-            inputStream = new FileInputStream(inputFile);
-            // read all the bytes in the file and store it into getBytes
-            inputStream.read(getBytes);
-        } finally {
-            if (!(inputStream == null))
-                inputStream.close();
-        }
-
-        // loop through getByte and encode each byte and add it to the encode string
-        for (int i = 0; i < getBytes.length; i++) {
-            byte tempByte = getBytes[i];
-            // TEST - print the current byte and its code
-            //System.out.println(tempByte + "->" + encodingTable.get(tempByte));
-            encode.append(encodingTable.get(tempByte));
+    private static void saveToFileStored(MappedInput input, OutputStream output) throws IOException {
+        BitWriter writer = new BitWriter(output, 16);
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.STORED);
+        writer.writeVarLong(input.size());
+        writer.flushBytes();
+        writer.release();
+        // the windows are written straight from the mapped file
+        WritableByteChannel channel = Channels.newChannel(output);
+        MappedInput windows = input.range(0, input.size());
+        ByteBuffer window;
+        while ((window = windows.nextWindow()) != null) {
+            while (window.hasRemaining()) {
+                channel.write(window);
+            }
         }
-        // return the encoded string
-        return encode.toString();
-    }// end encode
+        output.flush();
+    }// end saveToFileStored
 
     /**
-     * getFrequencies
-     * Reads a file and stores the bytes and nodes(frequency and characters) into a hashmap
+     * saveToFileInterleaved
+     * stores the file in the interleaved format, each chunk of the input is split into four parts that are encoded as
+     * four separate streams, with a jump table so the decoder can find the start of each stream
+     * Format:
+     * 'H' 'F' and the interleaved format byte
+     * The number of bytes in the original file
+     * The length of the code of each byte (see CanonicalCode), padded to a whole byte
+     * Each chunk: the number of bytes in each of the four streams (3 bytes each), and then the four streams
+     * Version 1.0
+     *
+     * @param input       - the input to be encoded
+     * @param output      - the stream the .huff file is written to
+     * @param frequencies - the frequency of each byte
+     * @param lengths     - the length of the code of each byte
+     * @throws IOException
+     */
+
+    private static void saveToFileInterleaved(MappedInput input, OutputStream output, long[] frequencies, int[] lengths) throws IOException {
+        long[] codes = CanonicalCode.assignCodes(lengths);
+        long fileLength = input.size();
+
+        BitWriter writer = new BitWriter(output);
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.INTERLEAVED);
+        writer.writeVarLong(fileLength);
+        CanonicalCode.writeLengths(lengths, writer);
+        writer.alignToByte();
+
+        // the streams of a chunk are encoded into one reused array first, their sizes go before them
+        ByteArrayOutputStream streams = new ByteArrayOutputStream(HuffmanFormat.INTERLEAVED_CHUNK_SIZE);
+        BitWriter streamWriter = new BitWriter(streams, 1 << 14);
+        int[] sizes = new int[HuffmanFormat.STREAMS];
+        int longest = getLongest(lengths);
+        for (long position = 0; position < fileLength; position += HuffmanFormat.INTERLEAVED_CHUNK_SIZE) {
+            int length = (int) Math.min(HuffmanFormat.INTERLEAVED_CHUNK_SIZE, fileLength - position);
+            ByteBuffer chunk = input.map(position, length);
+            int quarter = (length + HuffmanFormat.STREAMS - 1) / HuffmanFormat.STREAMS;
+            streams.reset();
+            long streamStart = streamWriter.getTotalBits();
+            for (int i = 0; i < HuffmanFormat.STREAMS; i++) {
+                chunk.limit(Math.min(length, (i + 1) * quarter)).position(Math.min(length, i * quarter));
+                encode(chunk, codes, lengths, longest, streamWriter);
+                streamWriter.alignToByte();
+                sizes[i] = (int) ((streamWriter.getTotalBits() - streamStart) / 8);
+                streamStart = streamWriter.getTotalBits();
+            }
+            streamWriter.flushBytes();
+            for (int i = 0; i < HuffmanFormat.STREAMS; i++) {
+                writer.writeBits(sizes[i], 24);
+            }
+            writer.writeBytes(streams.toByteArray(), 0, streams.size());
+        }
+        writer.flush(false);
+        writer.release();
+        streamWriter.release();
+    }// end saveToFileInterleaved
+
+    /**
+     * compressShared
+     * compresses an input with a codebook that the decoder already has, no tree is built and no table is stored
+     * Format:
+     * 'H' 'F' and the shared format byte
+     * The id of the codebook
+     * The number of bytes in the original file
+     * The encoded message, the last byte is padded with trailing zeros
      * Version 1.0
      *
-     * @param fileName - name of the file that is to be read from
-     * @return Hashmap array with Characters and Nodes
+     * @param input    - the input to be encoded
+     * @param output   - the stream the .huff file is written to
+     * @param codebook - the codebook
+     * @throws IOException
+     */
+
+    static void compressShared(MappedInput input, OutputStream output, Codebook codebook) throws IOException {
+        // the codebook is meant for small messages, so the writer is not given a bigger buffer than the message needs
+        long fileLength = input.size();
+        BitWriter writer = new BitWriter(output, (int) Math.min(BitWriter.DEFAULT_BUFFER_SIZE, fileLength + 16));
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.SHARED);
+        writer.writeVarLong(codebook.id);
+        writer.writeVarLong(fileLength);
+        encode(input, codebook.codes, codebook.lengths, writer, null);
+        writer.flush(false);
+        writer.release();
+    }// end compressShared
+
+    /**
+     * encode
+     * reads an input and uses the encoding table to write the code of each byte to the bit writer
+     * Version 5.0
+     *
+     * @param input    - the input that will be read from, its windows are used up
+     * @param codes    - the code word of each byte
+     * @param lengths  - the length of the code of each byte
+     * @param writer   - the bit writer that packs the codes
+     * @param index    - the seek index that the position of every interval-th code is added to, or null
+     * @throws IOException
+     */
+
+    private static void encode(MappedInput input, long[] codes, int[] lengths, BitWriter writer, SeekIndex index) throws IOException {
+        // the bit position where the message starts, seek index points are counted from here
+        long messageStart = writer.getTotalBits();
+        // the number of bytes encoded so far
+        long encoded = 0;
+        int longest = getLongest(lengths);
+
+        // read the input one mapped window at a time and encode each byte
+        ByteBuffer window;
+        while ((window = input.nextWindow()) != null) {
+            if (index == null) {
+                encode(window, codes, lengths, longest, writer);
+                continue;
+            }
+            // encode the window one interval at a time, adding a point at the start of each interval
+            ByteBuffer part = window.duplicate();
+            int position = window.position();
+            while (position < window.limit()) {
+                if (encoded % index.interval == 0) {
+                    index.add(writer.getTotalBits() - messageStart);
+                }
+                int end = (int) Math.min(window.limit(), position + index.interval - encoded % index.interval);
+                part.limit(end).position(position);
+                encode(part, codes, lengths, longest, writer);
+                encoded += end - position;
+                position = end;
+            }
+        }
+    }// end encode
+
+    /**
+     * encode
+     * writes the code of each byte from the position to the limit of a buffer to the bit writer
+     * When the codes are short enough, the codes of a lane of four (or two) bytes are looked up together, joined with
+     * the sum of their lengths and written with one writeLane, which saves most of the work of the writer
+     * Version 3.0
+     *
+     * @param window  - the bytes to encode, the position of the buffer is not changed
+     * @param codes   - the code word of each byte, with no bits above its length
+     * @param lengths - the length of the code of each byte
+     * @param longest - the longest code in lengths, from getLongest, found once for each table
+     * @param writer  - the bit writer that packs the codes
      * @throws IOException
      */
 
-    private static Map<Byte, Node> getFrequencies(String fileName) throws IOException {
-        // Creates a hashmap that has Characters as a key and Nodes as the value
-        Map<Byte, Node> frequency = new HashMap<>();
-
-        // holds the whole file in a byte array
-        byte[] getBytes;
-        InputStream inputStream = null;
-        // try reading the specified inputFile and collecting all the bytes into an array
-        try {
-            File inputFile = new File(fileName);
-            getBytes = new byte[(int) inputFile.length()];
-            inputStream = new FileInputStream(inputFile);
-            inputStream.read(getBytes);
-        } finally {
-            if (!(inputStream == null))
-                inputStream.close();
-        }
-
-        // loop through all the bytes and add them to the table, or increase their frequency
-        for (int i = 0; i < getBytes.length; i++) {
-            // get the current byte in the getBytes array
-            byte currentByte = getBytes[i];
-
-            // creates a temporary node that stores a node from frequency of the current byte
-            Node node = frequency.get(currentByte);
-
-            // if the current byte does not have its own node, create one
-            if (node == null) {
-                node = new Node();
-                node.b = currentByte;
-                node.frequency = 0;
+    static void encode(ByteBuffer window, long[] codes, int[] lengths, int longest, BitWriter writer) throws IOException {
+        int i = window.position();
+        int end = window.limit();
+        if (longest <= BitWriter.MAX_LANE_BITS / 4) {
+            for (; i + 3 < end; i += 4) {
+                int b0 = window.get(i) & 255;
+                int b1 = window.get(i + 1) & 255;
+                int b2 = window.get(i + 2) & 255;
+                int b3 = window.get(i + 3) & 255;
+                int l1 = lengths[b1];
+                int l2 = lengths[b2];
+                int l3 = lengths[b3];
+                long lane = (((codes[b0] << l1 | codes[b1]) << l2 | codes[b2]) << l3) | codes[b3];
+                writer.writeLane(lane, lengths[b0] + l1 + l2 + l3);
+            }
+        } else if (longest <= BitWriter.MAX_LANE_BITS / 2) {
+            for (; i + 1 < end; i += 2) {
+                int b0 = window.get(i) & 255;
+                int b1 = window.get(i + 1) & 255;
+                int l1 = lengths[b1];
+                writer.writeLane(codes[b0] << l1 | codes[b1], lengths[b0] + l1);
             }
+        }
+        // the bytes left over, or every byte when a code is too long to join
+        for (; i < end; i++) {
+            int tempByte = window.get(i) & 255;
+            // TEST - print the current byte and its code
+            //System.out.println(tempByte + "->" + Long.toBinaryString(codes[tempByte]));
+            writer.writeBits(codes[tempByte], lengths[tempByte]);
+        }
+    }// end encode
+
+    /**
+     * getLongest
+     * Version 1.0
+     *
+     * @param lengths - the length of the code of each byte
+     * @return the longest code, which decides how many codes encode joins into one lane
+     */
 
-            // increase the frequency of the current byte's node by one
-            node.frequency += 1;
+    static int getLongest(int[] lengths) {
+        int longest = 0;
+        for (int length : lengths) {
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }// end getLongest
 
-            // update/add the byte and node to the frequency map
-            frequency.put(currentByte, node);
+    /**
+     * getFrequencies
+     * Reads an input and counts how many times each byte is in it
+     * Version 4.0
+     *
+     * @param input - the input that is to be read from, its windows are used up
+     * @return the frequency of each byte, indexed by the byte (0 to 255)
+     * @throws IOException
+     */
+
+    static long[] getFrequencies(MappedInput input) throws IOException {
+        // the frequencies of the whole file
+        long[] frequency = new long[256];
+        // read the file one mapped window at a time, the file is never copied into memory
+        ByteBuffer window;
+        while ((window = input.nextWindow()) != null) {
+            // count all the bytes with the primitive histogram, big windows are counted in parallel
+            Histogram.merge(frequency, Histogram.count(window));
         }
 
-        // TEST - print out the frequency map
-        //System.out.println(frequency);
+        // TEST - print out the frequencies
+        //System.out.println(Arrays.toString(frequency));
 
-        // returns the HashMap
+        // returns the frequencies
         return frequency;
     }// getFrequencies ends
 
@@ -463,7 +717,7 @@ public class HuffmanEncoder {
         nodes.sort(new Comparator<Node>() {
             // compare the frequency of two nodes and switch if the first is bigger than the second
             public int compare(Node o1, Node o2) {
-                return o1.frequency - o2.frequency;
+                return Long.compare(o1.frequency, o2.frequency);
             }
         });
     }// sortByFrequency ends
@@ -471,25 +725,36 @@ public class HuffmanEncoder {
     /**
      * createTree
      * takes the list of nodes and creates a tree and returns the top node back
-     * Version 1.0
+     * The nodes are only sorted once, new nodes are made in order of frequency so they go in a second queue that is
+     * always sorted, and the 2 smallest nodes are always at the front of the two queues
+     * Version 2.0
      *
      * @param nodes - the list of current nodes
      * @return - returns back the top node in the tree
      */
 
-    private static Node createTree(ArrayList<Node> nodes) {
+    static Node createTree(ArrayList<Node> nodes) {
+        // an empty file has no tree
+        if (nodes.isEmpty()) {
+            return null;
+        }
         // sorts all the nodes by lowest to greatest frequency
         sortByFrequency(nodes);
         // TEST - Print out the sorted nodes list
         //System.out.println(nodes);
 
+        // the queue of new nodes, and the front of both queues
+        ArrayList<Node> merged = new ArrayList<Node>(nodes.size());
+        int leafIndex = 0;
+        int mergedIndex = 0;
+
         // store the size of the nodes list in count
         int count = nodes.size() - 1;
         // loop through the nodes original size
         for (int i = 0; i < count; i++) {
-            // take the 2 nodes with the smallest frequency
-            Node node1 = nodes.get(0);
-            Node node2 = nodes.get(1);
+            // take the 2 nodes with the smallest frequency from the front of the queues
+            Node node1 = leafIsSmaller(nodes, leafIndex, merged, mergedIndex) ? nodes.get(leafIndex++) : merged.get(mergedIndex++);
+            Node node2 = leafIsSmaller(nodes, leafIndex, merged, mergedIndex) ? nodes.get(leafIndex++) : merged.get(mergedIndex++);
 
             // create a new node
             Node node = new Node();
@@ -501,52 +766,76 @@ public class HuffmanEncoder {
             // set the right node as the higher frequency node
             node.right = node2;
 
-            // remove the 2 lowest frequency nodes that were used to create a new node
-            nodes.remove(0);
-            nodes.remove(0);
-            // add the new node to the list of nodes
-            nodes.add(node);
-
-            // sort all the nodes again
-            sortByFrequency(nodes);
-            // TEST - print out the iteration and the list of nodes
-            //System.out.println(i + " " + nodes);
+            // add the new node to the end of the queue of new nodes, it is never smaller than the nodes before it
+            merged.add(node);
+            // TEST - print out the iteration and the new node
+            //System.out.println(i + " " + node);
         }
 
-        // return the top node, which will be the only node in this list
-        return nodes.get(0);
+        // return the top node, which is the last node made (or the only leaf)
+        return merged.isEmpty() ? nodes.get(0) : merged.get(merged.size() - 1);
     }// end createTree
 
+    /**
+     * leafIsSmaller
+     * looks at the front of the two queues of nodes and checks if the next smallest node is a leaf
+     * Version 1.0
+     *
+     * @param leaves      - the sorted leaf nodes
+     * @param leafIndex   - the front of the leaf queue
+     * @param merged      - the new nodes, in order of frequency
+     * @param mergedIndex - the front of the new node queue
+     * @return true if the leaf at the front is the smallest node, leaves come first when the frequencies are the same
+     */
+
+    private static boolean leafIsSmaller(ArrayList<Node> leaves, int leafIndex, ArrayList<Node> merged, int mergedIndex) {
+        if (leafIndex >= leaves.size()) {
+            return false;
+        }
+        if (mergedIndex >= merged.size()) {
+            return true;
+        }
+        return leaves.get(leafIndex).frequency <= merged.get(mergedIndex).frequency;
+    }// end leafIsSmaller
+
     /**
      * createEncodingTable
-     * A recursive function which takes the top node and finds the leafs of the tree and creates codes for each character of the leaf
+     * A recursive function which takes the top node and finds the leafs of the tree and creates codes for each byte of the leaf
+     * Version 2.0
      *
-     * @param node - the top node of the tree
-     * @param code - the code for each character will be stored here recursively, string cannot be immolated so every time it goes back in the recursion the string goes back to the original
-     * @param map  - the map that holds the character and its code
+     * @param node    - the top node of the tree
+     * @param code    - the code of the current node, every time it goes down the tree a 0 (left) or a 1 (right) is added to the bottom
+     * @param length  - the number of bits in the code of the current node
+     * @param codes   - the array that holds the code word of each byte
+     * @param lengths - the array that holds the length of the code of each byte
      */
 
-    private static void createEncodingTable(Node node, String code, Map<Byte, String> map) {
-        // if the current node has a character
-        if (node.b != null) {
-            // TEST - print out the character with its code
-            //System.out.println(node.c+"="+code);
-            // put the character and its code into the map
-            map.put(node.b, code);
+    static void createEncodingTable(Node node, long code, int length, long[] codes, int[] lengths) {
+        // an empty file has no tree
+        if (node == null) {
+            return;
+        }
+        // if the current node has a symbol
+        if (node.symbol != null) {
+            // TEST - print out the symbol with its code
+            //System.out.println(node.symbol + "=" + Long.toBinaryString(code));
+            // store the code of the symbol, if the tree is a single leaf it still gets a one bit code so it can be decoded
+            codes[node.symbol] = code;
+            lengths[node.symbol] = Math.max(length, 1);
             // return back
             return;
         }
 
         // if there is a left node
         if (node.left != null) {
-            // use recursion and set the node as the node.left of the current node, add 0 to the code (0 is for left in tree), and put in the same map as before
-            createEncodingTable(node.left, code + "0", map);
+            // use recursion and set the node as the node.left of the current node, add 0 to the code (0 is for left in tree)
+            createEncodingTable(node.left, code << 1, length + 1, codes, lengths);
         }
 
         // if there is a right node
         if (node.right != null) {
-            // use recursion and set the node as the node.right of the current node, add 1 to the code (1 is for right in tree), and put in the same map as before
-            createEncodingTable(node.right, code + "1", map);
+            // use recursion and set the node as the node.right of the current node, add 1 to the code (1 is for right in tree)
+            createEncodingTable(node.right, (code << 1) | 1, length + 1, codes, lengths);
         }
     }// end createEncodingTable
 }// main class close
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.company;
+
+//imports
+
+import java.nio.ByteBuffer;
+
+/**
+ * Huffman Format
+ *
+ * Constants for the .huff file formats
+ * The original format starts with the length of the table and the number of remaining zeros (0 to 8)
+ * The newer formats start with the two magic bytes 'H' 'F', the second byte can never be a number of remaining zeros,
+ * and then a byte for the format:
+ * Canonical - the number of bytes in the original file, the code lengths (see CanonicalCode) and then the message
+ * Indexed - the canonical format with the seek index interval after the number of bytes, and a seek index after the
+ * message (see SeekIndex)
+ * Adaptive - no table, the codes change after every byte (see AdaptiveHuffman) and the message ends with an end symbol
+ * Interleaved - the number of bytes in the original file, the code lengths (see CanonicalCode) padded to a whole byte,
+ * and then the message in chunks of INTERLEAVED_CHUNK_SIZE bytes, each chunk is split into STREAMS parts that are
+ * encoded as separate streams so they can be decoded at the same time:
+ * a jump table with the number of bytes in each stream (3 bytes each), and then the streams, each padded to a whole byte
+ * Context - the number of bytes in the original file, the number of code tables, the table of each previous byte, the
+ * code lengths of each table and then the message, where each byte uses the table of the byte before it (see
+ * ContextEncoder)
+ * Shared - the id of a codebook trained ahead of time (see Codebook) in place of the table, the number of bytes in the
+ * original file and then the message
+ * Blocks - the number of bytes in the original file, the block size, and then each block in order:
+ * the number of bytes in the block body, and the body, which starts with the block type
+ * Block types:
+ * Huffman - the code lengths of the block and then the message of the block, padded to a whole byte
+ * Reuse   - the message of the block, padded to a whole byte, with the table of the block before
+ * Stored  - the bytes of the block as they are, for blocks a code can not make smaller
+ * BWT - the blocks format, but each block is transformed before it is coded and has no block type (see BwtEncoder)
+ * LZ77 - the number of bytes in the original file, and then blocks of literals and matches (see Lz77Encoder)
+ * Stored - the number of bytes in the original file and then the bytes as they are, for files a code can not make
+ * smaller (see EntropySampler)
+ * Archive - many files, each one a whole message in any of the formats above, and a central directory at the end (see
+ * HuffmanArchive)
+ */
+
+public class HuffmanFormat {
+
+    // the magic bytes at the start of the newer formats
+    static final int MAGIC_1 = 'H';
+    static final int MAGIC_2 = 'F';
+
+    // the format bytes
+    static final int CANONICAL = 1;
+    static final int BLOCKS = 2;
+    static final int INDEXED = 3;
+    static final int ADAPTIVE = 4;
+    static final int SHARED = 5;
+    static final int INTERLEAVED = 6;
+    static final int CONTEXT = 7;
+    static final int BWT = 8;
+    static final int LZ77 = 9;
+    static final int STORED = 10;
+    static final int ARCHIVE = 11;
+
+    // the block types
+    static final int BLOCK_HUFFMAN = 0;
+    static final int BLOCK_REUSE = 1;
+    static final int BLOCK_STORED = 2;
+
+    // the default block size for the block and BWT formats
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    // the number of streams in each chunk of the interleaved format, the number of bytes in a chunk, and the number of
+    // bytes in the jump table at the start of a chunk
+    static final int STREAMS = 4;
+    static final int INTERLEAVED_CHUNK_SIZE = 1 << 18;
+    static final int JUMP_TABLE_SIZE = 3 * STREAMS;
+
+    // the number of bytes before the body of a newer format
+    static final int HEADER_SIZE = 3;
+
+    /**
+     * getFormat
+     * finds the format of a .huff file from its first bytes
+     * Version 1.0
+     *
+     * @param data the bytes at the start of the file, starting at position 0
+     * @return the format byte, or 0 for the original format
+     */
+
+    public static int getFormat(ByteBuffer data) {
+        if (data.limit() >= HEADER_SIZE && data.get(0) == MAGIC_1 && data.get(1) == MAGIC_2) {
+            return data.get(2) & 255;
+        }
+        return 0;
+    }// end getFormat
+}// end HuffmanFormat
@@ -0,0 +1,544 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.ObjectName;
+
+/**
+ * Huffman Metrics
+ *
+ * Measures the time, the bytes in and out, the throughput and the allocations of each stage of compressing and
+ * decompressing a file, and reports them as JDK Flight Recorder events (see StageEvent) and as the totals of a JMX
+ * MBean (see HuffmanMetricsMBean)
+ * A stage is only measured while the metrics are enabled (-Dhuffman.metrics=true or the Enabled attribute) or a
+ * flight recording has the stage event enabled, otherwise start returns null and each stage only costs a few field
+ * reads
+ * The MBean is registered with -Dhuffman.metrics=true (or =jmx to register it without measuring until it is enabled),
+ * or by calling register
+ * The events come from the jfr folder (see StageRecorder), so the core still builds and runs on Java 8 without jdk.jfr
+ */
+
+public class HuffmanMetrics implements HuffmanMetricsMBean {
+
+    // the stages, compress and decompress cover the whole file in any format, the others are the steps of the
+    // canonical and original formats
+    static final int COMPRESS = 0;
+    static final int FREQUENCIES = 1;
+    static final int TREE = 2;
+    static final int TABLE = 3;
+    static final int ENCODE = 4;
+    static final int DECOMPRESS = 5;
+    static final int DECODE_TABLE = 6;
+    static final int DECODE = 7;
+    static final String[] STAGES = {"compress", "frequencies", "tree", "table", "encode", "decompress",
+            "decodeTable", "decode"};
+
+    // the name of the MBean
+    public static final String OBJECT_NAME = "com.company:type=HuffmanMetrics";
+
+    // true while the stages are measured for JMX
+    private static volatile boolean enabled = "true".equals(System.getProperty("huffman.metrics"));
+    // true while a flight recording has the stage event enabled, kept up to date by the Recorder
+    private static volatile boolean recording;
+    // true until the flight recorder is running and watched, or is known to be missing
+    private static volatile boolean waiting = true;
+
+    // the totals of each stage
+    private static final AtomicLongArray counts = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray bytesIn = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray bytesOut = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray allocated = new AtomicLongArray(STAGES.length);
+    // the last code table
+    private static volatile long lastTableBits;
+    private static volatile double lastAverageCodeLength;
+
+    // true once the MBean is registered
+    private static boolean registered;
+
+    static {
+        String property = System.getProperty("huffman.metrics");
+        if ("true".equals(property) || "jmx".equals(property)) {
+            register();
+        }
+    }
+
+    /**
+     * Allocations
+     * holds the bean that counts the bytes allocated by each thread, or null if the JVM does not have one, it is only
+     * looked up once a stage is measured
+     */
+
+    private static final class Allocations {
+        static final com.sun.management.ThreadMXBean threads = allocationBean();
+    }
+
+    /**
+     * Recorder
+     * holds the flight recorder half of the metrics, or null if it was not built or the JVM does not have jdk.jfr, it
+     * is only looked up once a stage is measured
+     */
+
+    private static final class Recorder {
+        static final StageRecorder events = load();
+
+        /**
+         * load
+         * Version 1.0
+         *
+         * @return a new JfrStageRecorder, or null if it can not be made
+         */
+
+        private static StageRecorder load() {
+            try {
+                Class<?> implementation = Class.forName(StageRecorder.IMPLEMENTATION);
+                return (StageRecorder) implementation.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                return null;
+            } catch (LinkageError e) {
+                return null;
+            }
+        }// end load
+    }
+
+    /**
+     * Timer
+     * the start of one stage
+     */
+
+    static final class Timer {
+        final int stage;
+        final long startNanos;
+        final long startAllocated;
+        // the flight recorder event, or null if no recording wants it
+        final Object event;
+
+        Timer(int stage, long startNanos, long startAllocated, Object event) {
+            this.stage = stage;
+            this.startNanos = startNanos;
+            this.startAllocated = startAllocated;
+            this.event = event;
+        }
+    }
+
+    /**
+     * register
+     * registers the MBean with the platform MBean server, only the first call does anything
+     * Version 1.0
+     */
+
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new HuffmanMetrics(), new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }// end register
+
+    /**
+     * start
+     * starts measuring a stage
+     * Version 2.0
+     *
+     * @param stage the stage
+     * @return the timer to pass to end, or null if nothing is measured
+     */
+
+    static Timer start(int stage) {
+        if (waiting) {
+            watchRecorder();
+        }
+        boolean jfr = recording;
+        if (!enabled && !jfr) {
+            return null;
+        }
+        return new Timer(stage, System.nanoTime(), allocatedBytes(), jfr ? Recorder.events.start() : null);
+    }// end start
+
+    /**
+     * watchRecorder
+     * keeps recording up to date as flight recordings start and stop, once the flight recorder is running
+     * Version 2.0
+     */
+
+    private static void watchRecorder() {
+        try {
+            final StageRecorder events = Recorder.events;
+            if (events == null) {
+                // without the flight recorder half there is only the MBean
+                waiting = false;
+            } else if (events.isRunning()) {
+                synchronized (HuffmanMetrics.class) {
+                    if (waiting) {
+                        Runnable update = new Runnable() {
+                            @Override
+                            public void run() {
+                                recording = events.isEnabled();
+                            }
+                        };
+                        events.watch(update);
+                        update.run();
+                        waiting = false;
+                    }
+                }
+            }
+        } catch (LinkageError e) {
+            // a JVM without the flight recorder only has the MBean
+            waiting = false;
+        }
+    }// end watchRecorder
+
+    /**
+     * end
+     * ends a stage and adds it to the totals
+     * Version 1.0
+     *
+     * @param timer    the timer from start, nothing is done if it is null
+     * @param bytesIn  the number of bytes read by the stage
+     * @param bytesOut the number of bytes written by the stage
+     */
+
+    static void end(Timer timer, long bytesIn, long bytesOut) {
+        if (timer != null) {
+            end(timer, System.nanoTime(), allocatedBytes(), bytesIn, bytesOut, 0, 0);
+        }
+    }// end end
+
+    /**
+     * endTable
+     * ends a stage that built a code table, the size of the table is worked out after the stage is timed
+     * Version 1.0
+     *
+     * @param timer       the timer from start, nothing is done if it is null
+     * @param bytesIn     the number of bytes read by the stage
+     * @param lengths     the length of the code of each byte
+     * @param frequencies the frequency of each byte
+     * @throws IOException
+     */
+
+    static void endTable(Timer timer, long bytesIn, int[] lengths, long[] frequencies) throws IOException {
+        if (timer == null) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        long endAllocated = allocatedBytes();
+        long tableBits = BlockEncoder.tableBits(lengths);
+        long total = 0;
+        for (long frequency : frequencies) {
+            total += frequency;
+        }
+        double averageCodeLength = total > 0 ? (double) PackageMerge.encodedBits(frequencies, lengths) / total : 0;
+        lastTableBits = tableBits;
+        lastAverageCodeLength = averageCodeLength;
+        end(timer, endNanos, endAllocated, bytesIn, (tableBits + 7) / 8, tableBits, averageCodeLength);
+    }// end endTable
+
+    /**
+     * end
+     * Version 2.0
+     *
+     * @param timer             the timer from start
+     * @param endNanos          the time the stage ended
+     * @param endAllocated      the bytes allocated on the thread when the stage ended
+     * @param in                the number of bytes read by the stage
+     * @param out               the number of bytes written by the stage
+     * @param tableBits         the number of bits in the code table, 0 if the stage did not build one
+     * @param averageCodeLength the average length of the codes, 0 if the stage did not build a table
+     */
+
+    private static void end(Timer timer, long endNanos, long endAllocated, long in, long out, long tableBits,
+                            double averageCodeLength) {
+        long time = endNanos - timer.startNanos;
+        long allocation = timer.startAllocated >= 0 && endAllocated >= 0 ? endAllocated - timer.startAllocated : -1;
+        int stage = timer.stage;
+        counts.incrementAndGet(stage);
+        nanos.addAndGet(stage, time);
+        bytesIn.addAndGet(stage, in);
+        bytesOut.addAndGet(stage, out);
+        if (allocation > 0) {
+            allocated.addAndGet(stage, allocation);
+        }
+        if (timer.event != null) {
+            Recorder.events.commit(timer.event, STAGES[stage], in, out, megabytesPerSecond(in, time), tableBits,
+                    averageCodeLength, allocation);
+        }
+    }// end end
+
+    /**
+     * countOutput
+     * Version 1.0
+     *
+     * @param output the stream a stage writes to
+     * @param timer  the timer of the stage, or null if it is not measured
+     * @return a stream that counts the bytes written to output (see written), or output if the stage is not measured
+     */
+
+    static OutputStream countOutput(OutputStream output, Timer timer) {
+        if (timer == null) {
+            return output;
+        }
+        return new CountingStream(output);
+    }// end countOutput
+
+    /**
+     * countOutput
+     * Version 1.0
+     *
+     * @param channel the channel a stage writes to
+     * @param timer   the timer of the stage, or null if it is not measured
+     * @return a channel that counts the bytes written to channel (see written), or channel if the stage is not measured
+     */
+
+    static WritableByteChannel countOutput(WritableByteChannel channel, Timer timer) {
+        if (timer == null) {
+            return channel;
+        }
+        return new CountingChannel(channel);
+    }// end countOutput
+
+    /**
+     * written
+     * Version 1.0
+     *
+     * @param output the stream or channel from countOutput
+     * @return the number of bytes written to it, 0 if it does not count them
+     */
+
+    static long written(Object output) {
+        if (output instanceof CountingStream) {
+            return ((CountingStream) output).count;
+        }
+        if (output instanceof CountingChannel) {
+            return ((CountingChannel) output).count;
+        }
+        return 0;
+    }// end written
+
+    /**
+     * CountingStream
+     * passes every byte on to another stream and counts them
+     */
+
+    private static final class CountingStream extends OutputStream {
+        private final OutputStream output;
+        long count;
+
+        CountingStream(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            output.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            output.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * CountingChannel
+     * passes every byte on to another channel and counts them
+     */
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        long count;
+
+        CountingChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int written = channel.write(source);
+            count += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * allocationBean
+     * Version 1.0
+     *
+     * @return the bean that counts the bytes allocated by each thread, or null if the JVM does not have one
+     */
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                ((com.sun.management.ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+                return (com.sun.management.ThreadMXBean) bean;
+            }
+        } catch (Throwable e) {
+            // the allocations are reported as -1
+        }
+        return null;
+    }// end allocationBean
+
+    /**
+     * allocatedBytes
+     * Version 1.0
+     *
+     * @return the number of bytes the current thread has allocated, -1 if it is not known
+     */
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = Allocations.threads;
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }// end allocatedBytes
+
+    /**
+     * megabytesPerSecond
+     * Version 1.0
+     *
+     * @param bytes the number of bytes
+     * @param time  the time in nanoseconds
+     * @return the bytes per second, in MB
+     */
+
+    private static double megabytesPerSecond(long bytes, long time) {
+        return time > 0 ? bytes / (double) (1 << 20) / (time / 1e9) : 0;
+    }// end megabytesPerSecond
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public String[] getStages() {
+        return STAGES.clone();
+    }
+
+    @Override
+    public long[] getStageCounts() {
+        return toArray(counts, 1);
+    }
+
+    @Override
+    public long[] getStageMillis() {
+        return toArray(nanos, 1000000);
+    }
+
+    @Override
+    public long[] getStageBytesIn() {
+        return toArray(bytesIn, 1);
+    }
+
+    @Override
+    public long[] getStageBytesOut() {
+        return toArray(bytesOut, 1);
+    }
+
+    @Override
+    public double[] getStageMegabytesPerSecond() {
+        double[] speeds = new double[STAGES.length];
+        for (int i = 0; i < speeds.length; i++) {
+            speeds[i] = megabytesPerSecond(bytesIn.get(i), nanos.get(i));
+        }
+        return speeds;
+    }
+
+    @Override
+    public long[] getStageAllocatedBytes() {
+        return toArray(allocated, 1);
+    }
+
+    @Override
+    public long getLastTableBits() {
+        return lastTableBits;
+    }
+
+    @Override
+    public double getLastAverageCodeLength() {
+        return lastAverageCodeLength;
+    }
+
+    @Override
+    public long getArenaHits() {
+        return BufferArena.getHits();
+    }
+
+    @Override
+    public long getArenaMisses() {
+        return BufferArena.getMisses();
+    }
+
+    @Override
+    public long getArenaRetainedBytes() {
+        return BufferArena.getRetainedBytes();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < STAGES.length; i++) {
+            counts.set(i, 0);
+            nanos.set(i, 0);
+            bytesIn.set(i, 0);
+            bytesOut.set(i, 0);
+            allocated.set(i, 0);
+        }
+        lastTableBits = 0;
+        lastAverageCodeLength = 0;
+        BufferArena.resetCounts();
+    }
+
+    /**
+     * toArray
+     * Version 1.0
+     *
+     * @param totals  the totals of each stage
+     * @param divisor the number to divide each total by
+     * @return the totals as an array
+     */
+
+    private static long[] toArray(AtomicLongArray totals, long divisor) {
+        long[] values = new long[totals.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = totals.get(i) / divisor;
+        }
+        return values;
+    }// end toArray
+}// end HuffmanMetrics
@@ -0,0 +1,50 @@
+package com.company;
+
+/**
+ * Huffman Metrics MBean
+ *
+ * The JMX view of HuffmanMetrics, each array has one entry for each stage in the order of getStages
+ */
+
+public interface HuffmanMetricsMBean {
+
+    // true while the stages are being measured
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // the names of the stages
+    String[] getStages();
+
+    // the number of times each stage has run
+    long[] getStageCounts();
+
+    // the total time spent in each stage
+    long[] getStageMillis();
+
+    // the total number of bytes read and written by each stage
+    long[] getStageBytesIn();
+
+    long[] getStageBytesOut();
+
+    // the bytes read per second by each stage, in MB
+    double[] getStageMegabytesPerSecond();
+
+    // the total number of bytes allocated on the thread that ran each stage
+    long[] getStageAllocatedBytes();
+
+    // the number of bits in the last code table that was built, and the average length of its codes
+    long getLastTableBits();
+
+    double getLastAverageCodeLength();
+
+    // the buffers borrowed from the BufferArena that were reused and that had to be allocated, and the bytes it keeps
+    long getArenaHits();
+
+    long getArenaMisses();
+
+    long getArenaRetainedBytes();
+
+    // sets every count back to 0, the arena keeps its buffers
+    void reset();
+}// end HuffmanMetricsMBean
@@ -0,0 +1,113 @@
+package com.company;
+
+//imports
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit Cost
+ *
+ * The cost of a limit on the length of the codes of a compressed file: the bits the messages of its tables take with
+ * the lengths of the Huffman tree, and with the lengths under the limit (see PackageMerge)
+ * The tables of the block formats are built on several threads, so the totals can be added to at the same time
+ */
+
+public class LimitCost {
+
+    // the longest code allowed, 0 for no limit
+    private final int maxLength;
+    // the bits of the messages without and with the limit
+    private final AtomicLong optimalBits = new AtomicLong();
+    private final AtomicLong limitedBits = new AtomicLong();
+
+    LimitCost(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * add
+     * Version 1.0
+     *
+     * @param optimal the bits of a message with the lengths of the Huffman tree
+     * @param limited the bits of the same message with the lengths under the limit
+     */
+
+    void add(long optimal, long limited) {
+        optimalBits.addAndGet(optimal);
+        limitedBits.addAndGet(limited);
+    }// end add
+
+    /**
+     * add
+     * adds the totals of another cost, once the table it was counted for is chosen
+     * Version 1.0
+     *
+     * @param other the cost of one table
+     */
+
+    void add(LimitCost other) {
+        add(other.getOptimalBits(), other.getLimitedBits());
+    }// end add
+
+    /**
+     * getMaxLength
+     * Version 1.0
+     *
+     * @return the longest code allowed, 0 for no limit
+     */
+
+    public int getMaxLength() {
+        return maxLength;
+    }// end getMaxLength
+
+    /**
+     * getOptimalBits
+     * Version 1.0
+     *
+     * @return the bits of the messages with the lengths of the Huffman tree
+     */
+
+    public long getOptimalBits() {
+        return optimalBits.get();
+    }// end getOptimalBits
+
+    /**
+     * getLimitedBits
+     * Version 1.0
+     *
+     * @return the bits of the messages with the lengths under the limit
+     */
+
+    public long getLimitedBits() {
+        return limitedBits.get();
+    }// end getLimitedBits
+
+    /**
+     * getExtraBits
+     * Version 1.0
+     *
+     * @return the bits the limit added to the messages
+     */
+
+    public long getExtraBits() {
+        return getLimitedBits() - getOptimalBits();
+    }// end getExtraBits
+
+    /**
+     * getRatioCost
+     * Version 1.0
+     *
+     * @return how much larger the messages are with the limit, 0.01 for 1%
+     */
+
+    public double getRatioCost() {
+        long optimal = getOptimalBits();
+        return optimal > 0 ? (double) getExtraBits() / optimal : 0;
+    }// end getRatioCost
+
+    @Override
+    public String toString() {
+        return "limiting codes to " + maxLength + " bits cost " + getExtraBits() + " bits ("
+                + String.format("%.3f", 100 * getRatioCost()) + "% larger message)";
+    }
+}// end LimitCost
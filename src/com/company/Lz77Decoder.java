@@ -0,0 +1,110 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+
+/**
+ * Lz77 Decoder
+ *
+ * Decodes the LZ77 format (see Lz77Encoder), the decoded bytes are kept in a buffer that always holds the last
+ * WINDOW_SIZE bytes, so every match can be copied from the bytes before it
+ */
+
+public class Lz77Decoder {
+
+    // the number of bytes decoded after the window before the buffer is written out
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * decode
+     * decodes every block of the message
+     * Bits past the end of the file read as zeros, so the end of the message is checked before the decoded bytes are
+     * written out
+     * Version 2.0
+     *
+     * @param reader     the reader holding the blocks
+     * @param fileLength the number of bytes in the original file
+     * @param endBit     the bit position of the reader where the message ends
+     * @param output     the buffer the decoded bytes are written to
+     * @throws IOException if a block is not valid, or the message ends before the last block does
+     */
+
+    public static void decode(BitReader reader, long fileLength, long endBit, OutputBuffer output) throws IOException {
+        byte[] history = BufferArena.borrow(Lz77Encoder.WINDOW_SIZE + CHUNK_SIZE);
+        // the end of the decoded bytes, and the end of the bytes that have been written out
+        int position = 0;
+        int written = 0;
+        long remaining = fileLength;
+        while (remaining > 0) {
+            long blockBytes = reader.readVarLong();
+            if (blockBytes < 1 || blockBytes > remaining) {
+                throw new IOException("A block is longer than the file");
+            }
+            int[] literalLengths = CanonicalCode.readLengths(reader, Lz77Encoder.LITERAL_LENGTH_SIZE);
+            int[] distanceLengths = CanonicalCode.readLengths(reader, Lz77Encoder.DISTANCE_CODES);
+            DecodeTable literals = DecodeTable.build(CanonicalCode.assignCodes(literalLengths), literalLengths);
+            DecodeTable distances = DecodeTable.build(CanonicalCode.assignCodes(distanceLengths), distanceLengths);
+            long left = blockBytes;
+            while (left > 0) {
+                // keep the last window and make room for the longest match
+                if (history.length - position < Lz77Encoder.MAX_MATCH) {
+                    checkEnd(reader, endBit);
+                    output.write(history, written, position - written);
+                    System.arraycopy(history, position - Lz77Encoder.WINDOW_SIZE, history, 0, Lz77Encoder.WINDOW_SIZE);
+                    position = Lz77Encoder.WINDOW_SIZE;
+                    written = position;
+                }
+                reader.refill();
+                int symbol = literals.decodeSymbol(reader);
+                if (symbol < Lz77Encoder.LITERALS) {
+                    history[position++] = (byte) symbol;
+                    left--;
+                    continue;
+                }
+                int code = symbol - Lz77Encoder.LITERALS;
+                int length = Lz77Encoder.MIN_MATCH + Lz77Encoder.bucketStart(code)
+                        + (int) reader.readBits(Lz77Encoder.extraBits(code));
+                reader.refill();
+                code = distances.decodeSymbol(reader);
+                int distance = 1 + Lz77Encoder.bucketStart(code) + (int) reader.readBits(Lz77Encoder.extraBits(code));
+                if (length > left || length > Lz77Encoder.MAX_MATCH) {
+                    throw new IOException("A match is longer than its block");
+                }
+                if (distance > position || distance > Lz77Encoder.WINDOW_SIZE) {
+                    throw new IOException("A match starts before the start of the file");
+                }
+                // a match can run into its own bytes, so it is copied one byte at a time when it does
+                int from = position - distance;
+                if (distance >= length) {
+                    System.arraycopy(history, from, history, position, length);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        history[position + i] = history[from + i];
+                    }
+                }
+                position += length;
+                left -= length;
+            }
+            remaining -= blockBytes;
+        }
+        checkEnd(reader, endBit);
+        output.write(history, written, position - written);
+        BufferArena.release(history);
+    }// end decode
+
+    /**
+     * checkEnd
+     * Version 1.0
+     *
+     * @param reader the reader holding the blocks
+     * @param endBit the bit position of the reader where the message ends
+     * @throws IOException if the reader has gone past the end of the message
+     */
+
+    private static void checkEnd(BitReader reader, long endBit) throws IOException {
+        if (reader.getBitPosition() > endBit) {
+            throw new IOException("The file ends before all of its bytes are decoded");
+        }
+    }// end checkEnd
+}// end Lz77Decoder
@@ -0,0 +1,426 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lz77 Encoder
+ *
+ * Compresses a file by replacing strings that were seen before with their length and distance back, and Huffman codes
+ * the literals, lengths and distances, the same way as DEFLATE
+ * The strings are found with hash chains: the 3 bytes at each position are hashed, the head of each hash holds the
+ * last position with that hash and every position points back to the one before it with the same hash, so the
+ * candidates for a match are followed from the newest to the oldest, up to WINDOW_SIZE bytes back
+ * The level decides how many candidates are checked, the length that is good enough to stop, and whether a match is
+ * put off by one byte when the next position has a longer one (lazy matching, only a quarter of the candidates are
+ * checked for it when the match is already good), so level 1 is the fastest and level 9 the smallest
+ * A length or distance is coded as a bucket (LENGTH_CODES and DISTANCE_CODES of them) and extra bits for its place in
+ * the bucket, the buckets double in size every two codes. Literals and length buckets share one code, distance
+ * buckets have their own, and both are built again for every block of BLOCK_TOKENS tokens
+ */
+
+public class Lz77Encoder {
+
+    // the shortest and longest match
+    static final int MIN_MATCH = 3;
+    static final int MAX_MATCH = 258;
+    // the number of bytes a match can look back
+    static final int WINDOW_BITS = 18;
+    static final int WINDOW_SIZE = 1 << WINDOW_BITS;
+    // the farthest match, the positions between it and the window size might be written over in the chains
+    static final int MAX_DISTANCE = WINDOW_SIZE - MAX_MATCH - 1;
+    // the literal and length code: the bytes, and then the buckets of the lengths
+    static final int LITERALS = 256;
+    static final int LENGTH_CODES = 16;
+    static final int LITERAL_LENGTH_SIZE = LITERALS + LENGTH_CODES;
+    // the buckets of the distances
+    static final int DISTANCE_CODES = 2 * WINDOW_BITS;
+    // the longest code when no limit is given, the same as DEFLATE
+    static final int DEFAULT_MAX_LENGTH = 15;
+    // the level when no level is given
+    static final int DEFAULT_LEVEL = 6;
+
+    // the number of bits in a hash of 3 bytes
+    private static final int HASH_BITS = 16;
+    // the number of tokens in each block, each block gets its own codes
+    private static final int BLOCK_TOKENS = 1 << 16;
+    // the window and the bytes after it that are held in memory
+    private static final int BUFFER_SIZE = WINDOW_SIZE * 5;
+    // for each level: the most candidates checked, the match length that stops the search, the longest match that is
+    // put off when the next position has a longer one (0 for no lazy matching), and the length of a good match
+    private static final int[][] LEVELS = {
+            {0, 0, 0, 0},
+            {4, 8, 0, 0},
+            {8, 16, 0, 0},
+            {32, 32, 0, 0},
+            {16, 16, 4, 4},
+            {32, 32, 16, 8},
+            {128, 128, 16, 8},
+            {256, 128, 32, 8},
+            {1024, MAX_MATCH, 128, 32},
+            {2048, MAX_MATCH, MAX_MATCH, 32}};
+
+    // the input, and the bytes of it that are in memory
+    private final MappedInput input;
+    private ByteBuffer window;
+    private final byte[] data = BufferArena.borrow(BUFFER_SIZE);
+    // the number of bytes in data, and true once the whole input has been read
+    private int filled;
+    private boolean ended;
+    // the last position of each hash, and the position before each position with the same hash, -1 for none
+    private final int[] head = new int[1 << HASH_BITS];
+    private final int[] previous = new int[WINDOW_SIZE];
+    // the settings of the level
+    private final int maxChain;
+    private final int niceLength;
+    private final int lazyLength;
+    private final int goodLength;
+    // the distance of the match found last
+    private int matchDistance;
+
+    // the tokens of the block: the length of each match (0 for a literal) and its distance (or the literal)
+    private final int[] tokenLengths = new int[BLOCK_TOKENS];
+    private final int[] tokenValues = new int[BLOCK_TOKENS];
+    private int tokenCount;
+    // the number of bytes the tokens of the block stand for
+    private int blockBytes;
+    // the frequency of each symbol in the block
+    private final long[] literalFrequencies = new long[LITERAL_LENGTH_SIZE];
+    private final long[] distanceFrequencies = new long[DISTANCE_CODES];
+    // the cost the bits the limit adds to each block is added to, or null
+    private final LimitCost cost;
+
+    private Lz77Encoder(MappedInput input, int level, LimitCost cost) {
+        this.input = input;
+        this.cost = cost;
+        this.maxChain = LEVELS[level][0];
+        this.niceLength = LEVELS[level][1];
+        this.lazyLength = LEVELS[level][2];
+        this.goodLength = LEVELS[level][3];
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * compress
+     * compresses an input into the LZ77 format
+     * Format:
+     * 'H' 'F' and the LZ77 format byte
+     * The number of bytes in the original file
+     * Each block in order: the number of bytes the block stands for, the length of the code of each literal and
+     * length bucket, the length of the code of each distance bucket (see CanonicalCode), and then the tokens:
+     * a literal is its code, a match is the code of its length bucket, the extra bits of the length, the code of its
+     * distance bucket and the extra bits of the distance
+     * The last byte is padded with trailing zeros
+     * Version 2.0
+     *
+     * @param input     the input to be compressed
+     * @param output    the stream the .huff file is written to
+     * @param level     1 (fastest) to 9 (smallest), 0 for DEFAULT_LEVEL
+     * @param maxLength the longest code allowed, 0 for DEFAULT_MAX_LENGTH
+     * @param cost      the cost the bits the limit adds to the blocks is added to, or null
+     * @throws IOException
+     */
+
+    public static void compress(MappedInput input, OutputStream output, int level, int maxLength, LimitCost cost) throws IOException {
+        if (level < 0 || level >= LEVELS.length) {
+            throw new IllegalArgumentException("The level must be from 1 to " + (LEVELS.length - 1));
+        }
+        BitWriter writer = new BitWriter(output);
+        writer.writeByte(HuffmanFormat.MAGIC_1);
+        writer.writeByte(HuffmanFormat.MAGIC_2);
+        writer.writeByte(HuffmanFormat.LZ77);
+        writer.writeVarLong(input.size());
+        Lz77Encoder encoder = new Lz77Encoder(input.range(0, input.size()), level > 0 ? level : DEFAULT_LEVEL, cost);
+        encoder.encode(writer, maxLength > 0 ? maxLength : DEFAULT_MAX_LENGTH);
+        BufferArena.release(encoder.data);
+        writer.flush(false);
+        writer.release();
+    }// end compress
+
+    /**
+     * encode
+     * finds the matches of the whole input and writes a block whenever the tokens are full
+     * Version 1.0
+     *
+     * @param writer    the writer the blocks are written to
+     * @param maxLength the longest code allowed
+     * @throws IOException
+     */
+
+    private void encode(BitWriter writer, int maxLength) throws IOException {
+        int position = 0;
+        fill(position);
+        // a match found one byte ahead that is used next instead of searching again
+        int pendingLength = 0;
+        int pendingDistance = 0;
+        while (position < filled) {
+            if (filled - position <= MAX_MATCH && !ended) {
+                position = fill(position);
+            }
+            int length;
+            int distance;
+            if (pendingLength > 0) {
+                length = pendingLength;
+                distance = pendingDistance;
+                pendingLength = 0;
+            } else {
+                length = findMatch(position, insert(position), MIN_MATCH - 1);
+                distance = matchDistance;
+            }
+            // put the match off if the next position has a longer one
+            int inserted = position + 1;
+            if (length >= MIN_MATCH && length < lazyLength && position + 1 < filled) {
+                int next = findMatch(position + 1, insert(position + 1), length);
+                if (next > length) {
+                    addLiteral(data[position] & 255, writer, maxLength);
+                    position++;
+                    pendingLength = next;
+                    pendingDistance = matchDistance;
+                    continue;
+                }
+                inserted++;
+            }
+            if (length >= MIN_MATCH) {
+                addMatch(length, distance, writer, maxLength);
+                // the rest of the match goes into the chains
+                for (int i = inserted; i < position + length; i++) {
+                    insert(i);
+                }
+                position += length;
+            } else {
+                addLiteral(data[position] & 255, writer, maxLength);
+                position++;
+            }
+        }
+        if (tokenCount > 0) {
+            writeBlock(writer, maxLength);
+        }
+    }// end encode
+
+    /**
+     * insert
+     * adds a position to the chain of its hash
+     * Version 1.0
+     *
+     * @param position a position in data
+     * @return the position before it with the same hash, or -1 (also when there are not 3 bytes to hash)
+     */
+
+    private int insert(int position) {
+        if (position + MIN_MATCH > filled) {
+            return -1;
+        }
+        int hash = (((data[position] & 255) << 16 | (data[position + 1] & 255) << 8 | (data[position + 2] & 255))
+                * 0x9E3779B1) >>> (32 - HASH_BITS);
+        int before = head[hash];
+        head[hash] = position;
+        previous[position & (WINDOW_SIZE - 1)] = before;
+        return before;
+    }// end insert
+
+    /**
+     * findMatch
+     * follows the chain of a position to find the longest match, the distance is kept in matchDistance
+     * Version 1.0
+     *
+     * @param position  the position in data to find a match for
+     * @param candidate the first candidate, the position before it with the same hash
+     * @param shorter   the length a match has to be longer than, fewer candidates are checked when it is good
+     * @return the length of the longest match, or shorter if there is no longer one
+     */
+
+    private int findMatch(int position, int candidate, int shorter) {
+        byte[] data = this.data;
+        int limit = Math.min(MAX_MATCH, filled - position);
+        int oldest = position - MAX_DISTANCE;
+        int best = shorter;
+        int chain = shorter >= goodLength && shorter >= MIN_MATCH ? maxChain >> 2 : maxChain;
+        while (candidate >= 0 && candidate >= oldest && chain-- > 0 && best < limit) {
+            // the byte that would make the match longer than the best is checked first
+            if (data[candidate + best] == data[position + best] && data[candidate] == data[position]) {
+                int length = 1;
+                while (length < limit && data[candidate + length] == data[position + length]) {
+                    length++;
+                }
+                if (length > best) {
+                    best = length;
+                    matchDistance = position - candidate;
+                    if (length >= niceLength) {
+                        break;
+                    }
+                }
+            }
+            candidate = previous[candidate & (WINDOW_SIZE - 1)];
+        }
+        return best;
+    }// end findMatch
+
+    /**
+     * fill
+     * reads more of the input into data, the window before the position is moved to the front first if data is full
+     * Version 1.0
+     *
+     * @param position the position in data of the next byte to encode
+     * @return the position of the same byte after the move
+     * @throws IOException
+     */
+
+    private int fill(int position) throws IOException {
+        if (filled == data.length) {
+            // move by whole windows so each position keeps its place in the chains
+            int shift = (position - WINDOW_SIZE) & -WINDOW_SIZE;
+            System.arraycopy(data, shift, data, 0, filled - shift);
+            filled -= shift;
+            position -= shift;
+            for (int i = 0; i < head.length; i++) {
+                head[i] = head[i] >= shift ? head[i] - shift : -1;
+            }
+            for (int i = 0; i < previous.length; i++) {
+                previous[i] = previous[i] >= shift ? previous[i] - shift : -1;
+            }
+        }
+        while (filled < data.length) {
+            if (window == null || !window.hasRemaining()) {
+                window = input.nextWindow();
+                if (window == null) {
+                    ended = true;
+                    break;
+                }
+            }
+            int count = Math.min(window.remaining(), data.length - filled);
+            window.get(data, filled, count);
+            filled += count;
+        }
+        return position;
+    }// end fill
+
+    /**
+     * addLiteral
+     * Version 1.0
+     *
+     * @param b         the byte
+     * @param writer    the writer the block is written to when it is full
+     * @param maxLength the longest code allowed
+     * @throws IOException
+     */
+
+    private void addLiteral(int b, BitWriter writer, int maxLength) throws IOException {
+        tokenLengths[tokenCount] = 0;
+        tokenValues[tokenCount++] = b;
+        literalFrequencies[b]++;
+        blockBytes++;
+        if (tokenCount == BLOCK_TOKENS) {
+            writeBlock(writer, maxLength);
+        }
+    }// end addLiteral
+
+    /**
+     * addMatch
+     * Version 1.0
+     *
+     * @param length    the length of the match
+     * @param distance  the number of bytes back the match starts
+     * @param writer    the writer the block is written to when it is full
+     * @param maxLength the longest code allowed
+     * @throws IOException
+     */
+
+    private void addMatch(int length, int distance, BitWriter writer, int maxLength) throws IOException {
+        tokenLengths[tokenCount] = length;
+        tokenValues[tokenCount++] = distance;
+        literalFrequencies[LITERALS + bucket(length - MIN_MATCH)]++;
+        distanceFrequencies[bucket(distance - 1)]++;
+        blockBytes += length;
+        if (tokenCount == BLOCK_TOKENS) {
+            writeBlock(writer, maxLength);
+        }
+    }// end addMatch
+
+    /**
+     * writeBlock
+     * builds the codes of the block and writes the block
+     * Version 2.0
+     *
+     * @param writer    the writer the block is written to
+     * @param maxLength the longest code allowed
+     * @throws IOException
+     */
+
+    private void writeBlock(BitWriter writer, int maxLength) throws IOException {
+        int[] literalLengths = HuffmanEncoder.buildLengths(literalFrequencies, maxLength, cost);
+        int[] distanceLengths = HuffmanEncoder.buildLengths(distanceFrequencies, maxLength, cost);
+        long[] literalCodes = CanonicalCode.assignCodes(literalLengths);
+        long[] distanceCodes = CanonicalCode.assignCodes(distanceLengths);
+        writer.writeVarLong(blockBytes);
+        CanonicalCode.writeLengths(literalLengths, writer);
+        CanonicalCode.writeLengths(distanceLengths, writer);
+        for (int i = 0; i < tokenCount; i++) {
+            int length = tokenLengths[i];
+            if (length == 0) {
+                int b = tokenValues[i];
+                writer.writeBits(literalCodes[b], literalLengths[b]);
+            } else {
+                int value = length - MIN_MATCH;
+                int code = bucket(value);
+                writer.writeBits(literalCodes[LITERALS + code], literalLengths[LITERALS + code]);
+                writer.writeBits(value - bucketStart(code), extraBits(code));
+                value = tokenValues[i] - 1;
+                code = bucket(value);
+                writer.writeBits(distanceCodes[code], distanceLengths[code]);
+                writer.writeBits(value - bucketStart(code), extraBits(code));
+            }
+        }
+        tokenCount = 0;
+        blockBytes = 0;
+        Arrays.fill(literalFrequencies, 0);
+        Arrays.fill(distanceFrequencies, 0);
+    }// end writeBlock
+
+    /**
+     * bucket
+     * Version 1.0
+     *
+     * @param value a length less MIN_MATCH, or a distance less one
+     * @return the bucket of the value: 0 to 3 are the values themselves, after that there are two buckets for each
+     * power of two
+     */
+
+    static int bucket(int value) {
+        if (value < 4) {
+            return value;
+        }
+        int power = 31 - Integer.numberOfLeadingZeros(value);
+        return 2 * power + ((value >>> (power - 1)) & 1);
+    }// end bucket
+
+    /**
+     * bucketStart
+     * Version 1.0
+     *
+     * @param code a bucket
+     * @return the smallest value in the bucket
+     */
+
+    static int bucketStart(int code) {
+        if (code < 4) {
+            return code;
+        }
+        return (2 + (code & 1)) << ((code >>> 1) - 1);
+    }// end bucketStart
+
+    /**
+     * extraBits
+     * Version 1.0
+     *
+     * @param code a bucket
+     * @return the number of bits that give the place of a value in the bucket
+     */
+
+    static int extraBits(int code) {
+        return code < 4 ? 0 : (code >>> 1) - 1;
+    }// end extraBits
+}// end Lz77Encoder
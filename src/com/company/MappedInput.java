@@ -0,0 +1,314 @@
+package com.company;
+
+//imports
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mapped Input
+ *
+ * Reads a file through memory mapped windows of a fixed size, so files bigger than 2 GB can be read and the file is
+ * never copied into the heap, only the pages of the window being used are kept in memory by the operating system
+ * It can also read a buffer that is already in memory, in the same windows, so the codec works the same way on both
+ * A pipelined input reads its windows ahead on another thread instead of mapping them (see Pipeline), so the coder is
+ * not stopped by every page it touches when the file is on slow or network storage. Its windows are borrowed from the
+ * BufferArena and given back at the next nextWindow, so a window must not be used after the next one is taken
+ * map always maps, even on a pipelined input, so only the formats that read their input in order through nextWindow
+ * gain from a pipeline: the canonical, legacy, indexed, context, stored, LZ77 and adaptive encoders, and the decoders
+ * of the canonical (on one thread), legacy, context, shared, block, LZ77 and adaptive formats. The block, BWT and
+ * interleaved encoders, parallel decoding, ranges, the BWT, interleaved and stored decoders and archives map the parts
+ * they need
+ */
+
+public class MappedInput implements Closeable {
+
+    // the default size of each mapped window
+    static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    // the channel of the file being read, or null if a buffer is read
+    private final FileChannel channel;
+    // the buffer being read, or null if a file is read
+    private final ByteBuffer buffer;
+    // true if the channel was opened here and must be closed here
+    private final boolean ownsChannel;
+    // the position where the input ends
+    private final long end;
+    // the size of each window
+    private final int windowSize;
+    // true if the windows are read ahead by a Pipeline.ReaderStage
+    private final boolean pipelined;
+    // set when the input that owns the channel is closed, shared with every range
+    private final AtomicBoolean closed;
+    // the position of the next window
+    private long position;
+    // the stage reading the windows of a pipelined input, started by the first nextWindow
+    private Pipeline.ReaderStage reader;
+    // the window handed out last by a pipelined input, its array goes back to the BufferArena at the next nextWindow
+    private ByteBuffer chunk;
+
+    public MappedInput(String fileName) throws IOException {
+        this(Paths.get(fileName));
+    }
+
+    public MappedInput(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * @param path      the file to read
+     * @param pipelined true to read the windows ahead on another thread, in chunks of Pipeline.CHUNK_SIZE
+     */
+
+    public MappedInput(Path path, boolean pipelined) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), null, true, 0, -1, DEFAULT_WINDOW_SIZE, pipelined,
+                new AtomicBoolean());
+    }
+
+    public MappedInput(FileChannel channel, long start, long end) throws IOException {
+        this(channel, null, false, start, end, DEFAULT_WINDOW_SIZE, false, new AtomicBoolean());
+    }
+
+    public MappedInput(ByteBuffer buffer) throws IOException {
+        // positions count from the position of the buffer
+        this(null, buffer.slice(), false, 0, -1, DEFAULT_WINDOW_SIZE, false, new AtomicBoolean());
+    }
+
+    private MappedInput(FileChannel channel, ByteBuffer buffer, boolean ownsChannel, long start, long end, int windowSize,
+                        boolean pipelined, AtomicBoolean closed) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.ownsChannel = ownsChannel;
+        this.position = start;
+        this.end = end < 0 ? size() : end;
+        this.windowSize = windowSize;
+        this.pipelined = pipelined && channel != null;
+        this.closed = closed;
+    }
+
+    /**
+     * nextWindow
+     * maps the next window of the file, or takes it from the reader stage of a pipelined input, the window before can
+     * not be used anymore on a pipelined input
+     * Version 3.0
+     *
+     * @return the next window, or null if the whole input has been read
+     * @throws IOException
+     */
+
+    public ByteBuffer nextWindow() throws IOException {
+        if (pipelined) {
+            releaseChunk();
+        }
+        if (position >= end) {
+            return null;
+        }
+        if (pipelined) {
+            if (reader == null) {
+                reader = new Pipeline.ReaderStage(channel, position, end, closed);
+            }
+            chunk = reader.next();
+            position = chunk != null ? position + chunk.remaining() : end;
+            return chunk;
+        }
+        int length = (int) Math.min(windowSize, end - position);
+        ByteBuffer window = map(position, length);
+        position += length;
+        return window;
+    }// end nextWindow
+
+    /**
+     * hasRemaining
+     * Version 1.0
+     *
+     * @return true if there are windows that have not been read yet
+     */
+
+    public boolean hasRemaining() {
+        return position < end;
+    }// end hasRemaining
+
+    /**
+     * getPosition
+     * Version 1.0
+     *
+     * @return the position in the file where the next window starts
+     */
+
+    public long getPosition() {
+        return position;
+    }// end getPosition
+
+    /**
+     * size
+     * Version 1.0
+     *
+     * @return the size of the whole file (or buffer)
+     * @throws IOException
+     */
+
+    public long size() throws IOException {
+        return channel != null ? channel.size() : buffer.capacity();
+    }// end size
+
+    /**
+     * range
+     * creates another input over part of the same file, it shares the channel (or buffer) so it does not need to be closed,
+     * and it is pipelined if this input is
+     * Version 1.0
+     *
+     * @param start the position in the file where the new input starts
+     * @param end   the position in the file where the new input ends
+     * @return the new input
+     * @throws IOException
+     */
+
+    public MappedInput range(long start, long end) throws IOException {
+        return new MappedInput(channel, buffer, false, start, end, windowSize, pipelined, closed);
+    }// end range
+
+    /**
+     * mappedRange
+     * creates another input over part of the same file that maps its windows even if this input is pipelined, for
+     * readers that only read the start of their range, or read many ranges at the same time, so they do not each keep
+     * a reader stage and its chunks
+     * Version 1.0
+     *
+     * @param start the position in the file where the new input starts
+     * @param end   the position in the file where the new input ends
+     * @return the new input
+     * @throws IOException
+     */
+
+    public MappedInput mappedRange(long start, long end) throws IOException {
+        return new MappedInput(channel, buffer, false, start, end, windowSize, false, closed);
+    }// end mappedRange
+
+    /**
+     * map
+     * maps any part of the file, without changing the next window
+     * Version 1.0
+     *
+     * @param start  the position in the file
+     * @param length the number of bytes to map
+     * @return the mapped bytes
+     * @throws IOException
+     */
+
+    public ByteBuffer map(long start, int length) throws IOException {
+        if (channel == null) {
+            ByteBuffer part = buffer.duplicate();
+            part.limit((int) start + length).position((int) start);
+            return part.slice();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }// end map
+
+    /**
+     * transferTo
+     * writes any part of the file to a channel, a file is sent with FileChannel.transferTo so the operating system can
+     * copy it without it passing through the heap
+     * Version 1.0
+     *
+     * @param start  the position in the file
+     * @param count  the number of bytes to write
+     * @param target the channel the bytes are written to
+     * @throws IOException if the file ends before count bytes are written
+     */
+
+    public void transferTo(long start, long count, WritableByteChannel target) throws IOException {
+        if (channel == null) {
+            ByteBuffer part = map(start, (int) count);
+            while (part.hasRemaining()) {
+                target.write(part);
+            }
+            return;
+        }
+        while (count > 0) {
+            long sent = channel.transferTo(start, count, target);
+            if (sent <= 0) {
+                throw new IOException("The file ended before all of its bytes were sent");
+            }
+            start += sent;
+            count -= sent;
+        }
+    }// end transferTo
+
+    /**
+     * openStream
+     * creates a stream that reads the whole file (or buffer) from the start, one window at a time
+     * Version 1.0
+     *
+     * @return the stream, it shares the channel so it does not need to be closed
+     * @throws IOException
+     */
+
+    public InputStream openStream() throws IOException {
+        final MappedInput windows = range(0, size());
+        return new InputStream() {
+            // the window being read
+            private ByteBuffer window = ByteBuffer.allocate(0);
+
+            @Override
+            public int read() throws IOException {
+                return nextWindow() ? window.get() & 255 : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!nextWindow()) {
+                    return -1;
+                }
+                int count = Math.min(len, window.remaining());
+                window.get(b, off, count);
+                return count;
+            }
+
+            // moves to the next window when the current one is used up, false at the end of the input
+            private boolean nextWindow() throws IOException {
+                while (!window.hasRemaining()) {
+                    ByteBuffer next = windows.nextWindow();
+                    if (next == null) {
+                        return false;
+                    }
+                    window = next;
+                }
+                return true;
+            }
+        };
+    }// end openStream
+
+    /**
+     * releaseChunk
+     * gives the array of the window handed out last back to the BufferArena
+     * Version 1.0
+     */
+
+    private void releaseChunk() {
+        if (chunk != null) {
+            BufferArena.release(chunk.array());
+            chunk = null;
+        }
+    }// end releaseChunk
+
+    @Override
+    public void close() throws IOException {
+        releaseChunk();
+        if (ownsChannel) {
+            // stops the reader stages that are still waiting for their chunks to be taken
+            closed.set(true);
+            channel.close();
+        }
+    }// end close
+}// end MappedInput
@@ -7,27 +7,33 @@ package com.company;
  * @date October 5th, 2017
  * Stores information about each node in the binary tree
  * Contains:
- * Byte - Byte of the node, well be null if it is not a leaf
+ * Symbol - the byte (or a bigger symbol, for codes with more than 256 symbols) of the node, well be null if it is not a leaf
  * Frequency - the frequency value of the node, if not a leaf it will be the sum of all the nodes before
  * Left - the node that goes to the left to continue the branch, will be null if it is a leaf
  * Right - the node that goes to the right to continue the branch, will be null if it is a leaf
+ * Parent - the node above this node, only kept by the adaptive tree (see AdaptiveHuffman)
+ * Number - the place of the node in the adaptive tree, nodes with a higher number never have a lower frequency
  */
 
 
 public class Node {
-    // The Byte of the node
-    Byte b;
+    // The symbol of the node, a byte for the byte codes
+    Integer symbol;
     // the frequency value of the node
-    int frequency;
+    long frequency;
     // node to the left and down of this node
     Node left;
     // node to the right and down of this node
     Node right;
+    // the node above this node, only used by the adaptive tree
+    Node parent;
+    // the number of the node in the adaptive tree
+    int number;
 
-    // Make it able to print out the Node, prints out the byte and the frequency value
+    // Make it able to print out the Node, prints out the symbol and the frequency value
     @Override
     public String toString() {
-        return "'"+b+"':"+frequency;
+        return "'"+symbol+"':"+frequency;
     }// end toString
 
 }// end Node Class
\ No newline at end of file
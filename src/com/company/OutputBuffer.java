@@ -0,0 +1,124 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output Buffer
+ *
+ * A fixed size byte array that the decoders write into directly, it is written to the output channel whenever it
+ * fills up, so decoding any size of file uses the same few MB of memory and nothing is allocated for each byte
+ * The array is borrowed from the BufferArena, so it is also not allocated again for each file
+ */
+
+public class OutputBuffer {
+
+    // the default size of the buffer (1 MB)
+    static final int DEFAULT_SIZE = 1 << 20;
+
+    // the channel the bytes are written to
+    private final WritableByteChannel channel;
+    // the bytes that have not been written yet, decoders write into this array from size onwards
+    final byte[] bytes;
+    // the array as a buffer for the channel
+    private final ByteBuffer wrapper;
+    // the number of bytes in the array
+    int size;
+
+    public OutputBuffer(WritableByteChannel channel) {
+        this(channel, DEFAULT_SIZE);
+    }
+
+    public OutputBuffer(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.bytes = BufferArena.borrow(bufferSize);
+        this.wrapper = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * room
+     * writes out the array first if it is full
+     * Version 1.0
+     *
+     * @return the number of bytes that can be added at size, always more than 0
+     * @throws IOException
+     */
+
+    public int room() throws IOException {
+        if (size == bytes.length) {
+            flush();
+        }
+        return bytes.length - size;
+    }// end room
+
+    /**
+     * reserve
+     * makes room for a number of bytes in the array, writing out the array first if it has to
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @return true if there is room at size, false if length is bigger than the whole array
+     * @throws IOException
+     */
+
+    public boolean reserve(int length) throws IOException {
+        if (length > bytes.length) {
+            return false;
+        }
+        if (bytes.length - size < length) {
+            flush();
+        }
+        return true;
+    }// end reserve
+
+    /**
+     * write
+     * adds bytes from another array
+     * Version 1.0
+     *
+     * @param b      the array
+     * @param offset the first byte to add
+     * @param length the number of bytes to add
+     * @throws IOException
+     */
+
+    public void write(byte[] b, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, room());
+            System.arraycopy(b, offset, bytes, size, count);
+            size += count;
+            offset += count;
+            length -= count;
+        }
+    }// end write
+
+    /**
+     * flush
+     * writes every byte in the array to the channel and empties the array
+     * Version 1.0
+     *
+     * @throws IOException
+     */
+
+    public void flush() throws IOException {
+        wrapper.limit(size).position(0);
+        while (wrapper.hasRemaining()) {
+            channel.write(wrapper);
+        }
+        size = 0;
+    }// end flush
+
+    /**
+     * release
+     * gives the array back to the arena (see BufferArena), it is called after the last flush and the buffer can not
+     * be used after it
+     * Version 1.0
+     */
+
+    public void release() {
+        BufferArena.release(bytes);
+    }// end release
+}// end OutputBuffer
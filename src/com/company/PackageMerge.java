@@ -0,0 +1,162 @@
+package com.company;
+
+//imports
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Package Merge
+ *
+ * Finds the optimal code lengths when no code can be longer than a maximum length, using the package-merge algorithm
+ * Each level has every symbol as a coin with a value of its frequency, plus the packages made by pairing the coins
+ * of the level below, the cheapest 2n - 2 coins of the top level decide the length of each code
+ */
+
+public class PackageMerge {
+
+    /**
+     * computeLengths
+     * finds the length of the code of each symbol so that no code is longer than maxLength
+     * Version 1.0
+     *
+     * @param frequencies the frequency of each symbol, 0 if the symbol is not used
+     * @param maxLength   the longest code allowed
+     * @return the length of the code of each symbol, 0 for the symbols that are not used
+     */
+
+    public static int[] computeLengths(long[] frequencies, int maxLength) {
+        int[] lengths = new int[frequencies.length];
+
+        // list the symbols that are used, from least to greatest frequency
+        ArrayList<Integer> used = new ArrayList<Integer>();
+        for (int i = 0; i < frequencies.length; i++) {
+            if (frequencies[i] > 0) {
+                used.add(i);
+            }
+        }
+        used.sort(new Comparator<Integer>() {
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(frequencies[o1], frequencies[o2]);
+            }
+        });
+        int n = used.size();
+
+        // one symbol still needs one bit, so it can be decoded
+        if (n == 0) {
+            return lengths;
+        }
+        if (n == 1) {
+            lengths[used.get(0)] = 1;
+            return lengths;
+        }
+        if (n > (1L << Math.min(maxLength, 62))) {
+            throw new IllegalArgumentException(n + " symbols do not fit in codes of " + maxLength + " bits");
+        }
+
+        // the leaf coins, which are the same on every level
+        Coin[] leaves = new Coin[n];
+        for (int i = 0; i < n; i++) {
+            leaves[i] = new Coin(frequencies[used.get(i)], used.get(i), null, null);
+        }
+
+        // build each level from the bottom, merging the leaves with the packages of the level below
+        Coin[] level = leaves;
+        for (int depth = 1; depth < maxLength; depth++) {
+            Coin[] packages = new Coin[level.length / 2];
+            for (int i = 0; i < packages.length; i++) {
+                packages[i] = new Coin(level[2 * i].weight + level[2 * i + 1].weight, -1, level[2 * i], level[2 * i + 1]);
+            }
+            level = merge(leaves, packages);
+        }
+
+        // every time a symbol is in one of the cheapest 2n - 2 coins its code gets one bit longer
+        for (int i = 0; i < 2 * n - 2; i++) {
+            count(level[i], lengths);
+        }
+        return lengths;
+    }// end computeLengths
+
+    /**
+     * encodedBits
+     * works out how many bits a message takes with the given code lengths
+     * Version 1.0
+     *
+     * @param frequencies the frequency of each symbol
+     * @param lengths     the length of the code of each symbol
+     * @return the number of bits in the encoded message
+     */
+
+    public static long encodedBits(long[] frequencies, int[] lengths) {
+        long bits = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            bits += frequencies[i] * lengths[i];
+        }
+        return bits;
+    }// end encodedBits
+
+    /**
+     * merge
+     * merges two lists of coins that are sorted by weight, leaves come first when the weights are the same
+     * Version 1.0
+     *
+     * @param leaves   the leaf coins
+     * @param packages the packages from the level below
+     * @return the merged list
+     */
+
+    private static Coin[] merge(Coin[] leaves, Coin[] packages) {
+        Coin[] result = new Coin[leaves.length + packages.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < leaves.length || j < packages.length) {
+            if (j == packages.length || (i < leaves.length && leaves[i].weight <= packages[j].weight)) {
+                result[k++] = leaves[i++];
+            } else {
+                result[k++] = packages[j++];
+            }
+        }
+        return result;
+    }// end merge
+
+    /**
+     * count
+     * adds one to the length of every symbol inside a coin
+     * Version 1.0
+     *
+     * @param coin    the coin
+     * @param lengths the length of the code of each symbol
+     */
+
+    private static void count(Coin coin, int[] lengths) {
+        if (coin.symbol >= 0) {
+            lengths[coin.symbol]++;
+        } else {
+            count(coin.left, lengths);
+            count(coin.right, lengths);
+        }
+    }// end count
+
+    /**
+     * Coin
+     * a leaf (one symbol) or a package of two coins from the level below
+     */
+
+    private static class Coin {
+        // the sum of the frequencies inside the coin
+        final long weight;
+        // the symbol of a leaf, -1 for a package
+        final int symbol;
+        // the two coins inside a package
+        final Coin left;
+        final Coin right;
+
+        Coin(long weight, int symbol, Coin left, Coin right) {
+            this.weight = weight;
+            this.symbol = symbol;
+            this.left = left;
+            this.right = right;
+        }
+    }// end Coin
+}// end PackageMerge
@@ -0,0 +1,309 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel Decoder
+ *
+ * Decodes one long encoded message on many threads, without any change to the file format
+ * The message is cut into segments at fixed bit positions, and each segment is decoded on its own thread starting
+ * at its first bit, even though a code might not start there. Huffman codes fall back into step after a few codes,
+ * so each thread keeps the start positions of its first codes. Afterwards the exact end of each segment is checked
+ * against the start positions of the next segment: the next segment is correct from the first code that starts
+ * where the exact decoding reaches, the few codes before that are decoded again, and if the segments never fall into
+ * step the next segment is decoded again from its exact start
+ */
+
+public class ParallelDecoder {
+
+    // the number of bits of the encoded message in each segment (1 MB)
+    static final long SEGMENT_BITS = 8L << 20;
+    // the number of code start positions each segment keeps to find where it falls into step
+    static final int SYNC_CODES = 4096;
+
+    /**
+     * isWorthIt
+     * checks if a message is long enough to be decoded in parallel
+     * Version 1.0
+     *
+     * @param messageBits the number of bits in the encoded message
+     * @return true if more than one thread can be used
+     */
+
+    public static boolean isWorthIt(long messageBits) {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 && messageBits >= 2 * SEGMENT_BITS;
+    }// end isWorthIt
+
+    /**
+     * decode
+     * decodes a message on the threads of the common ForkJoin pool, a round of one segment per thread at a time
+     * The segments of each thread are reused for every round, so the memory used does not grow with the message
+     * Version 3.0
+     *
+     * @param file          the encoded file
+     * @param startBit      the bit position in the file where the message starts
+     * @param endBit        the bit position in the file where the message ends
+     * @param symbolCount   the number of bytes in the decoded message, or -1 to decode every code before endBit
+     * @param lastByteShift the number of zeros at the start of the last byte of the file that are skipped
+     * @param table         the lookup table for the codes
+     * @param out           the buffer the decoded bytes are written to
+     * @throws IOException if the message is not valid or ends before symbolCount bytes are decoded
+     */
+
+    public static void decode(final MappedInput file, long startBit, final long endBit, long symbolCount, final int lastByteShift,
+                              final DecodeTable table, OutputBuffer out) throws IOException {
+        int threads = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        long remaining = symbolCount < 0 ? Long.MAX_VALUE : symbolCount;
+        // one segment for each thread and one for the codes between segments, reused for every round
+        final Segment[] segments = new Segment[threads];
+        for (int i = 0; i < threads; i++) {
+            segments[i] = new Segment();
+        }
+        Segment extra = new Segment();
+        // the exact position of the next code, the first segment of each round always starts here
+        long position = startBit;
+        while (position < endBit && remaining > 0) {
+            // cut the next round into segments
+            int count = (int) Math.min(threads, (endBit - position + SEGMENT_BITS - 1) / SEGMENT_BITS);
+            final long[] bounds = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                bounds[i] = position + i * SEGMENT_BITS;
+            }
+            bounds[count] = Math.min(endBit, position + count * SEGMENT_BITS);
+
+            // decode every segment at the same time
+            ArrayList<ForkJoinTask<Segment>> tasks = new ArrayList<ForkJoinTask<Segment>>();
+            for (int i = 0; i < count; i++) {
+                final int index = i;
+                tasks.add(ForkJoinPool.commonPool().submit(new Callable<Segment>() {
+                    public Segment call() throws IOException {
+                        return decodeSegment(file, bounds[index], bounds[index + 1], lastByteShift, table, index > 0, segments[index]);
+                    }
+                }));
+            }
+            for (int i = 0; i < count; i++) {
+                BlockEncoder.join(tasks.get(i));
+            }
+
+            // write each segment from the point where it is known to be correct
+            for (int i = 0; i < count && remaining > 0; i++) {
+                Segment segment = segments[i];
+                if (i > 0) {
+                    // the exact end of the segment before, and the codes between it and the point this segment falls into step
+                    extra.reset(position);
+                    int first = synchronize(file, position, segment, lastByteShift, table, extra);
+                    if (first < 0) {
+                        // never fell into step, decode the whole segment again from its exact start
+                        decodeSegment(file, position, bounds[i + 1], lastByteShift, table, false, segment);
+                        first = 0;
+                    } else {
+                        remaining -= write(extra, 0, remaining, out);
+                    }
+                    remaining -= write(segment, first, remaining, out);
+                } else {
+                    remaining -= write(segment, 0, remaining, out);
+                }
+                position = segment.end;
+            }
+        }
+        // bits past the end of the file read as zeros, so a file that was cut short is only found here
+        if (symbolCount >= 0 ? remaining > 0 : position != endBit) {
+            throw new IOException("The file ends before all of its bytes are decoded");
+        }
+    }// end decode
+
+    /**
+     * decodeSegment
+     * decodes every code that starts between two bit positions
+     * Version 1.0
+     *
+     * @param file          the encoded file
+     * @param startBit      the bit position where the segment starts
+     * @param endBit        the bit position where the segment ends
+     * @param lastByteShift the number of zeros at the start of the last byte of the file that are skipped
+     * @param table         the lookup table for the codes
+     * @param speculative   true if the segment might not start at a code, so the start positions of its first codes are kept
+     * @param segment       the segment to decode into, anything already in it is thrown away
+     * @return the decoded segment
+     * @throws IOException
+     */
+
+    static Segment decodeSegment(MappedInput file, long startBit, long endBit, int lastByteShift, DecodeTable table,
+                                 boolean speculative, Segment segment) throws IOException {
+        segment.reset(startBit);
+        BitReader reader = openReader(file, startBit, lastByteShift);
+        // the reader counts bit positions from the start of the byte that holds startBit
+        long base = startBit & ~7L;
+        long length = endBit - base;
+        try {
+            if (speculative) {
+                // keep the start of the first codes one code at a time
+                while (segment.startCount < SYNC_CODES && reader.getBitPosition() < length) {
+                    segment.addStart(base + reader.getBitPosition());
+                    reader.refill();
+                    segment.add((byte) table.decodeSymbol(reader));
+                }
+            }
+            // decode the rest of the segment quickly
+            while (true) {
+                segment.ensureRoom(1 << 16);
+                int count = table.decode(reader, length, segment.bytes, segment.size, segment.bytes.length - segment.size);
+                if (count == 0) {
+                    break;
+                }
+                segment.size += count;
+            }
+        } catch (IOException e) {
+            // a guess that went wrong can decode bits that are not a code, the segment will be decoded again
+            if (!speculative) {
+                throw e;
+            }
+            segment.failed = true;
+        }
+        segment.end = base + reader.getBitPosition();
+        return segment;
+    }// end decodeSegment
+
+    /**
+     * synchronize
+     * decodes from the exact end of the segment before until a code starts where the next segment has a code
+     * Version 1.0
+     *
+     * @param file          the encoded file
+     * @param position      the exact position of the first code at or after the start of the segment
+     * @param segment       the segment that was decoded from a guessed start
+     * @param lastByteShift the number of zeros at the start of the last byte of the file that are skipped
+     * @param table         the lookup table for the codes
+     * @param extra         the codes decoded before the segment falls into step are added here
+     * @return the index of the first correct byte in the segment, or -1 if the segment never falls into step
+     * @throws IOException
+     */
+
+    private static int synchronize(MappedInput file, long position, Segment segment, int lastByteShift, DecodeTable table,
+                                   Segment extra) throws IOException {
+        // a segment that decoded bits that are not a code was never in step
+        if (segment.failed || segment.startCount == 0) {
+            return -1;
+        }
+        BitReader reader = null;
+        while (true) {
+            int found = Arrays.binarySearch(segment.starts, 0, segment.startCount, position);
+            if (found >= 0) {
+                return found;
+            }
+            // past the last start that was kept, give up
+            if (position > segment.starts[segment.startCount - 1]) {
+                return -1;
+            }
+            if (reader == null) {
+                reader = openReader(file, position, lastByteShift);
+            }
+            long before = reader.getBitPosition();
+            reader.refill();
+            extra.add((byte) table.decodeSymbol(reader));
+            position += reader.getBitPosition() - before;
+        }
+    }// end synchronize
+
+    /**
+     * openReader
+     * creates a bit reader that starts at any bit of the file
+     * Version 1.0
+     *
+     * @param file          the encoded file
+     * @param bit           the bit position to start at
+     * @param lastByteShift the number of zeros at the start of the last byte of the file that are skipped
+     * @return a reader at the given bit, its bit positions count from the start of the byte that holds the bit
+     * @throws IOException
+     */
+
+    static BitReader openReader(MappedInput file, long bit, int lastByteShift) throws IOException {
+        // segments are read at the same time and stop partway, so they are never read ahead
+        MappedInput input = file.mappedRange(bit / 8, file.size());
+        ByteBuffer window = input.nextWindow();
+        if (window == null) {
+            window = ByteBuffer.allocate(0);
+        }
+        BitReader reader = new BitReader(window, input, lastByteShift);
+        reader.skipBits(bit % 8);
+        return reader;
+    }// end openReader
+
+    /**
+     * write
+     * writes part of a segment to the output
+     * Version 1.0
+     *
+     * @param segment   the segment
+     * @param first     the first byte to write
+     * @param remaining the most bytes that can still be written
+     * @param out       the output
+     * @return the number of bytes written
+     * @throws IOException
+     */
+
+    private static long write(Segment segment, int first, long remaining, OutputBuffer out) throws IOException {
+        int length = (int) Math.min(segment.size - first, remaining);
+        out.write(segment.bytes, first, length);
+        return length;
+    }// end write
+
+    /**
+     * Segment
+     * the bytes decoded from one segment and the start positions of its first codes
+     */
+
+    static class Segment {
+        // the bit position where decoding started
+        long start;
+        // the bit position of the first code after the segment
+        long end;
+        // the decoded bytes
+        byte[] bytes = new byte[1 << 16];
+        int size;
+        // the start positions of the first codes
+        long[] starts = new long[SYNC_CODES];
+        int startCount;
+        // true if the guessed start decoded bits that are not a code
+        boolean failed;
+
+        /**
+         * reset
+         * empties the segment so it can be decoded again, the arrays are kept
+         * Version 1.0
+         *
+         * @param start the bit position where decoding starts
+         */
+
+        void reset(long start) {
+            this.start = start;
+            this.end = start;
+            this.size = 0;
+            this.startCount = 0;
+            this.failed = false;
+        }// end reset
+
+        void add(byte b) {
+            ensureRoom(1);
+            bytes[size++] = b;
+        }
+
+        void addStart(long position) {
+            starts[startCount++] = position;
+        }
+
+        void ensureRoom(int room) {
+            if (bytes.length - size < room) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + room));
+            }
+        }
+    }// end Segment
+}// end ParallelDecoder
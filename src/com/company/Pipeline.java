@@ -0,0 +1,392 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline
+ *
+ * Runs the reading and the writing of a file on their own threads, so on slow or network storage the coder is not
+ * stopped every time it needs the next part of the input or has filled its output buffer
+ * The reader stage reads the input ahead in chunks and the writer stage writes the output behind, each one is linked
+ * to the coder by a queue of at most DEPTH chunks, when a queue is full the stage that fills it waits, so a pipelined
+ * file never holds more than a few MB whatever its size
+ * The stages run on a shared pool of daemon threads, they block on I/O so they are kept out of the common pool that the
+ * parallel coders use
+ */
+
+public class Pipeline {
+
+    // the number of bytes in each chunk
+    static final int CHUNK_SIZE = 1 << 20;
+    // the most chunks waiting in each queue
+    static final int DEPTH = 4;
+
+    // the threads of the stages
+    private static final ExecutorService stages = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "huffman-pipeline-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // put in a queue after the last chunk
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    // put in the writer queue by flush
+    private static final ByteBuffer FLUSH = ByteBuffer.allocate(0);
+
+    /**
+     * writer
+     * Version 1.0
+     *
+     * @param output the stream the bytes are written to, it is closed when the returned stream is closed
+     * @return a stream that writes to output on another thread, close waits until every byte is written and throws the
+     * first error of the writer
+     */
+
+    public static OutputStream writer(OutputStream output) {
+        return new WriterStage(output);
+    }// end writer
+
+    /**
+     * put
+     * waits for room in a queue, and gives up when the other end of the queue has stopped
+     * Version 1.0
+     *
+     * @param queue   the queue
+     * @param chunk   the chunk to add
+     * @param stopped true once nothing will take from the queue anymore
+     * @return false if the chunk was not added because the other end stopped
+     * @throws InterruptedIOException if the thread is interrupted
+     */
+
+    private static boolean put(BlockingQueue<ByteBuffer> queue, ByteBuffer chunk, AtomicBoolean stopped) throws InterruptedIOException {
+        try {
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (stopped.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the pipeline");
+        }
+    }// end put
+
+    /**
+     * take
+     * Version 1.0
+     *
+     * @param queue the queue
+     * @return the next chunk in the queue, after waiting for it
+     * @throws InterruptedIOException if the thread is interrupted
+     */
+
+    private static ByteBuffer take(BlockingQueue<ByteBuffer> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the pipeline");
+        }
+    }// end take
+
+    /**
+     * discard
+     * gives the arrays of the chunks left in a queue back to the BufferArena, once nothing will take them
+     * Version 1.0
+     *
+     * @param queue the queue
+     */
+
+    private static void discard(BlockingQueue<ByteBuffer> queue) {
+        ByteBuffer next;
+        while ((next = queue.poll()) != null) {
+            if (next != END && next != FLUSH) {
+                BufferArena.release(next.array());
+            }
+        }
+    }// end discard
+
+    /**
+     * Reader Stage
+     * reads part of a file ahead of the coder into arrays borrowed from the BufferArena, MappedInput hands out its
+     * chunks as windows and gives each one back when the next one is taken
+     */
+
+    static final class ReaderStage implements Runnable {
+
+        // the file being read
+        private final FileChannel channel;
+        // the part of the file read
+        private final long start;
+        private final long end;
+        // true once the input that owns the channel is closed, the stage then stops even if nobody took its chunks
+        private final AtomicBoolean closed;
+        // the chunks read, then END
+        private final BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<ByteBuffer>(DEPTH);
+        // the error that stopped the stage
+        private volatile IOException failure;
+
+        ReaderStage(FileChannel channel, long start, long end, AtomicBoolean closed) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.closed = closed;
+            stages.execute(this);
+        }
+
+        @Override
+        public void run() {
+            // the chunk being read, until it is in the queue
+            ByteBuffer chunk = null;
+            try {
+                long position = start;
+                while (position < end) {
+                    // the array goes back to the arena when the coder takes the chunk after it (see MappedInput)
+                    int length = (int) Math.min(CHUNK_SIZE, end - position);
+                    chunk = ByteBuffer.wrap(BufferArena.borrow(length), 0, length);
+                    while (chunk.hasRemaining()) {
+                        if (channel.read(chunk, position + chunk.position()) < 0) {
+                            throw new IOException("The file ended before all of its bytes were read");
+                        }
+                    }
+                    chunk.flip();
+                    // the coder moves the chunk once it is in the queue
+                    position += chunk.remaining();
+                    if (!put(queue, chunk, closed)) {
+                        break;
+                    }
+                    chunk = null;
+                }
+            } catch (Throwable e) {
+                // END is still sent after any error, so the coder is told instead of waiting for the next chunk forever
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+            if (chunk != null) {
+                BufferArena.release(chunk.array());
+            }
+            try {
+                if (put(queue, END, closed) && !closed.get()) {
+                    return;
+                }
+            } catch (InterruptedIOException e) {
+                // the pool is shutting down
+                return;
+            }
+            // the input was closed before its chunks were taken, nothing will take them now
+            discard(queue);
+        }// end run
+
+        /**
+         * next
+         * Version 1.0
+         *
+         * @return the next chunk, or null once the whole part has been read
+         * @throws IOException if the file could not be read
+         */
+
+        ByteBuffer next() throws IOException {
+            ByteBuffer chunk = take(queue);
+            if (chunk == END) {
+                // leave the end for any later call
+                queue.offer(END);
+                if (failure != null) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                return null;
+            }
+            return chunk;
+        }// end next
+    }// end ReaderStage
+
+    /**
+     * Writer Stage
+     * collects the bytes written into chunks borrowed from the BufferArena, and writes them on a stage thread
+     */
+
+    private static final class WriterStage extends OutputStream {
+
+        // the stream the chunks are written to
+        private final OutputStream output;
+        // the full chunks, FLUSH and then END
+        private final BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<ByteBuffer>(DEPTH);
+        // true once the stage thread has stopped writing, after an error
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        // the stage thread
+        private final Future<?> writing;
+        // the error that stopped the stage thread
+        private volatile IOException failure;
+        // the chunk being filled, null once closed
+        private byte[] chunk = BufferArena.borrow(CHUNK_SIZE);
+        // the number of bytes in the chunk
+        private int size;
+
+        WriterStage(OutputStream output) {
+            this.output = output;
+            this.writing = stages.submit(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        }
+
+        /**
+         * drain
+         * writes the chunks in the queue until END, after an error the chunks are thrown away so the coder never waits
+         * Version 3.0
+         */
+
+        private void drain() {
+            ByteBuffer next = null;
+            try {
+                while (true) {
+                    next = take(queue);
+                    if (next == END) {
+                        output.flush();
+                        return;
+                    }
+                    if (next == FLUSH) {
+                        output.flush();
+                        continue;
+                    }
+                    output.write(next.array(), 0, next.limit());
+                    BufferArena.release(next.array());
+                    next = null;
+                }
+            } catch (Throwable e) {
+                // any error stops the stage, so the coder is told instead of waiting for room in the queue forever
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                stopped.set(true);
+                if (next != null && next != END && next != FLUSH) {
+                    BufferArena.release(next.array());
+                }
+                discard(queue);
+            }
+        }// end drain
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == chunk.length) {
+                send();
+            }
+            chunk[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (size == chunk.length) {
+                    send();
+                }
+                int count = Math.min(len, chunk.length - size);
+                System.arraycopy(b, off, chunk, size, count);
+                size += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                send();
+            }
+            hand(FLUSH);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (chunk == null) {
+                return;
+            }
+            try {
+                if (size > 0) {
+                    send();
+                }
+                hand(END);
+                writing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the pipeline");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                BufferArena.release(chunk);
+                chunk = null;
+                // the stage has stopped, so any chunk the coder queued after an error is only held here
+                if (writing.isDone()) {
+                    discard(queue);
+                }
+                output.close();
+            }
+            check();
+        }
+
+        /**
+         * send
+         * hands the chunk to the stage thread and borrows the next one, waiting while the queue is full
+         * Version 1.0
+         *
+         * @throws IOException if the stage thread has stopped
+         */
+
+        private void send() throws IOException {
+            if (chunk == null) {
+                throw new IOException("The stream is closed");
+            }
+            hand(ByteBuffer.wrap(chunk, 0, size));
+            chunk = BufferArena.borrow(CHUNK_SIZE);
+            size = 0;
+        }// end send
+
+        /**
+         * hand
+         * Version 1.0
+         *
+         * @param next the chunk, FLUSH or END
+         * @throws IOException if the stage thread has stopped
+         */
+
+        private void hand(ByteBuffer next) throws IOException {
+            check();
+            if (!put(queue, next, stopped)) {
+                check();
+            }
+        }// end hand
+
+        /**
+         * check
+         * Version 1.0
+         *
+         * @throws IOException the error that stopped the stage thread, if it has stopped
+         */
+
+        private void check() throws IOException {
+            if (failure != null) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+        }// end check
+    }// end WriterStage
+}// end Pipeline
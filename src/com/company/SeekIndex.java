@@ -0,0 +1,162 @@
+package com.company;
+
+//imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Seek Index
+ *
+ * Records where the code of every interval-th byte starts in the encoded message, so part of a file can be decoded
+ * by jumping to the nearest recorded point instead of decoding everything before it
+ * Format (after the message, starting at a whole byte):
+ * The bit position of each point in the message, 8 bytes each, so one point can be read without reading the others
+ * The last 8 bytes of the file are the position of the index in the file, the number of points follows from it
+ */
+
+public class SeekIndex {
+
+    // the default number of bytes between two points
+    static final int DEFAULT_INTERVAL = 1 << 16;
+
+    // the number of bytes in the bit position of a point
+    private static final int POINT_SIZE = 8;
+
+    // the number of bytes between two points
+    final int interval;
+    // the bit position in the message of the code of byte number interval * i, null for an index read from a file
+    private long[] bitOffsets;
+    // the number of points
+    private int count;
+    // the file an index is read from, and the byte position of the index in it
+    private final MappedInput input;
+    private final long position;
+
+    public SeekIndex(int interval) {
+        this.interval = interval;
+        this.bitOffsets = new long[16];
+        this.input = null;
+        this.position = 0;
+    }
+
+    private SeekIndex(int interval, MappedInput input, long position, int count) {
+        this.interval = interval;
+        this.input = input;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * add
+     * adds the next point
+     * Version 1.0
+     *
+     * @param bitOffset the bit position in the message where the code of the next point starts
+     */
+
+    public void add(long bitOffset) {
+        if (count == bitOffsets.length) {
+            bitOffsets = Arrays.copyOf(bitOffsets, count * 2);
+        }
+        bitOffsets[count++] = bitOffset;
+    }// end add
+
+    /**
+     * getPoint
+     * finds the last point at or before a byte of the original file
+     * Version 1.0
+     *
+     * @param offset the position in the original file
+     * @return the number of the point
+     */
+
+    public int getPoint(long offset) {
+        return (int) Math.min(offset / interval, count - 1);
+    }// end getPoint
+
+    /**
+     * getBitOffset
+     * Version 2.0
+     *
+     * @param point the number of the point
+     * @return the bit position in the message where the code of the point starts
+     * @throws IOException if the point of an index read from a file could not be read
+     */
+
+    public long getBitOffset(int point) throws IOException {
+        if (bitOffsets != null) {
+            return bitOffsets[point];
+        }
+        return input.map(position + (long) point * POINT_SIZE, POINT_SIZE).getLong(0);
+    }// end getBitOffset
+
+    /**
+     * getPosition
+     * Version 1.0
+     *
+     * @return the byte position of an index read from a file, which is where its message ends
+     */
+
+    public long getPosition() {
+        return position;
+    }// end getPosition
+
+    /**
+     * write
+     * writes the index at the end of the file, followed by its position
+     * Version 2.0
+     *
+     * @param writer the writer of the whole file, at the end of the message
+     * @throws IOException
+     */
+
+    public void write(BitWriter writer) throws IOException {
+        writer.alignToByte();
+        long position = writer.getTotalBits() / 8;
+        for (int i = 0; i < count; i++) {
+            writer.writeBits(bitOffsets[i], 64);
+        }
+        writer.writeBits(position, 64);
+    }// end write
+
+    /**
+     * getPosition
+     * reads the position of the index from the last 8 bytes of a file
+     * Version 2.0
+     *
+     * @param input the encoded file
+     * @return the byte position of the index in the file
+     * @throws IOException if the position is not inside the file, for example because the file was cut short
+     */
+
+    public static long getPosition(MappedInput input) throws IOException {
+        long size = input.size();
+        long position = size >= HuffmanFormat.HEADER_SIZE + 8 ? input.map(size - 8, 8).getLong(0) : -1;
+        if (position < HuffmanFormat.HEADER_SIZE || position > size - 8) {
+            throw new IOException("The seek index is not valid");
+        }
+        return position;
+    }// end getPosition
+
+    /**
+     * read
+     * opens the index of a file, the points are read from the file only when they are asked for
+     * Version 2.0
+     *
+     * @param input    the encoded file
+     * @param interval the number of bytes between two points, from the header
+     * @return the index
+     * @throws IOException if the index is not valid
+     */
+
+    public static SeekIndex read(MappedInput input, int interval) throws IOException {
+        long position = getPosition(input);
+        long size = input.size() - 8 - position;
+        if (interval < 1 || size % POINT_SIZE != 0 || size / POINT_SIZE < 1 || size / POINT_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("The seek index is not valid");
+        }
+        return new SeekIndex(interval, input, position, (int) (size / POINT_SIZE));
+    }// end read
+}// end SeekIndex
@@ -0,0 +1,31 @@
+package com.company;
+
+/**
+ * Stage Recorder
+ *
+ * What HuffmanMetrics needs from the JDK Flight Recorder, the core is built for Java 8 without jdk.jfr so the one
+ * implementation (JfrStageRecorder) is compiled for Java 11 from the jfr folder and looked up by name, a JVM older
+ * than 11 or a jar without that folder only has the MBean
+ */
+
+interface StageRecorder {
+
+    // the name of the class that implements this with jdk.jfr
+    String IMPLEMENTATION = "com.company.JfrStageRecorder";
+
+    // true if the flight recorder has been started, cheap enough to ask on every stage
+    boolean isRunning();
+
+    // calls changed every time a recording starts or stops
+    void watch(Runnable changed);
+
+    // true while a recording has the stage event enabled
+    boolean isEnabled();
+
+    // a new event with its start time set
+    Object start();
+
+    // ends an event from start and writes it to the recording (see StageEvent.commit)
+    void commit(Object started, String stage, long bytesIn, long bytesOut, double megabytesPerSecond, long tableBits,
+                double averageCodeLength, long allocatedBytes);
+}// end StageRecorder
@@ -0,0 +1,242 @@
+package com.company;
+
+//imports
+
+import java.util.Arrays;
+
+/**
+ * Suffix Array
+ *
+ * Sorts all the suffixes of a block in linear time with the SA-IS algorithm (induced sorting), so the Burrows-Wheeler
+ * transform of a block takes the same time for any data, even long runs of one byte
+ * Each suffix is an S suffix if it is smaller than the suffix after it and an L suffix if it is larger. The S suffixes
+ * right after an L suffix (LMS suffixes) are sorted first, and the order of every other suffix is induced from them
+ * with two passes over the buckets of the first symbols. When two LMS substrings are the same, the LMS substrings are
+ * given names and the string of names is sorted the same way, which is at most half as long
+ */
+
+public class SuffixArray {
+
+    /**
+     * build
+     * sorts the suffixes of a block, the block ends with a sentinel that is smaller than every byte
+     * Version 1.0
+     *
+     * @param data   the bytes of the block
+     * @param length the number of bytes in the block
+     * @return the start of each suffix in sorted order, length + 1 of them, the first is always the sentinel (length)
+     */
+
+    public static int[] build(byte[] data, int length) {
+        // the bytes move up by one so 0 is free for the sentinel
+        int[] text = new int[length + 1];
+        for (int i = 0; i < length; i++) {
+            text[i] = (data[i] & 255) + 1;
+        }
+        int[] suffixes = new int[length + 1];
+        sort(text, suffixes, length + 1, 257);
+        return suffixes;
+    }// end build
+
+    /**
+     * sort
+     * sorts the suffixes of a text whose last symbol is a sentinel, 0, that is used nowhere else
+     * Version 1.0
+     *
+     * @param text         the symbols of the text
+     * @param suffixes     the array the start of each suffix is stored in, in sorted order
+     * @param length       the number of symbols in the text, the sentinel included
+     * @param alphabetSize one more than the largest symbol
+     */
+
+    private static void sort(int[] text, int[] suffixes, int length, int alphabetSize) {
+        if (length == 1) {
+            suffixes[0] = 0;
+            return;
+        }
+        // find the type of each suffix, true for S
+        boolean[] small = new boolean[length];
+        small[length - 1] = true;
+        for (int i = length - 2; i >= 0; i--) {
+            small[i] = text[i] < text[i + 1] || (text[i] == text[i + 1] && small[i + 1]);
+        }
+        int[] buckets = new int[alphabetSize];
+
+        // sort the LMS substrings: put the LMS suffixes at the ends of their buckets and induce the rest
+        Arrays.fill(suffixes, 0, length, -1);
+        bucketEnds(text, length, buckets);
+        for (int i = 1; i < length; i++) {
+            if (isLms(small, i)) {
+                suffixes[--buckets[text[i]]] = i;
+            }
+        }
+        induce(text, suffixes, small, length, buckets);
+
+        // move the sorted LMS suffixes to the front
+        int lmsCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (isLms(small, suffixes[i])) {
+                suffixes[lmsCount++] = suffixes[i];
+            }
+        }
+
+        // name each LMS substring by its rank, the same substrings get the same name
+        // the name of the LMS suffix at i is kept at lmsCount + i / 2, two LMS suffixes are never next to each other
+        Arrays.fill(suffixes, lmsCount, length, -1);
+        int names = 0;
+        int previous = -1;
+        for (int i = 0; i < lmsCount; i++) {
+            int position = suffixes[i];
+            if (previous < 0 || !sameLmsSubstring(text, small, position, previous)) {
+                names++;
+                previous = position;
+            }
+            suffixes[lmsCount + position / 2] = names - 1;
+        }
+
+        // the names in order of position make the reduced text, it ends with the name of the sentinel (0)
+        int[] reduced = new int[lmsCount];
+        int count = 0;
+        for (int i = lmsCount; i < length; i++) {
+            if (suffixes[i] >= 0) {
+                reduced[count++] = suffixes[i];
+            }
+        }
+
+        // sort the reduced text, by recursion if two LMS substrings have the same name
+        int[] reducedSuffixes = new int[lmsCount];
+        if (names < lmsCount) {
+            sort(reduced, reducedSuffixes, lmsCount, names);
+        } else {
+            for (int i = 0; i < lmsCount; i++) {
+                reducedSuffixes[reduced[i]] = i;
+            }
+        }
+
+        // turn the sorted reduced suffixes back into LMS positions, the reduced text is reused for the positions
+        count = 0;
+        for (int i = 1; i < length; i++) {
+            if (isLms(small, i)) {
+                reduced[count++] = i;
+            }
+        }
+        Arrays.fill(suffixes, 0, length, -1);
+        // put the LMS suffixes at the ends of their buckets in sorted order, and induce the rest
+        bucketEnds(text, length, buckets);
+        for (int i = lmsCount - 1; i >= 0; i--) {
+            int position = reduced[reducedSuffixes[i]];
+            suffixes[--buckets[text[position]]] = position;
+        }
+        induce(text, suffixes, small, length, buckets);
+    }// end sort
+
+    /**
+     * induce
+     * sorts the L suffixes from the LMS suffixes that are in place, and then the S suffixes from the L suffixes
+     * Version 1.0
+     *
+     * @param text     the symbols of the text
+     * @param suffixes the suffixes, -1 where there is no suffix yet
+     * @param small    true for each S suffix
+     * @param length   the number of symbols in the text
+     * @param buckets  an array to hold the buckets, one for each symbol
+     */
+
+    private static void induce(int[] text, int[] suffixes, boolean[] small, int length, int[] buckets) {
+        // an L suffix comes before the suffix after it, so going forward puts each one at the start of its bucket
+        bucketStarts(text, length, buckets);
+        for (int i = 0; i < length; i++) {
+            int j = suffixes[i] - 1;
+            if (j >= 0 && !small[j]) {
+                suffixes[buckets[text[j]]++] = j;
+            }
+        }
+        // an S suffix comes after the suffix after it, so going backward puts each one at the end of its bucket
+        bucketEnds(text, length, buckets);
+        for (int i = length - 1; i >= 0; i--) {
+            int j = suffixes[i] - 1;
+            if (j >= 0 && small[j]) {
+                suffixes[--buckets[text[j]]] = j;
+            }
+        }
+    }// end induce
+
+    /**
+     * sameLmsSubstring
+     * Version 1.0
+     *
+     * @param text  the symbols of the text
+     * @param small true for each S suffix
+     * @param a     the start of an LMS substring
+     * @param b     the start of another LMS substring
+     * @return true if the symbols and types of the two LMS substrings are the same up to the next LMS suffix
+     */
+
+    private static boolean sameLmsSubstring(int[] text, boolean[] small, int a, int b) {
+        // the sentinel is the only LMS substring with its symbol, so neither substring goes past the end
+        for (int d = 0; ; d++) {
+            if (text[a + d] != text[b + d] || small[a + d] != small[b + d]) {
+                return false;
+            }
+            if (d > 0 && (isLms(small, a + d) || isLms(small, b + d))) {
+                return isLms(small, a + d) && isLms(small, b + d);
+            }
+        }
+    }// end sameLmsSubstring
+
+    /**
+     * isLms
+     * Version 1.0
+     *
+     * @param small    true for each S suffix
+     * @param position the start of a suffix, or -1
+     * @return true if the suffix is an S suffix right after an L suffix
+     */
+
+    private static boolean isLms(boolean[] small, int position) {
+        return position > 0 && small[position] && !small[position - 1];
+    }// end isLms
+
+    /**
+     * bucketStarts
+     * Version 1.0
+     *
+     * @param text    the symbols of the text
+     * @param length  the number of symbols in the text
+     * @param buckets the array the first position of the bucket of each symbol is stored in
+     */
+
+    private static void bucketStarts(int[] text, int length, int[] buckets) {
+        Arrays.fill(buckets, 0);
+        for (int i = 0; i < length; i++) {
+            buckets[text[i]]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < buckets.length; c++) {
+            int size = buckets[c];
+            buckets[c] = sum;
+            sum += size;
+        }
+    }// end bucketStarts
+
+    /**
+     * bucketEnds
+     * Version 1.0
+     *
+     * @param text    the symbols of the text
+     * @param length  the number of symbols in the text
+     * @param buckets the array one past the last position of the bucket of each symbol is stored in
+     */
+
+    private static void bucketEnds(int[] text, int length, int[] buckets) {
+        Arrays.fill(buckets, 0);
+        for (int i = 0; i < length; i++) {
+            buckets[text[i]]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < buckets.length; c++) {
+            sum += buckets[c];
+            buckets[c] = sum;
+        }
+    }// end bucketEnds
+}// end SuffixArray
@@ -0,0 +1,200 @@
+package com.company;
+
+//imports
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Bwt Test
+ *
+ * Checks the suffix array against a plain sort, and that the transform, the move to front and the runs of zeros are
+ * undone for the inputs they find hardest: nothing, runs of one byte and inputs that repeat every two bytes
+ */
+
+public class BwtTest {
+
+    /**
+     * naiveSuffixes
+     * sorts the suffixes by comparing them, a suffix that is the start of a longer one is smaller
+     * Version 1.0
+     *
+     * @param data   the bytes
+     * @param length the number of bytes
+     * @return the start of each suffix in sorted order, the empty suffix (length) first
+     */
+
+    static int[] naiveSuffixes(final byte[] data, final int length) {
+        Integer[] starts = new Integer[length + 1];
+        for (int i = 0; i <= length; i++) {
+            starts[i] = i;
+        }
+        Arrays.sort(starts, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int i = a;
+                int j = b;
+                while (i < length && j < length) {
+                    int difference = (data[i] & 255) - (data[j] & 255);
+                    if (difference != 0) {
+                        return difference;
+                    }
+                    i++;
+                    j++;
+                }
+                return (length - i) - (length - j);
+            }
+        });
+        int[] suffixes = new int[length + 1];
+        for (int i = 0; i <= length; i++) {
+            suffixes[i] = starts[i];
+        }
+        return suffixes;
+    }// end naiveSuffixes
+
+    /**
+     * inputs
+     * Version 1.0
+     *
+     * @return the inputs that are hardest for the transform and the runs of zeros
+     */
+
+    static byte[][] inputs() {
+        return new byte[][]{new byte[0], TestData.run(1, 0), TestData.run(2, 'a'), TestData.run(3, 255),
+                TestData.run(255, 'a'), TestData.run(256, 0), TestData.run(70000, 'a'), TestData.period(2, 'a', 'b'),
+                TestData.period(3, 'a', 'b'), TestData.period(1001, 0, 255), TestData.period(70000, 'a', 'b'),
+                TestData.concat(TestData.period(5000, 'a', 'b'), TestData.run(5000, 'a')),
+                TestData.text(20000, 31), TestData.random(5000, 32)};
+    }// end inputs
+
+    @Test
+    public void suffixArrayMatchesNaiveSort() {
+        Random random = new Random(30);
+        byte[] data = new byte[64];
+        for (int n = 0; n < 20000; n++) {
+            // small alphabets make the most repeated LMS substrings, so the names are sorted again
+            int length = random.nextInt(data.length + 1);
+            int alphabet = n % 10 == 0 ? 256 : 1 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (random.nextInt(alphabet) * 3);
+            }
+            assertArrayEquals(Arrays.toString(Arrays.copyOf(data, length)), naiveSuffixes(data, length),
+                    SuffixArray.build(data, length));
+        }
+    }
+
+    @Test
+    public void transformRoundTrips() {
+        for (byte[] input : inputs()) {
+            byte[] last = new byte[input.length];
+            int primary = BwtEncoder.transform(input, input.length, last);
+            byte[] output = new byte[input.length + 2];
+            BwtDecoder.inverseTransform(last, input.length, primary, output, 1);
+            assertArrayEquals("length " + input.length, input, Arrays.copyOfRange(output, 1, input.length + 1));
+        }
+    }
+
+    @Test
+    public void blocksRoundTrip() throws IOException {
+        for (byte[] input : inputs()) {
+            if (input.length == 0) {
+                // empty blocks are never encoded
+                continue;
+            }
+            byte[] body = BwtEncoder.encodeBlock(ByteBuffer.wrap(input), 0, null);
+            byte[] output = new byte[input.length];
+            BwtDecoder.decodeBlock(ByteBuffer.wrap(body), output, 0, input.length);
+            assertArrayEquals("length " + input.length, input, output);
+        }
+    }
+
+    @Test
+    public void runsRoundTrip() throws IOException {
+        // every run length up to 600 is written with RUN_A and RUN_B digits, between two other bytes
+        for (int run = 1; run <= 600; run++) {
+            byte[] input = new byte[run + 2];
+            input[0] = 7;
+            input[run + 1] = 9;
+            byte[] body = BwtEncoder.encodeBlock(ByteBuffer.wrap(input), 0, null);
+            byte[] output = new byte[input.length];
+            BwtDecoder.decodeBlock(ByteBuffer.wrap(body), output, 0, input.length);
+            assertArrayEquals("run " + run, input, output);
+        }
+    }
+
+    @Test
+    public void releasesEachBlockOnceWhenTheOutputFails() throws IOException {
+        // 16 blocks of 64 KB fill the output buffer, so it is first written out while the 17th block, the last one, is
+        // written, and every task has finished by then
+        HuffmanCodec codec = HuffmanCodec.bwt(1 << 16, 0);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        codec.compress(new ByteArrayInputStream(TestData.text((16 << 16) + 40000, 33)), compressed);
+        final List<byte[]> taken = new ArrayList<byte[]>();
+        OutputStream full = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // empty the size class of the blocks, so every block given back has a free slot
+                taken.addAll(borrowAll());
+                throw new IOException("the disk is full");
+            }
+        };
+        try {
+            codec.decompress(new ByteArrayInputStream(compressed.toByteArray()), full);
+            fail("the output did not fail");
+        } catch (IOException e) {
+            // expected
+        }
+        // a block given back twice is in two slots, and would be borrowed twice
+        List<byte[]> borrowed = borrowAll();
+        Set<byte[]> distinct = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+        distinct.addAll(borrowed);
+        assertEquals("a block was given back twice", borrowed.size(), distinct.size());
+        for (byte[] block : taken) {
+            BufferArena.release(block);
+        }
+        for (byte[] block : borrowed) {
+            BufferArena.release(block);
+        }
+    }
+
+    /**
+     * borrowAll
+     * Version 1.0
+     *
+     * @return every 64 KB array the arena was keeping
+     */
+
+    private static List<byte[]> borrowAll() {
+        List<byte[]> borrowed = new ArrayList<byte[]>();
+        long misses = BufferArena.getMisses();
+        while (true) {
+            byte[] block = BufferArena.borrow(1 << 16);
+            if (BufferArena.getMisses() != misses) {
+                return borrowed;
+            }
+            borrowed.add(block);
+        }
+    }// end borrowAll
+}// end BwtTest
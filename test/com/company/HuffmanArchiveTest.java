@@ -0,0 +1,139 @@
+package com.company;
+
+//imports
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Huffman Archive Test
+ *
+ * Checks that a folder comes back out of an archive as it went in, and that a file that can not be compressed stops
+ * the archive instead of leaving it waiting
+ */
+
+public class HuffmanArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * makeFolder
+     * Version 1.0
+     *
+     * @param count the number of files
+     * @return a folder of count text files, the even ones in a sub folder
+     * @throws IOException
+     */
+
+    private Path makeFolder(int count) throws IOException {
+        Path root = folder.newFolder("in").toPath();
+        Files.createDirectories(root.resolve("sub"));
+        for (int i = 0; i < count; i++) {
+            Path file = root.resolve(i % 2 == 0 ? "sub/file" + i : "file" + i);
+            Files.write(file, TestData.text(1000 + 997 * i, 40 + i));
+        }
+        return root;
+    }// end makeFolder
+
+    @Test
+    public void roundTripsFolders() throws IOException {
+        Path root = makeFolder(12);
+        boolean[] shareTable = {false, true};
+        for (boolean share : shareTable) {
+            Path archive = folder.newFile().toPath();
+            List<HuffmanArchive.Entry> entries = HuffmanArchive.create(root, archive, new HuffmanCodec(), share, 3);
+            assertEquals(12, entries.size());
+            assertEquals(12, HuffmanArchive.list(archive).size());
+            Path out = folder.newFolder().toPath();
+            HuffmanArchive.extractAll(archive, out);
+            for (HuffmanArchive.Entry entry : entries) {
+                assertArrayEquals(entry.getName(), Files.readAllBytes(root.resolve(entry.getName())),
+                        Files.readAllBytes(out.resolve(entry.getName())));
+            }
+        }
+    }
+
+    /**
+     * withDirectory
+     * Version 1.0
+     *
+     * @param archive the bytes of an archive
+     * @param numbers the numbers of the new central directory, a name is written as its length and that many a's
+     * @return the archive with its central directory replaced
+     * @throws IOException
+     */
+
+    private Path withDirectory(byte[] archive, long... numbers) throws IOException {
+        ByteBuffer trailer = ByteBuffer.wrap(archive, archive.length - HuffmanArchive.TRAILER_SIZE, HuffmanArchive.TRAILER_SIZE);
+        long directory = trailer.getLong();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(archive, 0, (int) directory);
+        BitWriter writer = new BitWriter(bytes);
+        for (long number : numbers) {
+            writer.writeVarLong(number);
+        }
+        writer.flush(false);
+        writer.release();
+        bytes.write(archive, archive.length - HuffmanArchive.TRAILER_SIZE, HuffmanArchive.TRAILER_SIZE);
+        Path corrupt = folder.newFile().toPath();
+        Files.write(corrupt, bytes.toByteArray());
+        return corrupt;
+    }// end withDirectory
+
+    @Test
+    public void rejectsCorruptDirectories() throws IOException {
+        Path root = folder.newFolder("one").toPath();
+        Files.write(root.resolve("a"), TestData.text(1000, 39));
+        Path archive = folder.newFile().toPath();
+        HuffmanArchive.create(root, archive, new HuffmanCodec(), false, 1);
+        byte[] bytes = Files.readAllBytes(archive);
+        // the count, then the length of the name, the name, the offset, the compressed size and the size of each entry
+        assertEquals(1, HuffmanArchive.list(withDirectory(bytes, 1, 1, 'a', 3, 10, 1000)).size());
+        long[][] directories = {{-1}, {1, -1}, {1, 1, 'a', 3, -1, 1000}, {1, 1, 'a', Long.MAX_VALUE, 10, 1000}};
+        for (long[] directory : directories) {
+            try {
+                HuffmanArchive.list(withDirectory(bytes, directory));
+                fail(Arrays.toString(directory) + " was listed");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void stopsOnAFailingEntry() throws IOException {
+        Path root = makeFolder(20);
+        // the first file fails, and the files compressed ahead of it are left in the pool
+        final long failing = Files.size(root.resolve("file1"));
+        HuffmanCodec codec = new HuffmanCodec() {
+            @Override
+            LimitCost compress(MappedInput input, OutputStream output) throws IOException {
+                if (input.size() == failing) {
+                    throw new IOException("failed on purpose");
+                }
+                return super.compress(input, output);
+            }
+        };
+        try {
+            HuffmanArchive.create(root, folder.newFile().toPath(), codec, false, 1);
+            fail("an archive with a failing file was made");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}// end HuffmanArchiveTest
@@ -0,0 +1,53 @@
+package com.company;
+
+//imports
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Huffman Cli Test
+ *
+ * Checks that options for two formats are refused before any file is read
+ */
+
+public class HuffmanCliTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rejectsConflictingFormats() {
+        String[][] conflicts = {{"-4", "-context"}, {"-legacy", "-4"}, {"-i", "-b", "64"}, {"-lz", "6", "-bwt"},
+                {"-adaptive", "-bwt"}, {"-legacy", "-i"}, {"-b", "64", "-context"}, {"-adaptive", "-l", "12"}};
+        for (String[] options : conflicts) {
+            String[] args = new String[options.length + 1];
+            System.arraycopy(options, 0, args, 0, options.length);
+            args[options.length] = "missing.txt";
+            assertEquals(String.join(" ", options), 2, HuffmanCli.run("compress", args, 0));
+        }
+    }
+
+    @Test
+    public void acceptsFormatOptionsThatGoTogether() throws IOException {
+        Path input = folder.newFile("in.txt").toPath();
+        Files.write(input, TestData.text(5000, 50));
+        String out = folder.newFolder().toString();
+        String[][] options = {{"-bwt", "-b", "64"}, {"-i", "-l", "12"}, {"-legacy"}, {"-lz", "6", "-l", "12"}};
+        for (String[] option : options) {
+            String[] args = new String[option.length + 3];
+            System.arraycopy(option, 0, args, 0, option.length);
+            args[option.length] = "-o";
+            args[option.length + 1] = out;
+            args[option.length + 2] = input.toString();
+            assertEquals(String.join(" ", option), 0, HuffmanCli.run("compress", args, 0));
+        }
+    }
+}// end HuffmanCliTest
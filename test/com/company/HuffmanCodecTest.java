@@ -0,0 +1,422 @@
+package com.company;
+
+//imports
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Huffman Codec Test
+ *
+ * Round trips every format through the buffer, stream and file methods of HuffmanCodec
+ */
+
+public class HuffmanCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * codecs
+     * Version 1.0
+     *
+     * @return a codec for every format, by name
+     */
+
+    static Map<String, HuffmanCodec> codecs() {
+        Map<String, HuffmanCodec> codecs = new LinkedHashMap<String, HuffmanCodec>();
+        codecs.put("canonical", new HuffmanCodec());
+        codecs.put("legacy", new HuffmanCodec(false, 0, 0, 0));
+        codecs.put("blocks", new HuffmanCodec(true, 1 << 16, 0, 0));
+        codecs.put("indexed", new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL));
+        codecs.put("limited", new HuffmanCodec(true, 0, 9, 0));
+        codecs.put("interleaved", HuffmanCodec.interleaved(0));
+        codecs.put("context", HuffmanCodec.context(0));
+        codecs.put("bwt", HuffmanCodec.bwt(1 << 16, 0));
+        codecs.put("lz77", HuffmanCodec.lz77(6, 0));
+        codecs.put("lz77 fast", HuffmanCodec.lz77(1, 0));
+        codecs.put("adaptive", HuffmanCodec.adaptive());
+        codecs.put("shared", HuffmanCodec.shared(Codebook.train(7, Histogram.count(ByteBuffer.wrap(TestData.text(20000, 9))), 0)));
+        return codecs;
+    }// end codecs
+
+    @Test
+    public void roundTripsBuffers() throws IOException {
+        for (Map.Entry<String, HuffmanCodec> codec : codecs().entrySet()) {
+            for (Map.Entry<String, byte[]> input : TestData.inputs().entrySet()) {
+                ByteBuffer compressed = codec.getValue().compress(ByteBuffer.wrap(input.getValue()));
+                assertArrayEquals(codec.getKey() + " " + input.getKey(), input.getValue(),
+                        toArray(codec.getValue().decompress(compressed)));
+            }
+        }
+    }
+
+    @Test
+    public void roundTripsStreams() throws IOException {
+        byte[] input = TestData.concat(TestData.text(50000, 11), TestData.random(5000, 12));
+        for (Map.Entry<String, HuffmanCodec> codec : codecs().entrySet()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            codec.getValue().compress(new ByteArrayInputStream(input), compressed);
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            codec.getValue().decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+            assertArrayEquals(codec.getKey(), input, decompressed.toByteArray());
+        }
+    }
+
+    @Test
+    public void roundTripsFiles() throws IOException {
+        byte[] input = TestData.concat(TestData.text(200000, 13), TestData.random(50000, 14));
+        Path original = folder.newFile("original").toPath();
+        Files.write(original, input);
+        for (Map.Entry<String, HuffmanCodec> codec : codecs().entrySet()) {
+            for (HuffmanCodec variant : new HuffmanCodec[]{codec.getValue(), codec.getValue().pipelined()}) {
+                Path compressed = folder.newFile().toPath();
+                Path decompressed = folder.newFile().toPath();
+                variant.compress(original, compressed);
+                variant.decompress(compressed, decompressed);
+                assertArrayEquals(codec.getKey(), input, Files.readAllBytes(decompressed));
+            }
+        }
+    }
+
+    @Test
+    public void roundTripsLargeFilesInParallel() throws IOException {
+        // long enough for the parallel decoder and several windows of the pipelined input
+        byte[] input = TestData.concat(TestData.text(3 << 20, 15), TestData.skewed(1 << 20, 16));
+        Path original = folder.newFile("large").toPath();
+        Files.write(original, input);
+        HuffmanCodec[] codecs = {new HuffmanCodec(), new HuffmanCodec(false, 0, 0, 0), new HuffmanCodec(true, 1 << 18, 0, 0),
+                new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL), HuffmanCodec.interleaved(0)};
+        for (HuffmanCodec codec : codecs) {
+            for (HuffmanCodec variant : new HuffmanCodec[]{codec, codec.pipelined()}) {
+                Path compressed = folder.newFile().toPath();
+                Path decompressed = folder.newFile().toPath();
+                variant.compress(original, compressed);
+                variant.decompress(compressed, decompressed);
+                assertArrayEquals(input, Files.readAllBytes(decompressed));
+            }
+        }
+    }
+
+    @Test
+    public void decodesLegacySegmentsThatStartOnACode() throws IOException {
+        // 16 bytes that are used equally all get 4 bit codes, so every byte of the message starts with a code and
+        // every segment of the parallel decoder is in step from its first bit, the odd length leaves 4 trailing zeros
+        byte[] input = new byte[(5 << 20) + 1];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) ('a' + i % 16);
+        }
+        Path original = folder.newFile("aligned").toPath();
+        Files.write(original, input);
+        HuffmanCodec legacy = new HuffmanCodec(false, 0, 0, 0);
+        Path compressed = folder.newFile().toPath();
+        Path decompressed = folder.newFile().toPath();
+        legacy.compress(original, compressed);
+        // the message is 4 bits for each byte, long enough for several segments
+        assertTrue(ParallelDecoder.isWorthIt(input.length * 4L));
+        legacy.decompress(compressed, decompressed);
+        assertArrayEquals(input, Files.readAllBytes(decompressed));
+    }
+
+    @Test
+    public void decodesOriginalLegacyFilesInParallel() throws IOException {
+        // the message of this text fills its last byte, the original encoder wrote 8 remaining zeros for it
+        byte[] input = TestData.text(6 << 20, 42);
+        HuffmanCodec legacy = new HuffmanCodec(false, 0, 0, 0);
+        byte[] compressed = toArray(legacy.compress(ByteBuffer.wrap(input)));
+        assertEquals(0, compressed[1]);
+        compressed[1] = 8;
+        // the table is a small part of the file, the rest is long enough for several segments
+        assertTrue(ParallelDecoder.isWorthIt((compressed.length - 2L) * 8));
+        assertArrayEquals(input, toArray(legacy.decompress(ByteBuffer.wrap(compressed))));
+    }
+
+    @Test
+    public void blocksReuseTablesAndStoreRandomBytes() throws IOException {
+        long[] text = Histogram.count(ByteBuffer.wrap(TestData.text(1 << 16, 23)));
+        int[] current = BlockEncoder.chooseLengths(text, null, 0, null);
+        assertTrue(current != null);
+        // a block with the same statistics keeps the table, random bytes are stored
+        assertTrue(BlockEncoder.chooseLengths(text.clone(), current, 0, null) == current);
+        long[] random = Histogram.count(ByteBuffer.wrap(TestData.random(1 << 16, 24)));
+        assertTrue(BlockEncoder.chooseLengths(random, current, 0, null) == null);
+        assertTrue(BlockEncoder.chooseLengths(random, null, 0, null) == null);
+
+        // stored blocks are copied across the 1 MB windows of a pipelined input
+        byte[] input = TestData.concat(TestData.random(3 << 20, 25), TestData.text(1 << 20, 26));
+        Path original = folder.newFile("stored blocks").toPath();
+        Files.write(original, input);
+        HuffmanCodec codec = new HuffmanCodec(true, 100000, 0, 0).pipelined();
+        Path compressed = folder.newFile().toPath();
+        Path decompressed = folder.newFile().toPath();
+        codec.compress(original, compressed);
+        codec.decompress(compressed, decompressed);
+        assertArrayEquals(input, Files.readAllBytes(decompressed));
+    }
+
+    @Test
+    public void storesRandomInput() throws IOException {
+        byte[] input = TestData.random(50000, 17);
+        ByteBuffer compressed = new HuffmanCodec().compress(ByteBuffer.wrap(input));
+        assertEquals(HuffmanFormat.STORED, HuffmanFormat.getFormat(compressed));
+        assertArrayEquals(input, toArray(new HuffmanCodec().decompress(compressed)));
+    }
+
+    @Test
+    public void decompressesRanges() throws IOException {
+        byte[] input = TestData.text(300000, 18);
+        Path original = folder.newFile("indexed").toPath();
+        Files.write(original, input);
+        Path compressed = folder.newFile().toPath();
+        HuffmanCodec codec = new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL);
+        codec.compress(original, compressed);
+        int[][] ranges = {{0, 10}, {65535, 3}, {65536, 70000}, {299990, 100}, {300000, 5}, {12345, 0}};
+        for (int[] range : ranges) {
+            int end = Math.min(input.length, range[0] + range[1]);
+            assertArrayEquals(range[0] + "+" + range[1], Arrays.copyOfRange(input, range[0], end),
+                    codec.decompressRange(compressed, range[0], range[1]));
+        }
+    }
+
+    @Test
+    public void rejectsNegativeRanges() throws IOException {
+        Path original = folder.newFile("ranges").toPath();
+        // text is indexed, random bytes are stored, and the two read a range in different ways
+        byte[][] inputs = {TestData.text(100000, 20), TestData.random(100000, 21)};
+        long[][] ranges = {{-1, 10}, {Long.MIN_VALUE, 10}, {0, -1}};
+        HuffmanCodec codec = new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL);
+        for (byte[] input : inputs) {
+            Files.write(original, input);
+            Path compressed = folder.newFile().toPath();
+            codec.compress(original, compressed);
+            for (long[] range : ranges) {
+                try {
+                    codec.decompressRange(compressed, range[0], (int) range[1]);
+                    fail("the range " + range[0] + "+" + range[1] + " was decoded");
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reportsTheCostOfTheLengthLimit() throws IOException {
+        byte[] input = TestData.skewed(200000, 22);
+        HuffmanCodec[] limited = {new HuffmanCodec(true, 0, 8, 0), new HuffmanCodec(false, 0, 8, 0),
+                new HuffmanCodec(true, 1 << 16, 8, 0), HuffmanCodec.interleaved(8), HuffmanCodec.context(8),
+                HuffmanCodec.bwt(1 << 16, 9), HuffmanCodec.lz77(6, 9)};
+        for (HuffmanCodec codec : limited) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            LimitCost cost = codec.compress(new ByteArrayInputStream(input), compressed);
+            assertTrue(cost.toString(), cost.getExtraBits() > 0 && cost.getRatioCost() > 0);
+            assertEquals(cost.getLimitedBits() - cost.getOptimalBits(), cost.getExtraBits());
+        }
+        LimitCost none = new HuffmanCodec().compress(new ByteArrayInputStream(input), new ByteArrayOutputStream());
+        assertEquals(0, none.getMaxLength());
+        assertEquals(0, none.getExtraBits());
+    }
+
+    @Test
+    public void readsCodebookFiles() throws IOException {
+        Codebook trained = Codebook.train(7, Histogram.count(ByteBuffer.wrap(TestData.text(20000, 9))), 0);
+        Path file = folder.newFile("text.codebook").toPath();
+        try (OutputStream output = Files.newOutputStream(file)) {
+            trained.write(output);
+        }
+        Codebook read = Codebook.read(file);
+        assertEquals(trained.id, read.id);
+
+        // the codebook read back codes and decodes the same bytes as the one it was written from
+        byte[] input = TestData.text(5000, 37);
+        ByteBuffer compressed = HuffmanCodec.shared(trained).compress(ByteBuffer.wrap(input));
+        ByteBuffer fromFile = HuffmanCodec.shared(read).compress(ByteBuffer.wrap(input));
+        assertEquals(compressed, fromFile);
+        assertArrayEquals(input, toArray(HuffmanCodec.shared(read).decompress(compressed)));
+
+        Path notCodebook = folder.newFile("text").toPath();
+        Files.write(notCodebook, input);
+        try {
+            Codebook.read(notCodebook);
+            fail("a text file was read as a codebook");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsFilesCodedWithAnotherCodebook() throws IOException {
+        Codebook text = Codebook.train(7, Histogram.count(ByteBuffer.wrap(TestData.text(20000, 9))), 0);
+        Codebook skewed = Codebook.train(8, Histogram.count(ByteBuffer.wrap(TestData.skewed(20000, 38))), 0);
+        byte[] input = TestData.text(5000, 39);
+        ByteBuffer compressed = HuffmanCodec.shared(text).compress(ByteBuffer.wrap(input));
+        try {
+            HuffmanCodec.shared(skewed).decompress(compressed.duplicate());
+            fail("a file coded with codebook 7 was decoded with codebook 8");
+        } catch (IOException e) {
+            // expected
+        }
+        // a codec with both codebooks finds the one the file was coded with
+        assertArrayEquals(input, toArray(HuffmanCodec.shared(skewed, text).decompress(compressed.duplicate())));
+    }
+
+    @Test
+    public void streamsTheAdaptiveFormat() throws IOException {
+        byte[] input = TestData.text(100000, 40);
+        int prefix = 30000;
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        AdaptiveHuffmanOutputStream adaptiveOut = new AdaptiveHuffmanOutputStream(compressed);
+        adaptiveOut.write(input, 0, prefix);
+        adaptiveOut.flush();
+
+        // the bytes sent so far decode to the prefix, and the decoder waits for the rest of the message
+        assertArrayEquals(Arrays.copyOf(input, prefix), readPrefix(compressed.toByteArray(), prefix));
+
+        adaptiveOut.write(input, prefix, input.length - prefix);
+        adaptiveOut.finish();
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        HuffmanCodec.adaptive().decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+        assertArrayEquals(input, decompressed.toByteArray());
+    }
+
+    @Test
+    public void compressesAdaptiveStreamsBeforeTheyEnd() throws IOException {
+        final byte[] input = TestData.text(100000, 41);
+        final int prefix = 30000;
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final ByteArrayOutputStream[] sent = new ByteArrayOutputStream[1];
+        // gives the codec the prefix, and keeps what it has written once it asks for more, like a pipe that stalls
+        InputStream stalling = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 255;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position == prefix && sent[0] == null) {
+                    sent[0] = new ByteArrayOutputStream();
+                    compressed.writeTo(sent[0]);
+                }
+                if (position == input.length) {
+                    return -1;
+                }
+                int count = Math.min(len, (position < prefix ? prefix : input.length) - position);
+                System.arraycopy(input, position, b, off, count);
+                position += count;
+                return count;
+            }
+        };
+        HuffmanCodec codec = HuffmanCodec.adaptive();
+        codec.compress(stalling, compressed);
+
+        assertArrayEquals(Arrays.copyOf(input, prefix), readPrefix(sent[0].toByteArray(), prefix));
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        codec.decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+        assertArrayEquals(input, decompressed.toByteArray());
+    }
+
+    /**
+     * readPrefix
+     * decodes the start of an adaptive message that has not been finished
+     * Version 1.0
+     *
+     * @param compressed the bytes of the message sent so far
+     * @param length     the number of bytes they hold
+     * @return the decoded bytes
+     * @throws IOException if fewer bytes can be decoded, or the message goes on
+     */
+
+    private static byte[] readPrefix(byte[] compressed, int length) throws IOException {
+        AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(compressed));
+        byte[] decoded = new byte[length];
+        new DataInputStream(in).readFully(decoded);
+        try {
+            in.read();
+            fail("an unfinished message had more than " + length + " bytes");
+        } catch (EOFException e) {
+            // expected, the rest of the message has not been sent
+        }
+        return decoded;
+    }// end readPrefix
+
+    @Test
+    public void rejectsOptionsThatCanNotBeUsedTogether() {
+        // the same combinations the command line refuses
+        int[][] options = {{0, 64, 0}, {0, 0, SeekIndex.DEFAULT_INTERVAL}, {1, 64, SeekIndex.DEFAULT_INTERVAL}};
+        for (int[] option : options) {
+            try {
+                new HuffmanCodec(option[0] == 1, option[1], 0, option[2]);
+                fail(Arrays.toString(option) + " was allowed");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsCodeLengthsTooShortForTheAlphabet() throws IOException {
+        try {
+            new HuffmanCodec(true, 0, 7, 0);
+            fail("7 bit codes were allowed for 256 bytes");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            HuffmanCodec.bwt(0, 8);
+            fail("8 bit codes were allowed for the BWT symbols");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            HuffmanCodec.lz77(0, 8);
+            fail("8 bit codes were allowed for the LZ77 symbols");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // the shortest limits still give every byte a code
+        byte[] input = TestData.skewed(50000, 19);
+        HuffmanCodec[] shortest = {new HuffmanCodec(true, 0, 8, 0), HuffmanCodec.interleaved(8), HuffmanCodec.bwt(0, 9),
+                HuffmanCodec.lz77(0, 9)};
+        for (HuffmanCodec codec : shortest) {
+            assertArrayEquals(input, toArray(codec.decompress(codec.compress(ByteBuffer.wrap(input)))));
+        }
+    }
+
+    /**
+     * toArray
+     * Version 1.0
+     *
+     * @param buffer a buffer
+     * @return the bytes from its position to its limit
+     */
+
+    static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }// end toArray
+}// end HuffmanCodecTest
@@ -0,0 +1,236 @@
+package com.company;
+
+//imports
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Huffman Decoder Test
+ *
+ * Checks that files that were cut short or changed are rejected instead of decoded into the wrong bytes
+ */
+
+public class HuffmanDecoderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * assertRejected
+     * Version 1.0
+     *
+     * @param message the name of the case
+     * @param codec   the codec
+     * @param data    the broken .huff data
+     */
+
+    static void assertRejected(String message, HuffmanCodec codec, byte[] data) {
+        try {
+            codec.decompress(ByteBuffer.wrap(data));
+            fail(message + " was decoded");
+        } catch (IOException e) {
+            // expected
+        }
+    }// end assertRejected
+
+    /**
+     * assertTruncationRejected
+     * cuts the data at several places, from inside the header and the table to near the end, every cut must be rejected
+     * Version 2.0
+     *
+     * @param message the name of the case
+     * @param codec   the codec
+     * @param input   the original bytes
+     */
+
+    static void assertTruncationRejected(String message, HuffmanCodec codec, byte[] input) throws IOException {
+        byte[] compressed = HuffmanCodecTest.toArray(codec.compress(ByteBuffer.wrap(input)));
+        // the header alone, one byte into the body, and a few bytes in, which is inside the table of every format
+        int[] cuts = {HuffmanFormat.HEADER_SIZE, HuffmanFormat.HEADER_SIZE + 1, HuffmanFormat.HEADER_SIZE + 6,
+                compressed.length / 2, compressed.length - 1, compressed.length - 2, compressed.length - 16};
+        for (int cut : cuts) {
+            assertRejected(message + " cut to " + cut + " of " + compressed.length, codec, Arrays.copyOf(compressed, cut));
+        }
+    }// end assertTruncationRejected
+
+    @Test
+    public void rejectsTruncatedCanonical() throws IOException {
+        assertTruncationRejected("canonical", new HuffmanCodec(), TestData.text(20000, 21));
+        assertTruncationRejected("indexed", new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL), TestData.text(200000, 22));
+    }
+
+    @Test
+    public void rejectsTruncatedCanonicalInParallel() throws IOException {
+        // long enough to be decoded on many threads
+        assertTruncationRejected("parallel canonical", new HuffmanCodec(), TestData.text(6 << 20, 23));
+    }
+
+    @Test
+    public void rejectsCanonicalLengthPastTheMessage() throws IOException {
+        byte[] input = TestData.text(20000, 24);
+        byte[] compressed = HuffmanCodecTest.toArray(new HuffmanCodec().compress(ByteBuffer.wrap(input)));
+        // 20000 is written in three bytes, the last one holds the top bits
+        assertEquals(1, compressed[HuffmanFormat.HEADER_SIZE + 2]);
+        compressed[HuffmanFormat.HEADER_SIZE + 2] = 2;
+        assertRejected("a longer length", new HuffmanCodec(), compressed);
+    }
+
+    @Test
+    public void rejectsTruncatedContext() throws IOException {
+        assertTruncationRejected("context", HuffmanCodec.context(0), TestData.text(20000, 25));
+        assertTruncationRejected("long context", HuffmanCodec.context(0), TestData.text(1 << 20, 26));
+    }
+
+    @Test
+    public void rejectsTruncatedShared() throws IOException {
+        HuffmanCodec codec = HuffmanCodec.shared(Codebook.train(3, Histogram.count(ByteBuffer.wrap(TestData.text(20000, 27))), 0));
+        assertTruncationRejected("shared", codec, TestData.text(5000, 28));
+    }
+
+    @Test
+    public void rejectsTruncatedBlocks() throws IOException {
+        assertTruncationRejected("blocks", new HuffmanCodec(true, 1 << 14, 0, 0), TestData.text(100000, 30));
+    }
+
+    @Test
+    public void rejectsTruncatedInterleaved() throws IOException {
+        assertTruncationRejected("interleaved", HuffmanCodec.interleaved(0), TestData.text(100000, 31));
+        // every cut inside the header and the table leaves the first chunk past the end of the file
+        HuffmanCodec codec = HuffmanCodec.interleaved(0);
+        byte[] compressed = HuffmanCodecTest.toArray(codec.compress(ByteBuffer.wrap(TestData.text(100000, 31))));
+        for (int cut = HuffmanFormat.HEADER_SIZE; cut < 64; cut++) {
+            assertRejected("interleaved cut to " + cut, codec, Arrays.copyOf(compressed, cut));
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedBwt() throws IOException {
+        assertTruncationRejected("bwt", HuffmanCodec.bwt(1 << 14, 0), TestData.text(100000, 32));
+    }
+
+    @Test
+    public void rejectsTruncatedLz77() throws IOException {
+        assertTruncationRejected("lz77", HuffmanCodec.lz77(6, 0), TestData.text(100000, 33));
+    }
+
+    @Test
+    public void rejectsTruncatedAdaptive() throws IOException {
+        assertTruncationRejected("adaptive", HuffmanCodec.adaptive(), TestData.text(20000, 34));
+    }
+
+    @Test
+    public void rejectsTruncatedLegacy() throws IOException {
+        assertTruncationRejected("legacy", new HuffmanCodec(false, 0, 0, 0), TestData.text(20000, 35));
+    }
+
+    @Test
+    public void rejectsTruncatedStored() throws IOException {
+        // random bytes cannot be made smaller, so they are stored
+        assertTruncationRejected("stored", new HuffmanCodec(), TestData.random(20000, 36));
+    }
+
+    @Test
+    public void rejectsCorruptHeaders() throws IOException {
+        // 100 bytes and a block size of 64 are each written in one byte after the format byte
+        byte[] input = TestData.text(100, 37);
+        HuffmanCodec[] codecs = {new HuffmanCodec(true, 64, 0, 0), HuffmanCodec.bwt(64, 0)};
+        for (HuffmanCodec codec : codecs) {
+            byte[] compressed = HuffmanCodecTest.toArray(codec.compress(ByteBuffer.wrap(input)));
+            byte[] corrupt = compressed.clone();
+            corrupt[HuffmanFormat.HEADER_SIZE + 1] = 0;
+            assertRejected("a block size of 0", codec, corrupt);
+            corrupt = compressed.clone();
+            corrupt[HuffmanFormat.HEADER_SIZE] = 127;
+            assertRejected("a longer length", codec, corrupt);
+        }
+        // a body length of -1 in ten bytes, after the length of 100 and the block size of 64
+        HuffmanCodec bwt = HuffmanCodec.bwt(64, 0);
+        byte[] negative = Arrays.copyOf(HuffmanCodecTest.toArray(bwt.compress(ByteBuffer.wrap(input))), 19);
+        Arrays.fill(negative, HuffmanFormat.HEADER_SIZE + 2, HuffmanFormat.HEADER_SIZE + 11, (byte) 255);
+        negative[HuffmanFormat.HEADER_SIZE + 11] = 1;
+        assertRejected("a negative bwt body length", bwt, negative);
+        HuffmanCodec lz77 = HuffmanCodec.lz77(6, 0);
+        byte[] compressed = HuffmanCodecTest.toArray(lz77.compress(ByteBuffer.wrap(input)));
+        compressed[HuffmanFormat.HEADER_SIZE] = 127;
+        assertRejected("a longer lz77 length", lz77, compressed);
+
+        // the body of the first block of random bytes, a stored block, is cut to 10 bytes
+        HuffmanCodec blocks = new HuffmanCodec(true, 64, 0, 0);
+        compressed = HuffmanCodecTest.toArray(blocks.compress(ByteBuffer.wrap(TestData.random(100, 38))));
+        assertEquals(HuffmanFormat.BLOCK_STORED, compressed[HuffmanFormat.HEADER_SIZE + 3]);
+        compressed[HuffmanFormat.HEADER_SIZE + 2] = 10;
+        assertRejected("a stored block longer than its size", blocks, compressed);
+
+        // the legacy table: its length, the remaining zeros, then each byte, the length of its code and the code
+        HuffmanCodec legacy = new HuffmanCodec(false, 0, 0, 0);
+        compressed = HuffmanCodecTest.toArray(legacy.compress(ByteBuffer.wrap(input)));
+        byte[] corrupt = compressed.clone();
+        corrupt[0] = 0;
+        assertRejected("a legacy table of 256 entries", legacy, corrupt);
+        corrupt = compressed.clone();
+        corrupt[1] = 9;
+        assertRejected("9 remaining zeros", legacy, corrupt);
+        corrupt = compressed.clone();
+        corrupt[3] = 0;
+        assertRejected("a code of 0 bits", legacy, corrupt);
+        corrupt = compressed.clone();
+        corrupt[3] = (byte) 200;
+        assertRejected("a code of 200 bits", legacy, corrupt);
+        assertRejected("a cut legacy table", legacy, Arrays.copyOf(compressed, 5));
+        assertRejected("one byte", legacy, new byte[]{3});
+    }
+
+    @Test
+    public void decodesLegacyLastByteOfEightZeros() throws IOException {
+        // a table of a and b with one bit codes, 8 remaining zeros, then one byte of codes that fills the byte
+        byte[] legacy = {2, 8, 'a', 1, 0, 'b', 1, 1, 0x55};
+        ByteBuffer decoded = new HuffmanCodec(false, 0, 0, 0).decompress(ByteBuffer.wrap(legacy));
+        assertArrayEquals("abababab".getBytes(StandardCharsets.US_ASCII), HuffmanCodecTest.toArray(decoded));
+    }
+
+    @Test
+    public void rejectsRangesPastTheMessage() throws IOException {
+        HuffmanCodec codec = new HuffmanCodec(true, 0, 0, SeekIndex.DEFAULT_INTERVAL);
+        byte[] compressed = HuffmanCodecTest.toArray(codec.compress(ByteBuffer.wrap(TestData.text(200000, 29))));
+        ByteBuffer bytes = ByteBuffer.wrap(compressed);
+        int index = (int) bytes.getLong(compressed.length - 8);
+        // points 0 to 3, the last one is 3392 bytes before the end of the file
+        assertEquals(4 * 8, compressed.length - 8 - index);
+        long last = bytes.getLong(index + 3 * 8);
+
+        // point 1 moved to where point 3 is runs out of message before the range is decoded
+        bytes.putLong(index + 8, last);
+        Path moved = folder.newFile().toPath();
+        Files.write(moved, compressed);
+        try {
+            codec.decompressRange(moved, 65536, 65536);
+            fail("a range past the message was decoded");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // a point past the message is rejected before anything is read
+        bytes.putLong(index + 8, Long.MAX_VALUE / 2);
+        Path past = folder.newFile().toPath();
+        Files.write(past, compressed);
+        try {
+            codec.decompressRange(past, 65536, 10);
+            fail("a point past the message was used");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}// end HuffmanDecoderTest
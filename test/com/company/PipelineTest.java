@@ -0,0 +1,107 @@
+package com.company;
+
+//imports
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pipeline Test
+ *
+ * Checks that an error on either stage reaches the coder instead of leaving it waiting for room in the queue or for
+ * the next chunk
+ */
+
+public class PipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 30000)
+    public void reportsWriterErrors() throws IOException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("failed on purpose");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                throw new IllegalStateException("failed on purpose");
+            }
+        };
+        OutputStream output = Pipeline.writer(failing);
+        byte[] chunk = new byte[Pipeline.CHUNK_SIZE];
+        try {
+            // more chunks than the queue holds, so the coder would wait forever if the stage died quietly
+            for (int i = 0; i < 2 * Pipeline.DEPTH + 2; i++) {
+                output.write(chunk);
+            }
+            output.close();
+            fail("the error of the writer was lost");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void reportsReaderErrors() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[(2 * Pipeline.DEPTH + 4) * Pipeline.CHUNK_SIZE]);
+        try (MappedInput input = new MappedInput(file, true)) {
+            // the stage fills the queue and waits, the rest of the file is gone once it reads again
+            input.nextWindow();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(Pipeline.CHUNK_SIZE);
+            }
+            try {
+                while (input.nextWindow() != null) {
+                    // the chunks read before the file shrank
+                }
+                fail("the file shrank and the error of the reader was lost");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void releasesChunksWhenClosedEarly() throws IOException, InterruptedException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[(2 * Pipeline.DEPTH + 4) * Pipeline.CHUNK_SIZE]);
+        // the arena starts with no chunks, so each one given back is counted
+        List<byte[]> taken = new ArrayList<byte[]>();
+        long misses = BufferArena.getMisses();
+        while (BufferArena.getMisses() == misses) {
+            taken.add(BufferArena.borrow(Pipeline.CHUNK_SIZE));
+        }
+        long retained = BufferArena.getRetainedBytes();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the input is closed before anything is taken, the stage fills its queue and then finds nobody will take
+            // the chunk it holds or the ones in the queue
+            new Pipeline.ReaderStage(channel, 0, channel.size(), new AtomicBoolean(true));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (BufferArena.getRetainedBytes() - retained < 2L * Pipeline.CHUNK_SIZE) {
+                assertTrue("the chunks of the stage were not given back", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        }
+        for (byte[] chunk : taken) {
+            BufferArena.release(chunk);
+        }
+    }
+}// end PipelineTest
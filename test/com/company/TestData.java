@@ -0,0 +1,157 @@
+package com.company;
+
+//imports
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test Data
+ *
+ * Inputs for the tests, every input is made from a fixed seed so a failure can be repeated
+ */
+
+public class TestData {
+
+    // the words the text inputs are made of
+    private static final String[] WORDS = {"the", "code", "of", "each", "byte", "is", "written", "huffman", "table",
+            "tree", "block", "stream", "2026-10-18", "INFO", "WARN", "request", "id=", "\n", ", ", "0", "17", "255"};
+
+    /**
+     * text
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @param seed   the seed of the words chosen
+     * @return text made of words, like a log file
+     */
+
+    public static byte[] text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(text.toString().getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, length);
+        return bytes;
+    }// end text
+
+    /**
+     * random
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @param seed   the seed
+     * @return bytes that can not be compressed
+     */
+
+    public static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }// end random
+
+    /**
+     * skewed
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @param seed   the seed
+     * @return bytes that use all 256 values, the small values far more often than the big ones
+     */
+
+    public static byte[] skewed(int length, long seed) {
+        Random random = new Random(seed);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            while (value < 255 && random.nextInt(3) != 0) {
+                value++;
+            }
+            // a few of every value, so every byte has a code
+            bytes[i] = (byte) (random.nextInt(50) == 0 ? random.nextInt(256) : value);
+        }
+        return bytes;
+    }// end skewed
+
+    /**
+     * run
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @param value  the byte
+     * @return the same byte over and over
+     */
+
+    public static byte[] run(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }// end run
+
+    /**
+     * period
+     * Version 1.0
+     *
+     * @param length the number of bytes
+     * @param first  the first byte of each pair
+     * @param second the second byte of each pair
+     * @return two bytes over and over
+     */
+
+    public static byte[] period(int length, int first, int second) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 2 == 0 ? first : second);
+        }
+        return bytes;
+    }// end period
+
+    /**
+     * concat
+     * Version 1.0
+     *
+     * @param parts the inputs
+     * @return the inputs one after another
+     */
+
+    public static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] bytes = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, bytes, position, part.length);
+            position += part.length;
+        }
+        return bytes;
+    }// end concat
+
+    /**
+     * inputs
+     * Version 1.0
+     *
+     * @return the inputs every format is tested on, by name
+     */
+
+    public static Map<String, byte[]> inputs() {
+        Map<String, byte[]> inputs = new LinkedHashMap<String, byte[]>();
+        inputs.put("empty", new byte[0]);
+        inputs.put("one byte", new byte[]{42});
+        inputs.put("two bytes", new byte[]{0, (byte) 255});
+        inputs.put("run", run(5000, 'a'));
+        inputs.put("period 2", period(4001, 'a', 'b'));
+        inputs.put("text", text(20000, 1));
+        inputs.put("skewed", skewed(30000, 2));
+        inputs.put("random", random(20000, 3));
+        inputs.put("text and random", concat(text(100000, 4), random(100000, 5), text(100000, 6)));
+        inputs.put("long text", text(300000, 7));
+        return inputs;
+    }// end inputs
+}// end TestData